@@ -0,0 +1,126 @@
+package com.salesmaster.salesmasterpro;
+
+import com.salesmaster.salesmasterpro.dto.FacturaDTO;
+import com.salesmaster.salesmasterpro.dto.PedidoDTO;
+import com.salesmaster.salesmasterpro.dto.PedidoItemDTO;
+import com.salesmaster.salesmasterpro.dto.ProductoDTO;
+import com.salesmaster.salesmasterpro.entity.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Datos en memoria para los benchmarks, con la misma forma que los que devuelve la base de datos.
+ */
+public final class DatosBenchmark {
+
+    private static final LocalDateTime FECHA = LocalDateTime.of(2025, 11, 23, 10, 30);
+
+    private DatosBenchmark() {
+    }
+
+    public static List<ProductoDTO> catalogo(int cantidad) {
+        List<ProductoDTO> productos = new ArrayList<>(cantidad);
+        for (int i = 1; i <= cantidad; i++) {
+            productos.add(ProductoDTO.builder()
+                    .idProd((long) i)
+                    .nombre("Producto " + i)
+                    .precio(new BigDecimal(i * 7 + ".99"))
+                    .build());
+        }
+        return productos;
+    }
+
+    public static Pedido pedido(long idPedido, int items) {
+        Cliente cliente = Cliente.builder()
+                .idCliente(1L)
+                .nombre("Juan Pérez")
+                .email("juan.perez@example.com")
+                .build();
+        Pedido pedido = Pedido.builder()
+                .idPedido(idPedido)
+                .cliente(cliente)
+                .fecha(FECHA)
+                .total(BigDecimal.ZERO)
+                .build();
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (ProductoDTO productoDTO : catalogo(items)) {
+            Producto producto = Producto.builder()
+                    .idProd(productoDTO.getIdProd())
+                    .nombre(productoDTO.getNombre())
+                    .precio(productoDTO.getPrecio())
+                    .build();
+            BigDecimal subtotal = producto.getPrecio().multiply(BigDecimal.valueOf(2));
+            total = total.add(subtotal);
+            pedido.getPedidoProductos().add(PedidoProducto.builder()
+                    .id(new PedidoProductoId(idPedido, producto.getIdProd()))
+                    .pedido(pedido)
+                    .producto(producto)
+                    .cantidad(2)
+                    .subtotal(subtotal)
+                    .build());
+        }
+        pedido.setTotal(total);
+        return pedido;
+    }
+
+    public static Factura factura(long idFactura, int items) {
+        Pedido pedido = pedido(idFactura, items);
+        Factura factura = Factura.builder()
+                .idFactura(idFactura)
+                .pedido(pedido)
+                .nro(String.format("FAC-251123-%04d", idFactura))
+                .fecha(FECHA)
+                .total(pedido.getTotal())
+                .build();
+        pedido.setFactura(factura);
+        return factura;
+    }
+
+    public static List<PedidoDTO> pedidosDTO(int cantidad, int items) {
+        List<PedidoDTO> pedidos = new ArrayList<>(cantidad);
+        for (int i = 1; i <= cantidad; i++) {
+            pedidos.add(PedidoDTO.builder()
+                    .idPedido((long) i)
+                    .idCliente(1L)
+                    .nombreCliente("Juan Pérez")
+                    .fecha(FECHA)
+                    .total(new BigDecimal("159.80"))
+                    .items(itemsDTO(items))
+                    .build());
+        }
+        return pedidos;
+    }
+
+    public static List<FacturaDTO> facturasDTO(int cantidad, int items) {
+        List<FacturaDTO> facturas = new ArrayList<>(cantidad);
+        for (int i = 1; i <= cantidad; i++) {
+            facturas.add(FacturaDTO.builder()
+                    .idFactura((long) i)
+                    .idPedido((long) i)
+                    .nro(String.format("FAC-251123-%04d", i))
+                    .fecha(FECHA)
+                    .total(new BigDecimal("159.80"))
+                    .nombreCliente("Juan Pérez")
+                    .items(itemsDTO(items))
+                    .build());
+        }
+        return facturas;
+    }
+
+    private static List<PedidoItemDTO> itemsDTO(int cantidad) {
+        List<PedidoItemDTO> items = new ArrayList<>(cantidad);
+        for (ProductoDTO producto : catalogo(cantidad)) {
+            items.add(PedidoItemDTO.builder()
+                    .idProd(producto.getIdProd())
+                    .cantidad(2)
+                    .subtotal(producto.getPrecio().multiply(BigDecimal.valueOf(2)))
+                    .nombreProducto(producto.getNombre())
+                    .build());
+        }
+        return items;
+    }
+}
@@ -0,0 +1,44 @@
+package com.salesmaster.salesmasterpro;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Arma servicios para los benchmarks sin Spring: cada parámetro del constructor recibe el colaborador
+ * indicado de ese tipo o null. Así un servicio que suma una dependencia no rompe los benchmarks que no la usan.
+ */
+public final class ServiciosBenchmark {
+
+    private ServiciosBenchmark() {
+    }
+
+    public static <T> T crear(Class<T> tipo, Object... colaboradores) {
+        Constructor<?>[] constructores = tipo.getConstructors();
+        if (constructores.length != 1) {
+            throw new IllegalArgumentException(tipo.getSimpleName() + " debe tener un único constructor público");
+        }
+        Class<?>[] parametros = constructores[0].getParameterTypes();
+        Object[] argumentos = new Object[parametros.length];
+        for (Object colaborador : colaboradores) {
+            int posicion = posicion(parametros, argumentos, colaborador);
+            if (posicion < 0) {
+                throw new IllegalArgumentException(tipo.getSimpleName() + " no recibe " + colaborador.getClass().getName());
+            }
+            argumentos[posicion] = colaborador;
+        }
+        try {
+            return tipo.cast(constructores[0].newInstance(argumentos));
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("No se pudo crear " + tipo.getSimpleName(), e);
+        }
+    }
+
+    private static int posicion(Class<?>[] parametros, Object[] argumentos, Object colaborador) {
+        for (int i = 0; i < parametros.length; i++) {
+            if (argumentos[i] == null && parametros[i].isInstance(colaborador)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,45 @@
+package com.salesmaster.salesmasterpro.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.salesmaster.salesmasterpro.DatosBenchmark;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialización JSON de una página de pedidos y de facturas, con la configuración de Jackson de Spring.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializacionBenchmark {
+
+    @Param({"20", "100"})
+    private int cantidad;
+
+    private ObjectMapper objectMapper;
+    private List<PedidoDTO> pedidos;
+    private List<FacturaDTO> facturas;
+
+    @Setup
+    public void preparar() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        pedidos = DatosBenchmark.pedidosDTO(cantidad, 5);
+        facturas = DatosBenchmark.facturasDTO(cantidad, 5);
+    }
+
+    @Benchmark
+    public byte[] serializarPedidos() throws Exception {
+        return objectMapper.writeValueAsBytes(pedidos);
+    }
+
+    @Benchmark
+    public byte[] serializarFacturas() throws Exception {
+        return objectMapper.writeValueAsBytes(facturas);
+    }
+}
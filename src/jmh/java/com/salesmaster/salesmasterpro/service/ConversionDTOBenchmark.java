@@ -0,0 +1,50 @@
+package com.salesmaster.salesmasterpro.service;
+
+import com.salesmaster.salesmasterpro.DatosBenchmark;
+import com.salesmaster.salesmasterpro.ServiciosBenchmark;
+import com.salesmaster.salesmasterpro.dto.FacturaDTO;
+import com.salesmaster.salesmasterpro.dto.PedidoDTO;
+import com.salesmaster.salesmasterpro.entity.Factura;
+import com.salesmaster.salesmasterpro.entity.Pedido;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversión entidad -> DTO de pedidos y facturas, la que se repite por cada fila de los listados.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConversionDTOBenchmark {
+
+    @Param({"1", "10", "50"})
+    private int items;
+
+    private PedidoService pedidoService;
+    private FacturaService facturaService;
+    private Pedido pedido;
+    private Factura factura;
+
+    @Setup
+    public void preparar() {
+        // La conversión no usa repositorios ni colaboradores
+        pedidoService = ServiciosBenchmark.crear(PedidoService.class);
+        facturaService = ServiciosBenchmark.crear(FacturaService.class);
+        pedido = DatosBenchmark.pedido(1L, items);
+        factura = DatosBenchmark.factura(1L, items);
+    }
+
+    @Benchmark
+    public PedidoDTO convertirPedido() {
+        return pedidoService.convertirADTO(pedido);
+    }
+
+    @Benchmark
+    public FacturaDTO convertirFactura() {
+        return facturaService.convertirADTO(factura);
+    }
+}
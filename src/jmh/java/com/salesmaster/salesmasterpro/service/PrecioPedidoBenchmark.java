@@ -0,0 +1,62 @@
+package com.salesmaster.salesmasterpro.service;
+
+import com.salesmaster.salesmasterpro.DatosBenchmark;
+import com.salesmaster.salesmasterpro.ServiciosBenchmark;
+import com.salesmaster.salesmasterpro.dto.ProductoDTO;
+import com.salesmaster.salesmasterpro.entity.Cliente;
+import com.salesmaster.salesmasterpro.entity.Pedido;
+import com.salesmaster.salesmasterpro.entity.Producto;
+import com.salesmaster.salesmasterpro.repository.ProductoRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Armado de un pedido en crearPedido: subtotales y total con BigDecimal sobre precios ya resueltos.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrecioPedidoBenchmark {
+
+    @Param({"1", "10", "50"})
+    private int items;
+
+    private PedidoService pedidoService;
+    private Cliente cliente;
+    private Map<Long, Integer> cantidades;
+    private Map<Long, ProductoDTO> productos;
+
+    @Setup
+    public void preparar() {
+        // getReferenceById devuelve una entidad con solo el ID, como el proxy sin inicializar de Hibernate
+        ProductoRepository productoRepository = (ProductoRepository) Proxy.newProxyInstance(
+                ProductoRepository.class.getClassLoader(), new Class<?>[]{ProductoRepository.class},
+                (proxy, metodo, args) -> {
+                    if (!metodo.getName().equals("getReferenceById")) {
+                        throw new UnsupportedOperationException(metodo.getName());
+                    }
+                    return Producto.builder().idProd((Long) args[0]).build();
+                });
+        pedidoService = ServiciosBenchmark.crear(PedidoService.class, productoRepository);
+
+        cliente = Cliente.builder().idCliente(1L).nombre("Juan Pérez").build();
+        productos = DatosBenchmark.catalogo(items).stream()
+                .collect(Collectors.toMap(ProductoDTO::getIdProd, Function.identity()));
+        cantidades = new LinkedHashMap<>();
+        productos.keySet().forEach(idProd -> cantidades.put(idProd, 2));
+    }
+
+    @Benchmark
+    public Pedido construirPedido() {
+        return pedidoService.construirPedido(cliente, cantidades, productos);
+    }
+}
@@ -0,0 +1,69 @@
+package com.salesmaster.salesmasterpro.validation;
+
+import org.apache.commons.validator.routines.EmailValidator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validadores de nombre y email que corren en cada alta o modificación de clientes y productos,
+ * comparados con la implementación anterior (String.matches y Commons Validator sin caché).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidacionBenchmark {
+
+    private static final String[] NOMBRES = {
+            "Juan Pérez", "María José O'Connor", "Ñandú Güemes-Arias", "Ana", "Juan123", " ", "X"
+    };
+
+    private static final String[] EMAILS = {
+            "juan.perez@example.com", "maria+ventas@empresa.com.bo", "sin-arroba.example.com",
+            "usuario@dominio", "a@b.co"
+    };
+
+    private static final String NOMBRE_PATTERN = "^[a-zA-ZáéíóúÁÉÍÓÚñÑüÜ\\s'-]{2,80}$";
+    private static final EmailValidator COMMONS = EmailValidator.getInstance(true, true);
+
+    private ValidNombreValidator nombreValidator;
+    private ValidEmailValidator emailValidator;
+
+    @Setup
+    public void preparar() {
+        nombreValidator = new ValidNombreValidator();
+        emailValidator = new ValidEmailValidator();
+    }
+
+    @Benchmark
+    public void validarNombres(Blackhole blackhole) {
+        for (String nombre : NOMBRES) {
+            blackhole.consume(nombreValidator.isValid(nombre, null));
+        }
+    }
+
+    @Benchmark
+    public void validarEmails(Blackhole blackhole) {
+        for (String email : EMAILS) {
+            blackhole.consume(emailValidator.isValid(email, null));
+        }
+    }
+
+    @Benchmark
+    public void validarNombresAnterior(Blackhole blackhole) {
+        for (String nombre : NOMBRES) {
+            blackhole.consume(!nombre.trim().isEmpty() && nombre.trim().length() >= 2 && nombre.matches(NOMBRE_PATTERN));
+        }
+    }
+
+    @Benchmark
+    public void validarEmailsAnterior(Blackhole blackhole) {
+        for (String email : EMAILS) {
+            blackhole.consume(COMMONS.isValid(email));
+        }
+    }
+}
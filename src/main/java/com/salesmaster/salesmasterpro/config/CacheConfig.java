@@ -0,0 +1,52 @@
+package com.salesmaster.salesmasterpro.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.salesmaster.salesmasterpro.service.FacturasSerializadas;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String PRODUCTOS = "productos";
+    public static final String PRODUCTOS_PAGINAS = "productosPaginas";
+    public static final String CATALOGO_PRODUCTOS = "catalogoProductos";
+    public static final String FACTURAS_JSON = "facturasJson";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${salesmaster.cache.productos.tamano-maximo:10000}") long tamanoMaximo,
+                                     @Value("${salesmaster.cache.productos.paginas-maximo:500}") long paginasMaximo,
+                                     @Value("${salesmaster.cache.productos.ttl:10m}") Duration ttl,
+                                     @Value("${salesmaster.cache.facturas.bytes-maximo:64MB}") DataSize bytesFacturas,
+                                     @Value("${salesmaster.cache.facturas.ttl:1h}") Duration ttlFacturas) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        // recordStats() habilita las métricas de aciertos, fallos y desalojos en Micrometer
+        cacheManager.registerCustomCache(PRODUCTOS, Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo).expireAfterWrite(ttl).recordStats().build());
+        cacheManager.registerCustomCache(CATALOGO_PRODUCTOS, Caffeine.newBuilder()
+                .maximumSize(tamanoMaximo).expireAfterWrite(ttl).recordStats().build());
+        cacheManager.registerCustomCache(PRODUCTOS_PAGINAS, Caffeine.newBuilder()
+                .maximumSize(paginasMaximo).expireAfterWrite(ttl).recordStats().build());
+        // Acotada por el tamaño total del JSON guardado; el vencimiento limita cuánto dura un JSON que
+        // se guardó desde una réplica atrasada después de renombrar el cliente o un producto
+        cacheManager.registerCustomCache(FACTURAS_JSON, Caffeine.newBuilder()
+                .maximumWeight(bytesFacturas.toBytes())
+                .expireAfterWrite(ttlFacturas)
+                .weigher((clave, valor) -> valor instanceof FacturasSerializadas.FacturaSerializada factura
+                        ? factura.json().length + 64 : 64)
+                .recordStats().build());
+        // Las invalidaciones se aplican al confirmar la transacción, no antes (FacturasSerializadas,
+        // CatalogoProductos y ProductosEnCache usan sus cachés sin este envoltorio y ordenan sus
+        // invalidaciones con una generación)
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
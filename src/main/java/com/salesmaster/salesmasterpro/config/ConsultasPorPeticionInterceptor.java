@@ -0,0 +1,60 @@
+package com.salesmaster.salesmasterpro.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Registra cuántas sentencias SQL ejecutó cada petición en salesmaster.http.consultas, por método y ruta.
+ * Un listado que empieza a crecer con la cantidad de filas (N+1) se ve como un salto en este valor.
+ *
+ * Solo cuenta lo que pasa por Hibernate (ver ContadorSentencias): las sentencias por JdbcTemplate, como
+ * la numeración de facturas o la carga del índice de búsqueda, no aparecen. En las respuestas asíncronas
+ * o en streaming se registra lo ejecutado en el hilo de la petición hasta que empieza el procesamiento
+ * asíncrono; lo que corre después en otro hilo no se cuenta, y el despacho ASYNC que cierra la respuesta
+ * no registra un segundo valor.
+ */
+@RequiredArgsConstructor
+public class ConsultasPorPeticionInterceptor implements AsyncHandlerInterceptor {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.ASYNC) {
+            ContadorSentencias.iniciar();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // El resto de la respuesta sigue en otro hilo; afterCompletion no se llama en este
+        registrar(request, ContadorSentencias.finalizar());
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            // Ya se registró al empezar el procesamiento asíncrono
+            return;
+        }
+        registrar(request, ContadorSentencias.finalizar());
+    }
+
+    private void registrar(HttpServletRequest request, int sentencias) {
+        Object ruta = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder("salesmaster.http.consultas")
+                .description("Sentencias SQL ejecutadas por petición")
+                .baseUnit("sentencias")
+                .tag("method", request.getMethod())
+                .tag("uri", ruta != null ? ruta.toString() : "UNKNOWN")
+                .register(meterRegistry)
+                .record(sentencias);
+    }
+}
@@ -0,0 +1,33 @@
+package com.salesmaster.salesmasterpro.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Cuenta las sentencias SQL que Hibernate prepara en el hilo de la petición actual.
+ * ConsultasPorPeticionInterceptor abre y cierra la cuenta alrededor de cada petición;
+ * fuera de una petición (tareas programadas, arranque) no cuenta nada. Las sentencias que se
+ * ejecutan con JdbcTemplate o directamente sobre el DataSource no pasan por aquí.
+ */
+public class ContadorSentencias implements StatementInspector {
+
+    private static final ThreadLocal<int[]> CONTADOR = new ThreadLocal<>();
+
+    public static void iniciar() {
+        CONTADOR.set(new int[1]);
+    }
+
+    public static int finalizar() {
+        int[] contador = CONTADOR.get();
+        CONTADOR.remove();
+        return contador != null ? contador[0] : 0;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] contador = CONTADOR.get();
+        if (contador != null) {
+            contador[0]++;
+        }
+        return sql;
+    }
+}
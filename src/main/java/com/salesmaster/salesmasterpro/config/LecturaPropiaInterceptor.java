@@ -0,0 +1,70 @@
+package com.salesmaster.salesmasterpro.config;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+
+/**
+ * Lleva entre peticiones el plazo de lectura desde el primario de SesionLectura en una cookie, así un
+ * cliente que acaba de escribir ve sus cambios en las siguientes lecturas aunque lleguen a otra instancia.
+ * La cookie solo puede adelantar lecturas al primario, nunca alejarlas: su valor se limita a la ventana.
+ */
+@RequiredArgsConstructor
+public class LecturaPropiaInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String COOKIE = "salesmaster-primario-hasta";
+
+    private final Duration ventana;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        long ahora = System.currentTimeMillis();
+        long primarioHasta = Math.min(leerCookie(request), ahora + ventana.toMillis());
+        SesionLectura.iniciar(primarioHasta, hasta -> {
+            // La escritura se confirma antes de escribir el cuerpo, así que la respuesta todavía admite encabezados
+            if (!response.isCommitted()) {
+                response.addHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(COOKIE, Long.toString(hasta))
+                        .path("/")
+                        .httpOnly(true)
+                        .maxAge(Duration.ofMillis(hasta - System.currentTimeMillis()).plusSeconds(1))
+                        .sameSite("Lax")
+                        .build()
+                        .toString());
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        SesionLectura.finalizar();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        SesionLectura.finalizar();
+    }
+
+    private static long leerCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+}
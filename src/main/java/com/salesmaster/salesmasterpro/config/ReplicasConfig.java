@@ -0,0 +1,103 @@
+package com.salesmaster.salesmasterpro.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Réplicas de lectura: solo se activa si salesmaster.replicas.urls tiene al menos una URL. Reemplaza el
+ * DataSource de Spring Boot por uno que envía las transacciones readOnly a las réplicas (ver RutaLecturaDataSource).
+ * Los pools del primario y de las réplicas usan la configuración de spring.datasource.hikari.*.
+ */
+@Configuration
+@ConditionalOnProperty(name = "salesmaster.replicas.urls")
+public class ReplicasConfig implements WebMvcConfigurer {
+
+    private final Duration lecturaPropia;
+
+    public ReplicasConfig(@Value("${salesmaster.replicas.lectura-propia:5s}") Duration lecturaPropia) {
+        this.lecturaPropia = lecturaPropia;
+    }
+
+    @Bean
+    public RutaLecturaDataSource rutaLecturaDataSource(DataSourceProperties propiedades,
+                                                       Environment environment,
+                                                       ObjectProvider<MeterRegistry> meterRegistry,
+                                                       @Value("${salesmaster.replicas.urls}") List<String> urls,
+                                                       @Value("${salesmaster.replicas.username:${spring.datasource.username}}") String usuario,
+                                                       @Value("${salesmaster.replicas.password:${spring.datasource.password}}") String clave,
+                                                       @Value("${salesmaster.replicas.retraso-maximo:2s}") Duration retrasoMaximo,
+                                                       @Value("${salesmaster.replicas.intervalo-verificacion:5s}") Duration intervalo) {
+        HikariConfig base = new HikariConfig();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(base));
+        base.setDriverClassName(propiedades.determineDriverClassName());
+        MeterRegistry registro = meterRegistry.getIfAvailable();
+
+        HikariDataSource primario = crearPool(base, "primario", propiedades.determineUrl(),
+                propiedades.determineUsername(), propiedades.determinePassword(), false, registro);
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            String nombre = "replica-" + (i + 1);
+            HikariDataSource replica = crearPool(base, nombre, urls.get(i).trim(), usuario, clave, true, registro);
+            replicas.put(nombre, replica);
+        }
+
+        RutaLecturaDataSource ruta = new RutaLecturaDataSource(primario, replicas, retrasoMaximo, lecturaPropia);
+        ruta.iniciarVerificacion(intervalo);
+        return ruta;
+    }
+
+    // El que usan JPA, los JdbcTemplate y la inicialización del esquema; fuera de una transacción readOnly va al primario
+    @Bean
+    @Primary
+    public DataSource dataSource(RutaLecturaDataSource rutaLecturaDataSource) {
+        return new LazyConnectionDataSourceProxy(rutaLecturaDataSource);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new LecturaPropiaInterceptor(lecturaPropia))
+                .addPathPatterns("/api/**");
+    }
+
+    private static HikariDataSource crearPool(HikariConfig base, String nombre, String url, String usuario,
+                                              String clave, boolean replica, MeterRegistry registro) {
+        HikariConfig config = new HikariConfig();
+        base.copyStateTo(config);
+        config.setPoolName(nombre);
+        config.setJdbcUrl(url);
+        config.setUsername(usuario);
+        config.setPassword(clave);
+        if (replica) {
+            config.setReadOnly(true);
+            // Una réplica caída no impide arrancar: queda fuera de servicio hasta que responda
+            config.setInitializationFailTimeout(-1);
+        }
+        if (registro != null) {
+            // Mismas métricas hikaricp.* que el pool de Spring Boot, con el tag pool=<nombre>
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registro));
+        }
+        return new HikariDataSource(config);
+    }
+}
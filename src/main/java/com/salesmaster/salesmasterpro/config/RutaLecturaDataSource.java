@@ -0,0 +1,195 @@
+package com.salesmaster.salesmasterpro.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Envía las transacciones de solo lectura a las réplicas y todo lo demás al primario.
+ *
+ * La ruta se decide al obtener la conexión real, así que se usa detrás de un LazyConnectionDataSourceProxy:
+ * con él la conexión se pide en la primera sentencia, cuando la transacción ya está marcada como readOnly.
+ * Las réplicas se turnan entre las disponibles. Una réplica queda fuera mientras no responda o su retraso
+ * de replicación supere retrasoMaximo; sin réplicas disponibles se lee del primario. Después de confirmar
+ * una escritura, la misma sesión (ver SesionLectura) lee del primario durante lecturaPropia.
+ */
+public class RutaLecturaDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    static final String PRIMARIO = "primario";
+
+    private static final Logger log = LoggerFactory.getLogger(RutaLecturaDataSource.class);
+
+    // Sin escrituras recientes en el primario pg_last_xact_replay_timestamp() no avanza aunque la réplica
+    // esté al día: si ya aplicó todo lo recibido, el retraso es 0
+    private static final String CONSULTA_RETRASO =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    private static final int TIMEOUT_VERIFICACION_SEGUNDOS = 2;
+
+    private final DataSource primario;
+    private final List<Replica> replicas;
+    private final Duration retrasoMaximo;
+    private final Duration lecturaPropia;
+    private final AtomicInteger turno = new AtomicInteger();
+
+    private ScheduledExecutorService verificador;
+
+    /**
+     * Las réplicas empiezan fuera de servicio hasta la primera llamada a {@link #verificarReplicas()}.
+     */
+    public RutaLecturaDataSource(DataSource primario, Map<String, DataSource> replicas,
+                                 Duration retrasoMaximo, Duration lecturaPropia) {
+        this.primario = primario;
+        this.retrasoMaximo = retrasoMaximo;
+        this.lecturaPropia = lecturaPropia;
+        this.replicas = new ArrayList<>(replicas.size());
+
+        Map<Object, Object> destinos = new HashMap<>();
+        destinos.put(PRIMARIO, primario);
+        replicas.forEach((nombre, dataSource) -> {
+            this.replicas.add(new Replica(nombre, dataSource));
+            destinos.put(nombre, dataSource);
+        });
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(primario);
+        initialize();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            registrarEscrituraAlConfirmar();
+            return PRIMARIO;
+        }
+        if (SesionLectura.leeDelPrimario()) {
+            return PRIMARIO;
+        }
+        Replica replica = siguienteDisponible();
+        return replica != null ? replica.nombre : PRIMARIO;
+    }
+
+    /**
+     * Mide el retraso de cada réplica y actualiza cuáles pueden recibir lecturas.
+     */
+    public void verificarReplicas() {
+        for (Replica replica : replicas) {
+            boolean disponible;
+            String detalle;
+            try {
+                Duration retraso = medirRetraso(replica.dataSource);
+                disponible = retraso.compareTo(retrasoMaximo) <= 0;
+                detalle = "retraso de " + retraso.toMillis() + " ms";
+            } catch (SQLException | RuntimeException e) {
+                disponible = false;
+                detalle = "no responde: " + e.getMessage();
+            }
+            if (disponible != replica.disponible) {
+                if (disponible) {
+                    log.info("Réplica {} disponible para lecturas ({})", replica.nombre, detalle);
+                } else {
+                    log.warn("Réplica {} fuera de servicio, sus lecturas van al primario ({})", replica.nombre, detalle);
+                }
+            }
+            replica.disponible = disponible;
+        }
+    }
+
+    /**
+     * Verifica las réplicas ahora y luego cada {@code intervalo}, en un hilo propio.
+     */
+    public synchronized void iniciarVerificacion(Duration intervalo) {
+        verificarReplicas();
+        if (verificador == null) {
+            verificador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+                Thread hilo = new Thread(tarea, "salesmaster-verificador-replicas");
+                hilo.setDaemon(true);
+                return hilo;
+            });
+            verificador.scheduleWithFixedDelay(this::verificarReplicas,
+                    intervalo.toMillis(), intervalo.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    protected Duration medirRetraso(DataSource replica) throws SQLException {
+        try (Connection conexion = replica.getConnection();
+             Statement sentencia = conexion.createStatement()) {
+            sentencia.setQueryTimeout(TIMEOUT_VERIFICACION_SEGUNDOS);
+            try (ResultSet rs = sentencia.executeQuery(CONSULTA_RETRASO)) {
+                rs.next();
+                return Duration.ofMillis(Math.round(rs.getDouble(1) * 1000));
+            }
+        }
+    }
+
+    @Override
+    public synchronized void destroy() throws Exception {
+        if (verificador != null) {
+            verificador.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            cerrar(replica.dataSource);
+        }
+        cerrar(primario);
+    }
+
+    private Replica siguienteDisponible() {
+        int cantidad = replicas.size();
+        int inicio = Math.floorMod(turno.getAndIncrement(), cantidad == 0 ? 1 : cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            Replica replica = replicas.get((inicio + i) % cantidad);
+            if (replica.disponible) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    // Una transacción de escritura (aunque después solo lea) fija las lecturas de la sesión en el primario
+    private void registrarEscrituraAlConfirmar() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                SesionLectura.registrarEscritura(lecturaPropia);
+            }
+        });
+    }
+
+    private static void cerrar(DataSource dataSource) throws Exception {
+        if (dataSource instanceof AutoCloseable cerrable) {
+            cerrable.close();
+        }
+    }
+
+    private static final class Replica {
+        private final String nombre;
+        private final DataSource dataSource;
+        private volatile boolean disponible;
+
+        private Replica(String nombre, DataSource dataSource) {
+            this.nombre = nombre;
+            this.dataSource = dataSource;
+        }
+    }
+}
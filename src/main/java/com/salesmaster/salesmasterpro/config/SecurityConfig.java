@@ -1,9 +1,20 @@
 package com.salesmaster.salesmasterpro.config;
 
+import com.salesmaster.salesmasterpro.service.RegistroIdempotencia;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
@@ -16,6 +27,41 @@ import java.util.List;
 @EnableWebSecurity
 public class SecurityConfig {
 
+    static final String ROL_ACTUATOR = "ACTUATOR";
+
+    // Actuator: health queda público para los chequeos de la plataforma; métricas, prometheus y sqlstats
+    // (que además permite reiniciar los contadores) piden HTTP Basic con el usuario de salesmaster.actuator.*
+    @Bean
+    @Order(1)
+    public SecurityFilterChain actuatorSecurityFilterChain(HttpSecurity http) throws Exception {
+        http
+                .securityMatcher(EndpointRequest.toAnyEndpoint())
+                .csrf(csrf -> csrf.disable())
+                .sessionManagement(sesion -> sesion.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .authorizeHttpRequests(auth -> auth
+                        .requestMatchers(EndpointRequest.to(HealthEndpoint.class)).permitAll()
+                        .anyRequest().hasRole(ROL_ACTUATOR)
+                )
+                .httpBasic(Customizer.withDefaults());
+        return http.build();
+    }
+
+    /**
+     * Único usuario, solo para el actuator. Sin clave configurada no se crea: los endpoints protegidos
+     * responden 401. La clave puede ir codificada ({bcrypt}...) o en texto plano.
+     */
+    @Bean
+    public UserDetailsService usuariosActuator(@Value("${salesmaster.actuator.usuario:actuator}") String usuario,
+                                               @Value("${salesmaster.actuator.clave:}") String clave) {
+        if (clave.isBlank()) {
+            return new InMemoryUserDetailsManager();
+        }
+        return new InMemoryUserDetailsManager(User.withUsername(usuario)
+                .password(clave.startsWith("{") ? clave : "{noop}" + clave)
+                .roles(ROL_ACTUATOR)
+                .build());
+    }
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
@@ -33,6 +79,8 @@ public class SecurityConfig {
         configuration.setAllowedOrigins(List.of("http://localhost:3000", "http://localhost:5173"));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        // Sin esto el navegador no deja leer estos encabezados de la respuesta (If-Match y reintentos idempotentes)
+        configuration.setExposedHeaders(List.of(HttpHeaders.ETAG, RegistroIdempotencia.ENCABEZADO_REPETIDA));
         configuration.setAllowCredentials(true);
         
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -0,0 +1,55 @@
+package com.salesmaster.salesmasterpro.config;
+
+import java.time.Duration;
+import java.util.function.LongConsumer;
+
+/**
+ * Hasta cuándo la sesión actual debe leer del primario para ver sus propias escrituras (read-your-writes).
+ * LecturaPropiaInterceptor la abre y cierra alrededor de cada petición a partir de una cookie; fuera de
+ * una petición (tareas programadas, arranque) la sesión es el hilo.
+ */
+public final class SesionLectura {
+
+    private static final ThreadLocal<Estado> ESTADO = new ThreadLocal<>();
+
+    private SesionLectura() {
+    }
+
+    /**
+     * @param primarioHasta instante (epoch millis) hasta el que se lee del primario; 0 si no hay escrituras recientes
+     * @param alRenovar     recibe el nuevo instante cada vez que una escritura lo extiende
+     */
+    public static void iniciar(long primarioHasta, LongConsumer alRenovar) {
+        ESTADO.set(new Estado(primarioHasta, alRenovar));
+    }
+
+    public static void finalizar() {
+        ESTADO.remove();
+    }
+
+    public static boolean leeDelPrimario() {
+        Estado estado = ESTADO.get();
+        return estado != null && System.currentTimeMillis() < estado.primarioHasta;
+    }
+
+    static void registrarEscritura(Duration ventana) {
+        Estado estado = ESTADO.get();
+        if (estado == null) {
+            estado = new Estado(0, hasta -> {
+            });
+            ESTADO.set(estado);
+        }
+        estado.primarioHasta = Math.max(estado.primarioHasta, System.currentTimeMillis() + ventana.toMillis());
+        estado.alRenovar.accept(estado.primarioHasta);
+    }
+
+    private static final class Estado {
+        private long primarioHasta;
+        private final LongConsumer alRenovar;
+
+        private Estado(long primarioHasta, LongConsumer alRenovar) {
+            this.primarioHasta = primarioHasta;
+            this.alRenovar = alRenovar;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.salesmaster.salesmasterpro.config;
+
+import com.salesmaster.salesmasterpro.dto.EstadisticaSqlDTO;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * /actuator/sqlstats: tiempos acumulados por huella de sentencia (GET, opcionalmente ?limite=N)
+ * y reinicio de los contadores (DELETE).
+ */
+@Component
+@Endpoint(id = "sqlstats")
+public class SqlStatsEndpoint {
+
+    private final TrazadorSql trazadorSql;
+
+    public SqlStatsEndpoint(TrazadorSql trazadorSql) {
+        this.trazadorSql = trazadorSql;
+    }
+
+    @ReadOperation
+    public Map<String, Object> estadisticas(@Nullable Integer limite) {
+        List<EstadisticaSqlDTO> sentencias = trazadorSql.estadisticas();
+        if (limite != null && limite >= 0 && limite < sentencias.size()) {
+            sentencias = sentencias.subList(0, limite);
+        }
+        return Map.of(
+                "sentencias", sentencias,
+                "registrosDescartados", trazadorSql.descartadas());
+    }
+
+    @DeleteOperation
+    public void reiniciar() {
+        trazadorSql.reiniciar();
+    }
+}
@@ -0,0 +1,35 @@
+package com.salesmaster.salesmasterpro.config;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class TrazadoSqlConfig {
+
+    // Envuelve el DataSource para que TrazadorSql vea todas las sentencias. El proxy delega unwrap()
+    // en el pool, así que las métricas de Hikari siguen encontrándolo. Con réplicas (ver ReplicasConfig) se
+    // envuelve solo el DataSource principal y no la ruta que está debajo, para no contar dos veces cada sentencia
+    @Bean
+    public static BeanPostProcessor trazadoSqlPostProcessor(ObjectProvider<TrazadorSql> trazadorSql) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)
+                        && !(bean instanceof AbstractRoutingDataSource)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                            .name(beanName)
+                            .listener(trazadorSql.getObject())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
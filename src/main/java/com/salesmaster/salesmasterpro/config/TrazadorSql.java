@@ -0,0 +1,159 @@
+package com.salesmaster.salesmasterpro.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.salesmaster.salesmasterpro.dto.EstadisticaSqlDTO;
+import com.salesmaster.salesmasterpro.util.HuellaSql;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Recibe cada sentencia que pasa por el DataSource (Hibernate, JdbcTemplate y consultas nativas)
+ * y acumula ejecuciones, errores y tiempos por huella con contadores sin bloqueo.
+ *
+ * Solo se registran en el log las sentencias lentas y una muestra del resto, y se escriben desde
+ * un hilo aparte con una cola acotada: si la cola se llena se descartan, nunca frenan la consulta.
+ * Cuando se alcanza el máximo de huellas, las nuevas se acumulan todas en {@link #OTRAS}.
+ */
+@Component
+public class TrazadorSql implements QueryExecutionListener, DisposableBean {
+
+    public static final String OTRAS = "(otras)";
+
+    private static final Logger log = LoggerFactory.getLogger("salesmaster.sql");
+
+    private final ConcurrentHashMap<String, Estadistica> estadisticas = new ConcurrentHashMap<>();
+    // Hibernate repite los mismos textos: la huella de cada uno se calcula una vez
+    private final Cache<String, String> huellas;
+    private final long umbralLentoMs;
+    private final double muestreo;
+    private final int maximoHuellas;
+    private final ThreadPoolExecutor registro;
+    private final LongAdder descartadas = new LongAdder();
+
+    public TrazadorSql(@Value("${salesmaster.sql.umbral-lento:200ms}") Duration umbralLento,
+                       @Value("${salesmaster.sql.muestreo:0.001}") double muestreo,
+                       @Value("${salesmaster.sql.maximo-huellas:1000}") int maximoHuellas) {
+        this.umbralLentoMs = umbralLento.toMillis();
+        this.muestreo = muestreo;
+        this.maximoHuellas = maximoHuellas;
+        this.huellas = Caffeine.newBuilder().maximumSize(maximoHuellas * 4L).build();
+        this.registro = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(10_000), r -> {
+            Thread hilo = new Thread(r, "trazado-sql");
+            hilo.setDaemon(true);
+            return hilo;
+        }, (tarea, ejecutor) -> descartadas.increment());
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (queryInfoList.isEmpty()) {
+            return;
+        }
+        // Un lote de Statement con varias sentencias reparte el tiempo entre ellas
+        long tiempoMs = execInfo.getElapsedTime() / queryInfoList.size();
+        boolean exito = execInfo.isSuccess();
+        int tamanoLote = execInfo.isBatch() ? execInfo.getBatchSize() : 1;
+
+        for (QueryInfo query : queryInfoList) {
+            String huella = huellas.get(query.getQuery(), HuellaSql::normalizar);
+            estadisticaDe(huella).registrar(tiempoMs, exito);
+
+            boolean lenta = tiempoMs >= umbralLentoMs;
+            if (lenta || !exito || ThreadLocalRandom.current().nextDouble() < muestreo) {
+                registro.execute(() -> registrar(huella, tiempoMs, exito, lenta, tamanoLote));
+            }
+        }
+    }
+
+    /**
+     * Estadísticas ordenadas por tiempo total, de mayor a menor.
+     */
+    public List<EstadisticaSqlDTO> estadisticas() {
+        return estadisticas.entrySet().stream()
+                .map(e -> e.getValue().aDTO(e.getKey()))
+                .sorted(Comparator.comparingLong(EstadisticaSqlDTO::getTiempoTotalMs).reversed())
+                .toList();
+    }
+
+    public long descartadas() {
+        return descartadas.sum();
+    }
+
+    public void reiniciar() {
+        estadisticas.clear();
+        descartadas.reset();
+    }
+
+    @Override
+    public void destroy() {
+        registro.shutdown();
+    }
+
+    private Estadistica estadisticaDe(String huella) {
+        Estadistica estadistica = estadisticas.get(huella);
+        if (estadistica != null) {
+            return estadistica;
+        }
+        String clave = estadisticas.size() < maximoHuellas ? huella : OTRAS;
+        return estadisticas.computeIfAbsent(clave, k -> new Estadistica());
+    }
+
+    private static void registrar(String huella, long tiempoMs, boolean exito, boolean lenta, int tamanoLote) {
+        if (lenta || !exito) {
+            log.warn("sql {} tiempoMs={} lote={} huella=\"{}\"", exito ? "lenta" : "error", tiempoMs, tamanoLote, huella);
+        } else {
+            log.info("sql muestra tiempoMs={} lote={} huella=\"{}\"", tiempoMs, tamanoLote, huella);
+        }
+    }
+
+    private static class Estadistica {
+        private final LongAdder ejecuciones = new LongAdder();
+        private final LongAdder errores = new LongAdder();
+        private final LongAdder tiempoTotalMs = new LongAdder();
+        private final LongAccumulator tiempoMaximoMs = new LongAccumulator(Math::max, 0);
+
+        void registrar(long tiempoMs, boolean exito) {
+            ejecuciones.increment();
+            tiempoTotalMs.add(tiempoMs);
+            tiempoMaximoMs.accumulate(tiempoMs);
+            if (!exito) {
+                errores.increment();
+            }
+        }
+
+        EstadisticaSqlDTO aDTO(String huella) {
+            long cantidad = ejecuciones.sum();
+            long total = tiempoTotalMs.sum();
+            return EstadisticaSqlDTO.builder()
+                    .huella(huella)
+                    .ejecuciones(cantidad)
+                    .errores(errores.sum())
+                    .tiempoTotalMs(total)
+                    .tiempoPromedioMs(cantidad > 0 ? (double) total / cantidad : 0)
+                    .tiempoMaximoMs(tiempoMaximoMs.get())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.salesmaster.salesmasterpro.controller;
+
+import com.salesmaster.salesmasterpro.dto.ReconstruccionVentasDTO;
+import com.salesmaster.salesmasterpro.dto.VentaClienteDTO;
+import com.salesmaster.salesmasterpro.dto.VentaDiariaDTO;
+import com.salesmaster.salesmasterpro.dto.VentaProductoDTO;
+import com.salesmaster.salesmasterpro.service.AnaliticaService;
+import com.salesmaster.salesmasterpro.service.ResumenVentasService;
+import com.salesmaster.salesmasterpro.util.Paginacion;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/analytics")
+@RequiredArgsConstructor
+@Tag(name = "Analítica", description = "API de ventas acumuladas por día, cliente y producto")
+public class AnaliticaController {
+
+    private final AnaliticaService analiticaService;
+    private final ResumenVentasService resumenVentasService;
+
+    @GetMapping("/ventas-diarias")
+    @Operation(summary = "Ventas por día", description = "Pedidos, unidades y total de cada día con ventas entre desde y hasta " +
+            "(inclusive, formato yyyy-MM-dd). Por defecto, los últimos 30 días. Máximo " + AnaliticaService.DIAS_MAXIMOS + " días")
+    public ResponseEntity<List<VentaDiariaDTO>> ventasDiarias(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        LocalDate fin = hasta != null ? hasta : LocalDate.now();
+        LocalDate inicio = desde != null ? desde : fin.minusDays(29);
+        return ResponseEntity.ok(analiticaService.ventasDiarias(inicio, fin));
+    }
+
+    @GetMapping("/clientes")
+    @Operation(summary = "Clientes con más ventas", description = "Clientes ordenados por total vendido. Máximo " + Paginacion.LIMITE_MAXIMO)
+    public ResponseEntity<List<VentaClienteDTO>> mayoresClientes(@RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(analiticaService.mayoresClientes(Paginacion.normalizarLimite(limit)));
+    }
+
+    @GetMapping("/clientes/{id}")
+    @Operation(summary = "Ventas de un cliente", description = "Pedidos, unidades y total acumulados de un cliente")
+    public ResponseEntity<VentaClienteDTO> ventasCliente(@PathVariable Long id) {
+        return ResponseEntity.ok(analiticaService.ventasCliente(id));
+    }
+
+    @GetMapping("/productos")
+    @Operation(summary = "Productos más vendidos", description = "Productos ordenados por total vendido. Máximo " + Paginacion.LIMITE_MAXIMO)
+    public ResponseEntity<List<VentaProductoDTO>> mayoresProductos(@RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(analiticaService.mayoresProductos(Paginacion.normalizarLimite(limit)));
+    }
+
+    @GetMapping("/productos/{id}")
+    @Operation(summary = "Ventas de un producto", description = "Pedidos, unidades y total acumulados de un producto")
+    public ResponseEntity<VentaProductoDTO> ventasProducto(@PathVariable Long id) {
+        return ResponseEntity.ok(analiticaService.ventasProducto(id));
+    }
+
+    @PostMapping("/rebuild")
+    @Operation(summary = "Recalcular resumen de ventas", description = "Vuelve a calcular las tablas de resumen desde los pedidos. " +
+            "Mientras dura, las altas de pedidos esperan")
+    public ResponseEntity<ReconstruccionVentasDTO> reconstruir() {
+        return ResponseEntity.ok(resumenVentasService.reconstruir());
+    }
+}
@@ -1,15 +1,26 @@
 package com.salesmaster.salesmasterpro.controller;
 
 import com.salesmaster.salesmasterpro.dto.ClienteDTO;
+import com.salesmaster.salesmasterpro.dto.PaginaDTO;
+import com.salesmaster.salesmasterpro.dto.ResultadoImportacionDTO;
 import com.salesmaster.salesmasterpro.service.ClienteService;
+import com.salesmaster.salesmasterpro.service.ImportacionService;
+import com.salesmaster.salesmasterpro.service.ReintentoConflictos;
+import com.salesmaster.salesmasterpro.util.Paginacion;
+import com.salesmaster.salesmasterpro.util.VersionEtag;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -19,19 +30,34 @@ import java.util.List;
 public class ClienteController {
 
     private final ClienteService clienteService;
+    private final ImportacionService importacionService;
+    private final ReintentoConflictos reintentoConflictos;
 
     @GetMapping
-    @Operation(summary = "Listar todos los clientes", description = "Obtiene una lista de todos los clientes registrados")
-    public ResponseEntity<List<ClienteDTO>> listarClientes() {
-        List<ClienteDTO> clientes = clienteService.listarClientes();
+    @Operation(summary = "Listar clientes", description = "Obtiene una página de clientes ordenados por ID. " +
+            "Para continuar, enviar el siguienteCursor recibido (o after con el último ID). Máximo " + Paginacion.LIMITE_MAXIMO + " por página")
+    public ResponseEntity<PaginaDTO<ClienteDTO>> listarClientes(@RequestParam(required = false) Long after,
+                                                                @RequestParam(required = false) String cursor,
+                                                                @RequestParam(required = false) Integer limit) {
+        PaginaDTO<ClienteDTO> clientes = clienteService.listarClientes(
+                Paginacion.resolverDespuesDe(after, cursor), Paginacion.normalizarLimite(limit));
         return ResponseEntity.ok(clientes);
     }
 
+    @GetMapping("/search")
+    @Operation(summary = "Buscar clientes", description = "Busca por nombre o email sin distinguir mayúsculas ni acentos " +
+            "y devuelve las mejores coincidencias (sin número de visualización). Máximo " + Paginacion.LIMITE_MAXIMO + " resultados")
+    public ResponseEntity<List<ClienteDTO>> buscarClientes(@RequestParam String q,
+                                                           @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(clienteService.buscarClientes(q, Paginacion.normalizarLimite(limit)));
+    }
+
     @GetMapping("/{id}")
-    @Operation(summary = "Obtener cliente por ID", description = "Obtiene los detalles de un cliente específico")
+    @Operation(summary = "Obtener cliente por ID", description = "Obtiene los detalles de un cliente específico. " +
+            "El ETag es su versión: enviarlo en If-Match al actualizar evita pisar un cambio ajeno")
     public ResponseEntity<ClienteDTO> obtenerCliente(@PathVariable Long id) {
         ClienteDTO cliente = clienteService.obtenerClientePorId(id);
-        return ResponseEntity.ok(cliente);
+        return ResponseEntity.ok().eTag(VersionEtag.etag(cliente.getVersion())).body(cliente);
     }
 
     @PostMapping
@@ -41,11 +67,28 @@ public class ClienteController {
         return ResponseEntity.status(HttpStatus.CREATED).body(clienteCreado);
     }
 
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Importar clientes desde CSV", description = "Crea los clientes de un archivo CSV (UTF-8) con encabezado " +
+            "nombre,email. Cada fila se valida como en el alta individual; las rechazadas se informan con su número de fila " +
+            "(hasta " + ImportacionService.MAXIMO_ERRORES_INFORMADOS + ") sin impedir que se guarden las demás")
+    public ResponseEntity<ResultadoImportacionDTO> importarClientes(@RequestParam("archivo") MultipartFile archivo) throws IOException {
+        try (InputStream entrada = archivo.getInputStream()) {
+            return ResponseEntity.ok(importacionService.importarClientes(entrada));
+        }
+    }
+
     @PutMapping("/{id}")
-    @Operation(summary = "Actualizar cliente", description = "Actualiza los datos de un cliente existente")
-    public ResponseEntity<ClienteDTO> actualizarCliente(@PathVariable Long id, @Valid @RequestBody ClienteDTO clienteDTO) {
-        ClienteDTO clienteActualizado = clienteService.actualizarCliente(id, clienteDTO);
-        return ResponseEntity.ok(clienteActualizado);
+    @Operation(summary = "Actualizar cliente", description = "Actualiza los datos de un cliente existente. " +
+            "Requiere If-Match con el ETag recibido o el campo version del cuerpo: responde 412 si el cliente cambió " +
+            "desde que se leyó y 428 si no se envió ninguno. Con If-Match: * se actualiza sobre cualquier versión")
+    public ResponseEntity<ClienteDTO> actualizarCliente(@PathVariable Long id, @Valid @RequestBody ClienteDTO clienteDTO,
+                                                        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        // Un conflicto con la versión enviada se informa al cliente (412), que decide con los datos nuevos.
+        // Solo If-Match: * pide explícitamente que gane la última escritura: ahí se reintenta
+        ClienteDTO clienteActualizado = VersionEtag.cualquierVersion(ifMatch)
+                ? reintentoConflictos.ejecutar(() -> clienteService.actualizarCliente(id, clienteDTO, null))
+                : clienteService.actualizarCliente(id, clienteDTO, VersionEtag.versionEsperada(ifMatch, clienteDTO.getVersion()));
+        return ResponseEntity.ok().eTag(VersionEtag.etag(clienteActualizado.getVersion())).body(clienteActualizado);
     }
 
     @DeleteMapping("/{id}")
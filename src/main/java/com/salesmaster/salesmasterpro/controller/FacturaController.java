@@ -1,15 +1,32 @@
 package com.salesmaster.salesmasterpro.controller;
 
 import com.salesmaster.salesmasterpro.dto.FacturaDTO;
+import com.salesmaster.salesmasterpro.dto.FacturacionMasivaDTO;
+import com.salesmaster.salesmasterpro.dto.PaginaDTO;
+import com.salesmaster.salesmasterpro.service.FacturaExportacionService;
 import com.salesmaster.salesmasterpro.service.FacturaService;
+import com.salesmaster.salesmasterpro.service.FacturasSerializadas;
+import com.salesmaster.salesmasterpro.service.FacturacionMasivaService;
+import com.salesmaster.salesmasterpro.service.RegistroIdempotencia;
+import com.salesmaster.salesmasterpro.util.Paginacion;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
 
 @RestController
 @RequestMapping("/api/facturas")
@@ -18,26 +35,79 @@ import java.util.List;
 public class FacturaController {
 
     private final FacturaService facturaService;
+    private final FacturacionMasivaService facturacionMasivaService;
+    private final FacturaExportacionService facturaExportacionService;
+    private final FacturasSerializadas facturasSerializadas;
+    private final RegistroIdempotencia registroIdempotencia;
+
+    @PostMapping("/bulk")
+    @Operation(summary = "Facturar pedidos de un rango de fechas", description = "Genera la factura de cada pedido sin facturar " +
+            "cuya fecha esté entre desde y hasta (inclusive, formato yyyy-MM-dd). Se procesa en lotes confirmados por separado: " +
+            "si se interrumpe, repetir la petición continúa con los pedidos pendientes. Responde 400 sin facturar nada si los " +
+            "pedidos pendientes superan los números de factura que quedan para el día; si un lote falla después de confirmar " +
+            "otros, responde con lo facturado, completa = false y el motivo")
+    public ResponseEntity<FacturacionMasivaDTO> facturarPedidos(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                                                                @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        FacturacionMasivaDTO resumen = facturacionMasivaService.facturarPedidos(desde, hasta);
+        return ResponseEntity.ok(resumen);
+    }
+
+    @GetMapping("/export.csv")
+    @Operation(summary = "Exportar facturas", description = "Descarga en streaming, como CSV, las facturas cuya fecha esté entre " +
+            "desde y hasta (inclusive, formato yyyy-MM-dd), con una fila por item facturado")
+    public ResponseEntity<StreamingResponseBody> exportarFacturas(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        FacturaExportacionService.validarRango(desde, hasta);
+
+        // La transacción y el cursor se abren dentro del cuerpo, en el hilo que escribe la respuesta
+        StreamingResponseBody cuerpo = out -> facturaExportacionService.exportarCsv(desde, hasta, out);
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=facturas-" + desde + "-" + hasta + ".csv")
+                .body(cuerpo);
+    }
 
     @PostMapping("/{idPedido}")
-    @Operation(summary = "Generar factura", description = "Genera una factura basada en un pedido existente")
-    public ResponseEntity<FacturaDTO> generarFactura(@PathVariable Long idPedido) {
-        FacturaDTO facturaCreada = facturaService.generarFactura(idPedido);
-        return ResponseEntity.status(HttpStatus.CREATED).body(facturaCreada);
+    @Operation(summary = "Generar factura", description = "Genera una factura basada en un pedido existente. " +
+            "Con el encabezado " + RegistroIdempotencia.ENCABEZADO + ", repetir la petición con la misma clave devuelve " +
+            "la factura ya generada en lugar de un error")
+    public ResponseEntity<FacturaDTO> generarFactura(@PathVariable Long idPedido,
+                                                     @RequestHeader(name = RegistroIdempotencia.ENCABEZADO, required = false) String claveIdempotencia) {
+        long generacion = facturasSerializadas.generacion();
+        RegistroIdempotencia.Resultado<FacturaDTO> facturaCreada = registroIdempotencia.ejecutar("facturas", claveIdempotencia,
+                idPedido, FacturaDTO.class, () -> facturaService.generarFactura(idPedido));
+        if (!facturaCreada.repetido()) {
+            facturasSerializadas.guardar(facturaCreada.valor(), generacion);
+        }
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header(RegistroIdempotencia.ENCABEZADO_REPETIDA, String.valueOf(facturaCreada.repetido()))
+                .body(facturaCreada.valor());
     }
 
     @GetMapping
-    @Operation(summary = "Listar todas las facturas", description = "Obtiene una lista de todas las facturas registradas")
-    public ResponseEntity<List<FacturaDTO>> listarFacturas() {
-        List<FacturaDTO> facturas = facturaService.listarFacturas();
+    @Operation(summary = "Listar facturas", description = "Obtiene una página de facturas ordenadas por ID. " +
+            "Para continuar, enviar el siguienteCursor recibido (o after con el último ID). Máximo " + Paginacion.LIMITE_MAXIMO + " por página")
+    public ResponseEntity<PaginaDTO<FacturaDTO>> listarFacturas(@RequestParam(required = false) Long after,
+                                                                @RequestParam(required = false) String cursor,
+                                                                @RequestParam(required = false) Integer limit) {
+        PaginaDTO<FacturaDTO> facturas = facturaService.listarFacturas(
+                Paginacion.resolverDespuesDe(after, cursor), Paginacion.normalizarLimite(limit));
         return ResponseEntity.ok(facturas);
     }
 
     @GetMapping("/{id}")
-    @Operation(summary = "Obtener factura por ID", description = "Obtiene los detalles de una factura específica")
-    public ResponseEntity<FacturaDTO> obtenerFactura(@PathVariable Long id) {
-        FacturaDTO factura = facturaService.obtenerFacturaPorId(id);
-        return ResponseEntity.ok(factura);
+    @Operation(summary = "Obtener factura por ID", description = "Obtiene los detalles de una factura específica. " +
+            "Incluye ETag: con If-None-Match responde 304 si la factura no cambió",
+            responses = @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = FacturaDTO.class))))
+    public ResponseEntity<byte[]> obtenerFactura(@PathVariable Long id) {
+        // El JSON sale de caché tal cual; con If-None-Match igual al ETag la respuesta es 304 sin cuerpo.
+        // Puede cambiar si se renombra el cliente o un producto: max-age corto y después se revalida con el ETag
+        FacturasSerializadas.FacturaSerializada factura = facturasSerializadas.obtener(id);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(factura.etag())
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(1)).cachePrivate())
+                .body(factura.json());
     }
 }
 
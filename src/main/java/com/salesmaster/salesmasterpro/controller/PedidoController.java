@@ -1,15 +1,25 @@
 package com.salesmaster.salesmasterpro.controller;
 
+import com.salesmaster.salesmasterpro.dto.PaginaDTO;
 import com.salesmaster.salesmasterpro.dto.PedidoDTO;
+import com.salesmaster.salesmasterpro.dto.ResultadoLoteDTO;
+import com.salesmaster.salesmasterpro.service.PedidoExportacionService;
+import com.salesmaster.salesmasterpro.service.PedidoLoteService;
 import com.salesmaster.salesmasterpro.service.PedidoService;
+import com.salesmaster.salesmasterpro.service.RegistroIdempotencia;
+import com.salesmaster.salesmasterpro.util.Paginacion;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
@@ -19,21 +29,62 @@ import java.util.List;
 public class PedidoController {
 
     private final PedidoService pedidoService;
+    private final PedidoExportacionService pedidoExportacionService;
+    private final PedidoLoteService pedidoLoteService;
+    private final RegistroIdempotencia registroIdempotencia;
 
     @PostMapping
-    @Operation(summary = "Crear nuevo pedido", description = "Crea un nuevo pedido con una lista de productos")
-    public ResponseEntity<PedidoDTO> crearPedido(@Valid @RequestBody PedidoDTO pedidoDTO) {
-        PedidoDTO pedidoCreado = pedidoService.crearPedido(pedidoDTO);
-        return ResponseEntity.status(HttpStatus.CREATED).body(pedidoCreado);
+    @Operation(summary = "Crear nuevo pedido", description = "Crea un nuevo pedido con una lista de productos. " +
+            "Con el encabezado " + RegistroIdempotencia.ENCABEZADO + ", repetir la petición con la misma clave devuelve " +
+            "el pedido ya creado en lugar de crear otro")
+    public ResponseEntity<PedidoDTO> crearPedido(@Valid @RequestBody PedidoDTO pedidoDTO,
+                                                 @RequestHeader(name = RegistroIdempotencia.ENCABEZADO, required = false) String claveIdempotencia) {
+        RegistroIdempotencia.Resultado<PedidoDTO> pedidoCreado = registroIdempotencia.ejecutar("pedidos", claveIdempotencia,
+                pedidoDTO, PedidoDTO.class, () -> pedidoService.crearPedido(pedidoDTO));
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header(RegistroIdempotencia.ENCABEZADO_REPETIDA, String.valueOf(pedidoCreado.repetido()))
+                .body(pedidoCreado.valor());
+    }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Crear pedidos en lote", description = "Crea hasta " + PedidoLoteService.MAXIMO_PEDIDOS_POR_LOTE +
+            " pedidos en una sola petición. Cada pedido se valida por separado y el resultado indica el ID creado o el error de cada uno")
+    public ResponseEntity<ResultadoLoteDTO> crearPedidosEnLote(@RequestBody List<PedidoDTO> pedidos) {
+        ResultadoLoteDTO resultado = pedidoLoteService.crearPedidos(pedidos);
+        return ResponseEntity.ok(resultado);
     }
 
     @GetMapping
-    @Operation(summary = "Listar todos los pedidos", description = "Obtiene una lista de todos los pedidos registrados")
-    public ResponseEntity<List<PedidoDTO>> listarPedidos() {
-        List<PedidoDTO> pedidos = pedidoService.listarPedidos();
+    @Operation(summary = "Listar pedidos", description = "Obtiene una página de pedidos ordenados por ID. " +
+            "Para continuar, enviar el siguienteCursor recibido (o after con el último ID). Máximo " + Paginacion.LIMITE_MAXIMO + " por página")
+    public ResponseEntity<PaginaDTO<PedidoDTO>> listarPedidos(@RequestParam(required = false) Long after,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(required = false) Integer limit) {
+        PaginaDTO<PedidoDTO> pedidos = pedidoService.listarPedidos(
+                Paginacion.resolverDespuesDe(after, cursor), Paginacion.normalizarLimite(limit));
         return ResponseEntity.ok(pedidos);
     }
 
+    @GetMapping("/export")
+    @Operation(summary = "Exportar pedidos", description = "Descarga todos los pedidos con sus items en streaming. " +
+            "formato=ndjson (por defecto, un pedido por línea) o formato=csv (una fila por item)")
+    public ResponseEntity<StreamingResponseBody> exportarPedidos(@RequestParam(defaultValue = "ndjson") String formato) {
+        PedidoExportacionService.Formato formatoExportacion = switch (formato.toLowerCase()) {
+            case "ndjson" -> PedidoExportacionService.Formato.NDJSON;
+            case "csv" -> PedidoExportacionService.Formato.CSV;
+            default -> throw new IllegalArgumentException("Formato de exportación no soportado: " + formato);
+        };
+        boolean csv = formatoExportacion == PedidoExportacionService.Formato.CSV;
+        MediaType tipo = csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON;
+
+        // La transacción y el cursor se abren dentro del cuerpo, en el hilo que escribe la respuesta
+        StreamingResponseBody cuerpo = out -> pedidoExportacionService.exportar(out, formatoExportacion);
+        return ResponseEntity.ok()
+                .contentType(tipo)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=pedidos." + (csv ? "csv" : "ndjson"))
+                .body(cuerpo);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Obtener pedido por ID", description = "Obtiene los detalles de un pedido específico")
     public ResponseEntity<PedidoDTO> obtenerPedido(@PathVariable Long id) {
@@ -1,15 +1,30 @@
 package com.salesmaster.salesmasterpro.controller;
 
+import com.salesmaster.salesmasterpro.dto.PaginaDTO;
 import com.salesmaster.salesmasterpro.dto.ProductoDTO;
+import com.salesmaster.salesmasterpro.dto.ProductoVendidoDTO;
+import com.salesmaster.salesmasterpro.dto.ResultadoImportacionDTO;
+import com.salesmaster.salesmasterpro.service.BusquedaProductosService;
+import com.salesmaster.salesmasterpro.service.ImportacionService;
 import com.salesmaster.salesmasterpro.service.ProductoService;
+import com.salesmaster.salesmasterpro.service.RankingProductosService;
+import com.salesmaster.salesmasterpro.service.ReintentoConflictos;
+import com.salesmaster.salesmasterpro.util.Paginacion;
+import com.salesmaster.salesmasterpro.util.VersionEtag;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.util.List;
 
 @RestController
@@ -19,19 +34,47 @@ import java.util.List;
 public class ProductoController {
 
     private final ProductoService productoService;
+    private final RankingProductosService rankingProductosService;
+    private final BusquedaProductosService busquedaProductosService;
+    private final ImportacionService importacionService;
+    private final ReintentoConflictos reintentoConflictos;
 
     @GetMapping
-    @Operation(summary = "Listar todos los productos", description = "Obtiene una lista de todos los productos registrados")
-    public ResponseEntity<List<ProductoDTO>> listarProductos() {
-        List<ProductoDTO> productos = productoService.listarProductos();
+    @Operation(summary = "Listar productos", description = "Obtiene una página de productos ordenados por ID. " +
+            "Para continuar, enviar el siguienteCursor recibido (o after con el último ID). Máximo " + Paginacion.LIMITE_MAXIMO + " por página")
+    public ResponseEntity<PaginaDTO<ProductoDTO>> listarProductos(@RequestParam(required = false) Long after,
+                                                                  @RequestParam(required = false) String cursor,
+                                                                  @RequestParam(required = false) Integer limit) {
+        PaginaDTO<ProductoDTO> productos = productoService.listarProductos(
+                Paginacion.resolverDespuesDe(after, cursor), Paginacion.normalizarLimite(limit));
         return ResponseEntity.ok(productos);
     }
 
+    @GetMapping("/top")
+    @Operation(summary = "Productos más vendidos", description = "Ranking aproximado por unidades vendidas en la ventana indicada: " +
+            "minutos (15m), horas (1h, máximo 24h) o 1d. Se calcula en memoria, sin consultar la base de datos. Máximo " + Paginacion.LIMITE_MAXIMO)
+    public ResponseEntity<List<ProductoVendidoDTO>> masVendidos(@RequestParam(defaultValue = "1h") String window,
+                                                                @RequestParam(required = false) Integer n) {
+        return ResponseEntity.ok(rankingProductosService.masVendidos(window, Paginacion.normalizarLimite(n)));
+    }
+
+    @GetMapping("/search")
+    @Operation(summary = "Buscar productos", description = "Busca por palabras del nombre (prefijos, sin distinguir mayúsculas " +
+            "ni acentos) y rango de precio. Sin q, devuelve los del rango ordenados por precio. Se resuelve en memoria, " +
+            "sin número de visualización. Máximo " + Paginacion.LIMITE_MAXIMO + " resultados")
+    public ResponseEntity<List<ProductoDTO>> buscarProductos(@RequestParam(required = false) String q,
+                                                             @RequestParam(required = false) BigDecimal minPrecio,
+                                                             @RequestParam(required = false) BigDecimal maxPrecio,
+                                                             @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(busquedaProductosService.buscar(q, minPrecio, maxPrecio, Paginacion.normalizarLimite(limit)));
+    }
+
     @GetMapping("/{id}")
-    @Operation(summary = "Obtener producto por ID", description = "Obtiene los detalles de un producto específico")
+    @Operation(summary = "Obtener producto por ID", description = "Obtiene los detalles de un producto específico. " +
+            "El ETag es su versión: enviarlo en If-Match al actualizar evita pisar un cambio ajeno")
     public ResponseEntity<ProductoDTO> obtenerProducto(@PathVariable Long id) {
         ProductoDTO producto = productoService.obtenerProductoPorId(id);
-        return ResponseEntity.ok(producto);
+        return ResponseEntity.ok().eTag(VersionEtag.etag(producto.getVersion())).body(producto);
     }
 
     @PostMapping
@@ -41,11 +84,28 @@ public class ProductoController {
         return ResponseEntity.status(HttpStatus.CREATED).body(productoCreado);
     }
 
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @Operation(summary = "Importar productos desde CSV", description = "Crea los productos de un archivo CSV (UTF-8) con encabezado " +
+            "nombre,precio (punto decimal). Cada fila se valida como en el alta individual; las rechazadas se informan con su " +
+            "número de fila (hasta " + ImportacionService.MAXIMO_ERRORES_INFORMADOS + ") sin impedir que se guarden las demás")
+    public ResponseEntity<ResultadoImportacionDTO> importarProductos(@RequestParam("archivo") MultipartFile archivo) throws IOException {
+        try (InputStream entrada = archivo.getInputStream()) {
+            return ResponseEntity.ok(importacionService.importarProductos(entrada));
+        }
+    }
+
     @PutMapping("/{id}")
-    @Operation(summary = "Actualizar producto", description = "Actualiza los datos de un producto existente")
-    public ResponseEntity<ProductoDTO> actualizarProducto(@PathVariable Long id, @Valid @RequestBody ProductoDTO productoDTO) {
-        ProductoDTO productoActualizado = productoService.actualizarProducto(id, productoDTO);
-        return ResponseEntity.ok(productoActualizado);
+    @Operation(summary = "Actualizar producto", description = "Actualiza los datos de un producto existente. " +
+            "Requiere If-Match con el ETag recibido o el campo version del cuerpo: responde 412 si el producto cambió " +
+            "desde que se leyó y 428 si no se envió ninguno. Con If-Match: * se actualiza sobre cualquier versión")
+    public ResponseEntity<ProductoDTO> actualizarProducto(@PathVariable Long id, @Valid @RequestBody ProductoDTO productoDTO,
+                                                          @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        // Un conflicto con la versión enviada se informa al cliente (412), que decide con los datos nuevos.
+        // Solo If-Match: * pide explícitamente que gane la última escritura: ahí se reintenta
+        ProductoDTO productoActualizado = VersionEtag.cualquierVersion(ifMatch)
+                ? reintentoConflictos.ejecutar(() -> productoService.actualizarProducto(id, productoDTO, null))
+                : productoService.actualizarProducto(id, productoDTO, VersionEtag.versionEsperada(ifMatch, productoDTO.getVersion()));
+        return ResponseEntity.ok().eTag(VersionEtag.etag(productoActualizado.getVersion())).body(productoActualizado);
     }
 
     @DeleteMapping("/{id}")
@@ -17,6 +17,8 @@ public class ClienteDTO {
 
     private Long idCliente;
 
+    private Long numero;
+
     @NotBlank(message = "El nombre es obligatorio")
     @ValidNombre(message = "El nombre solo puede contener letras, espacios, acentos y guiones. Mínimo 2 caracteres.")
     @Size(max = 80, message = "El nombre no puede exceder 80 caracteres")
@@ -26,5 +28,8 @@ public class ClienteDTO {
     @ValidEmail(message = "El email debe tener un formato válido")
     @Size(max = 100, message = "El email no puede exceder 100 caracteres")
     private String email;
+
+    // Versión para bloqueo optimista; solo informativa, se envía como ETag/If-Match
+    private Long version;
 }
 
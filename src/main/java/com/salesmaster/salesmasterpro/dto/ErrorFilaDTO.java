@@ -0,0 +1,20 @@
+package com.salesmaster.salesmasterpro.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ErrorFilaDTO {
+
+    @Schema(description = "Número de fila en el archivo (la fila 1 es el encabezado)", example = "42")
+    private long fila;
+
+    @Schema(description = "Motivo del rechazo", example = "email: El email debe tener un formato válido")
+    private String error;
+}
@@ -0,0 +1,33 @@
+package com.salesmaster.salesmasterpro.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Tiempos acumulados de una sentencia SQL agrupada por huella")
+public class EstadisticaSqlDTO {
+
+    @Schema(description = "Sentencia sin literales", example = "select p1_0.id_prod from salesmaster.producto p1_0 where p1_0.id_prod in (?+)")
+    private String huella;
+
+    @Schema(description = "Cantidad de ejecuciones", example = "1520")
+    private long ejecuciones;
+
+    @Schema(description = "Ejecuciones que terminaron con error", example = "0")
+    private long errores;
+
+    @Schema(description = "Tiempo total en milisegundos", example = "3040")
+    private long tiempoTotalMs;
+
+    @Schema(description = "Tiempo promedio por ejecución en milisegundos", example = "2.0")
+    private double tiempoPromedioMs;
+
+    @Schema(description = "Tiempo de la ejecución más lenta en milisegundos", example = "48")
+    private long tiempoMaximoMs;
+}
@@ -0,0 +1,45 @@
+package com.salesmaster.salesmasterpro.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Resumen de la facturación masiva de pedidos de un rango de fechas")
+public class FacturacionMasivaDTO {
+
+    @Schema(description = "Primer día del rango (inclusive)", example = "2025-11-01")
+    private LocalDate desde;
+
+    @Schema(description = "Último día del rango (inclusive)", example = "2025-11-30")
+    private LocalDate hasta;
+
+    @Schema(description = "Pedidos del rango que no tenían factura al empezar", example = "3250")
+    private long pendientes;
+
+    @Schema(description = "Cantidad de facturas creadas en esta ejecución", example = "3250")
+    private long facturadas;
+
+    @Schema(description = "Cantidad de lotes confirmados", example = "7")
+    private int lotes;
+
+    @Schema(description = "Número de la primera factura creada", example = "FAC-251130-0001")
+    private String primeraFactura;
+
+    @Schema(description = "Número de la última factura creada", example = "FAC-251130-3250")
+    private String ultimaFactura;
+
+    @Schema(description = "false si un lote falló: las facturas informadas quedaron confirmadas y repetir la " +
+            "petición continúa con los pedidos pendientes", example = "true")
+    private boolean completa;
+
+    @Schema(description = "Motivo por el que se detuvo, si no se completó")
+    private String error;
+}
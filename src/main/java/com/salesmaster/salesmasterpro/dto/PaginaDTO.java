@@ -0,0 +1,29 @@
+package com.salesmaster.salesmasterpro.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Página de resultados paginada por cursor")
+public class PaginaDTO<T> {
+
+    @Schema(description = "Elementos de la página, ordenados por ID")
+    private List<T> items;
+
+    @Schema(description = "Cursor opaco para pedir la página siguiente (parámetro cursor); nulo en la última página")
+    private String siguienteCursor;
+
+    @Schema(description = "Indica si existen más elementos después de esta página")
+    private boolean hayMas;
+
+    @Schema(description = "Tamaño de página aplicado", example = "20")
+    private int limite;
+}
@@ -0,0 +1,27 @@
+package com.salesmaster.salesmasterpro.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Fila plana pedido + item, usada para recorrer pedidos en streaming sin crear entidades.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PedidoLineaDTO {
+
+    private Long idPedido;
+    private LocalDateTime fecha;
+    private BigDecimal total;
+    private Long idCliente;
+    private String nombreCliente;
+    private Long idProd;
+    private String nombreProducto;
+    private Integer cantidad;
+    private BigDecimal subtotal;
+}
@@ -21,6 +21,8 @@ public class ProductoDTO {
 
     private Long idProd;
 
+    private Long numero;
+
     @NotBlank(message = "El nombre es obligatorio")
     @ValidNombre(message = "El nombre solo puede contener letras, espacios, acentos y guiones. Mínimo 2 caracteres.")
     @Size(max = 80, message = "El nombre no puede exceder 80 caracteres")
@@ -30,5 +32,8 @@ public class ProductoDTO {
     @DecimalMin(value = "0.01", message = "El precio debe ser mayor a 0")
     @DecimalMax(value = "100000.00", message = "El precio no puede superar los $100,000")
     private BigDecimal precio;
+
+    // Versión para bloqueo optimista; solo informativa, se envía como ETag/If-Match
+    private Long version;
 }
 
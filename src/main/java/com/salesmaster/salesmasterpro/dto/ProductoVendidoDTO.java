@@ -0,0 +1,24 @@
+package com.salesmaster.salesmasterpro.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Producto del ranking de más vendidos, con unidades estimadas")
+public class ProductoVendidoDTO {
+
+    @Schema(description = "ID del producto", example = "1")
+    private Long idProd;
+
+    @Schema(description = "Unidades vendidas estimadas en la ventana", example = "120")
+    private long unidades;
+
+    @Schema(description = "Diferencia máxima entre la estimación y las unidades reales", example = "3")
+    private long errorMaximo;
+}
@@ -0,0 +1,24 @@
+package com.salesmaster.salesmasterpro.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Filas generadas al recalcular las tablas de resumen de ventas")
+public class ReconstruccionVentasDTO {
+
+    @Schema(description = "Días con ventas", example = "365")
+    private int dias;
+
+    @Schema(description = "Clientes con ventas", example = "1200")
+    private int clientes;
+
+    @Schema(description = "Productos con ventas", example = "340")
+    private int productos;
+}
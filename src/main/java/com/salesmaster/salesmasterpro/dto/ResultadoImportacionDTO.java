@@ -0,0 +1,32 @@
+package com.salesmaster.salesmasterpro.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Resultado de una importación CSV, con las filas rechazadas")
+public class ResultadoImportacionDTO {
+
+    @Schema(description = "Cantidad de filas de datos leídas", example = "25000")
+    private long filas;
+
+    @Schema(description = "Cantidad de filas guardadas", example = "24990")
+    private long importadas;
+
+    @Schema(description = "Cantidad de filas rechazadas", example = "10")
+    private long rechazadas;
+
+    @Schema(description = "Filas rechazadas y su motivo, en orden (solo las primeras si son muchas)")
+    private List<ErrorFilaDTO> errores;
+
+    @Schema(description = "Indica si hay más filas rechazadas que las incluidas en errores", example = "false")
+    private boolean erroresTruncados;
+}
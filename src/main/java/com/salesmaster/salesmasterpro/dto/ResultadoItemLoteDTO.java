@@ -0,0 +1,23 @@
+package com.salesmaster.salesmasterpro.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ResultadoItemLoteDTO {
+
+    @Schema(description = "Posición del elemento en el lote (desde 0)", example = "0")
+    private int indice;
+
+    @Schema(description = "ID asignado si el elemento se creó", example = "1")
+    private Long id;
+
+    @Schema(description = "Motivo del rechazo, nulo si se creó")
+    private String error;
+}
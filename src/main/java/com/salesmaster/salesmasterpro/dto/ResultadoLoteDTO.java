@@ -0,0 +1,29 @@
+package com.salesmaster.salesmasterpro.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Resultado de una operación en lote, con el detalle de cada elemento")
+public class ResultadoLoteDTO {
+
+    @Schema(description = "Cantidad de elementos recibidos", example = "250")
+    private int total;
+
+    @Schema(description = "Cantidad de elementos procesados correctamente", example = "248")
+    private int exitosos;
+
+    @Schema(description = "Cantidad de elementos rechazados", example = "2")
+    private int fallidos;
+
+    @Schema(description = "Resultado por elemento, en el mismo orden en que se recibieron")
+    private List<ResultadoItemLoteDTO> resultados;
+}
@@ -0,0 +1,32 @@
+package com.salesmaster.salesmasterpro.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Ventas acumuladas de un cliente")
+public class VentaClienteDTO {
+
+    @Schema(description = "ID del cliente", example = "1")
+    private Long idCliente;
+
+    @Schema(description = "Nombre del cliente", example = "Juan Pérez")
+    private String nombreCliente;
+
+    @Schema(description = "Cantidad de pedidos", example = "12")
+    private Long pedidos;
+
+    @Schema(description = "Unidades compradas", example = "87")
+    private Long unidades;
+
+    @Schema(description = "Total de los pedidos", example = "3250.00")
+    private BigDecimal total;
+}
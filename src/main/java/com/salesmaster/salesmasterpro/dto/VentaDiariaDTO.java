@@ -0,0 +1,30 @@
+package com.salesmaster.salesmasterpro.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Ventas de un día")
+public class VentaDiariaDTO {
+
+    @Schema(description = "Día de los pedidos", example = "2025-11-23")
+    private LocalDate fecha;
+
+    @Schema(description = "Cantidad de pedidos", example = "42")
+    private Long pedidos;
+
+    @Schema(description = "Unidades vendidas", example = "310")
+    private Long unidades;
+
+    @Schema(description = "Total facturable de los pedidos", example = "15420.50")
+    private BigDecimal total;
+}
@@ -0,0 +1,32 @@
+package com.salesmaster.salesmasterpro.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "Ventas acumuladas de un producto")
+public class VentaProductoDTO {
+
+    @Schema(description = "ID del producto", example = "1")
+    private Long idProd;
+
+    @Schema(description = "Nombre del producto", example = "Laptop HP")
+    private String nombreProducto;
+
+    @Schema(description = "Cantidad de pedidos que incluyen el producto", example = "40")
+    private Long pedidos;
+
+    @Schema(description = "Unidades vendidas", example = "55")
+    private Long unidades;
+
+    @Schema(description = "Suma de los subtotales del producto", example = "41250.00")
+    private BigDecimal total;
+}
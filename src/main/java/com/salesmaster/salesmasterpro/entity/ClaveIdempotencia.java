@@ -0,0 +1,36 @@
+package com.salesmaster.salesmasterpro.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Respuesta guardada para una clave Idempotency-Key. La escribe RegistroIdempotencia en la misma
+ * transacción que la operación, así que existe si y solo si la operación se confirmó.
+ */
+@Entity
+@Table(name = "clave_idempotencia", schema = "salesmaster",
+       indexes = @Index(name = "idx_clave_idempotencia_creada", columnList = "creada"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ClaveIdempotencia {
+
+    // Operación y clave recibida, por ejemplo "pedidos:3f2a..."
+    @Id
+    @Column(name = "clave", length = 150)
+    private String clave;
+
+    // SHA-256 de la petición, para rechazar la misma clave con otro contenido
+    @Column(name = "huella", nullable = false, length = 64)
+    private String huella;
+
+    @Column(name = "respuesta", columnDefinition = "TEXT")
+    private String respuesta;
+
+    @Column(name = "creada", nullable = false)
+    private LocalDateTime creada;
+}
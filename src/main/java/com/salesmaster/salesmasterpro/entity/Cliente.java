@@ -17,7 +17,8 @@ import java.util.List;
 public class Cliente {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cliente_seq")
+    @SequenceGenerator(name = "cliente_seq", schema = "salesmaster", sequenceName = "cliente_id_cliente_seq", allocationSize = 50)
     @Column(name = "id_cliente")
     private Long idCliente;
 
@@ -27,6 +28,12 @@ public class Cliente {
     @Column(name = "email", nullable = false, unique = true, length = 100)
     private String email;
 
+    // Bloqueo optimista: cada UPDATE verifica y aumenta la versión. El DEFAULT permite que
+    // ddl-auto agregue la columna a una tabla con filas
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0 not null")
+    private Long version;
+
     @OneToMany(mappedBy = "cliente", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonIgnore
     @Builder.Default
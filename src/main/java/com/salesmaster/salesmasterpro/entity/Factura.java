@@ -8,7 +8,11 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "factura", schema = "salesmaster")
+@Table(name = "factura", schema = "salesmaster",
+        indexes = {
+                @Index(name = "uk_factura_nro", columnList = "nro", unique = true),
+                @Index(name = "idx_factura_fecha", columnList = "fecha, id_factura")
+        })
 @Getter
 @Setter
 @NoArgsConstructor
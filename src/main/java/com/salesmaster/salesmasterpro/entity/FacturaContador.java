@@ -0,0 +1,27 @@
+package com.salesmaster.salesmasterpro.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDate;
+
+/**
+ * Último número de factura entregado en cada día. Lo actualiza NumeradorFacturas
+ * reservando bloques de números con una sentencia atómica.
+ */
+@Entity
+@Table(name = "factura_contador", schema = "salesmaster")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FacturaContador {
+
+    @Id
+    @Column(name = "fecha")
+    private LocalDate fecha;
+
+    @Column(name = "ultimo", nullable = false)
+    private Long ultimo;
+}
@@ -10,7 +10,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "pedido", schema = "salesmaster")
+@Table(name = "pedido", schema = "salesmaster",
+        indexes = @Index(name = "idx_pedido_fecha", columnList = "fecha"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -19,7 +20,8 @@ import java.util.List;
 public class Pedido {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pedido_seq")
+    @SequenceGenerator(name = "pedido_seq", schema = "salesmaster", sequenceName = "pedido_id_pedido_seq", allocationSize = 50)
     @Column(name = "id_pedido")
     private Long idPedido;
 
@@ -18,7 +18,8 @@ import java.util.List;
 public class Producto {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "producto_seq")
+    @SequenceGenerator(name = "producto_seq", schema = "salesmaster", sequenceName = "producto_id_prod_seq", allocationSize = 50)
     @Column(name = "id_prod")
     private Long idProd;
 
@@ -28,6 +29,12 @@ public class Producto {
     @Column(name = "precio", nullable = false, precision = 10, scale = 2)
     private BigDecimal precio;
 
+    // Bloqueo optimista: cada UPDATE verifica y aumenta la versión. El DEFAULT permite que
+    // ddl-auto agregue la columna a una tabla con filas
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0 not null")
+    private Long version;
+
     @OneToMany(mappedBy = "producto", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonIgnore
     @Builder.Default
@@ -0,0 +1,34 @@
+package com.salesmaster.salesmasterpro.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Ventas acumuladas por cliente. Se actualiza en la misma transacción que crea
+ * los pedidos (ver ResumenVentasService); no se modifica desde JPA.
+ */
+@Entity
+@Table(name = "venta_cliente", schema = "salesmaster",
+        indexes = @Index(name = "idx_venta_cliente_total", columnList = "total"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VentaCliente {
+
+    @Id
+    @Column(name = "id_cliente")
+    private Long idCliente;
+
+    @Column(name = "pedidos", nullable = false)
+    private Long pedidos;
+
+    @Column(name = "unidades", nullable = false)
+    private Long unidades;
+
+    @Column(name = "total", nullable = false, precision = 14, scale = 2)
+    private BigDecimal total;
+}
@@ -0,0 +1,34 @@
+package com.salesmaster.salesmasterpro.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Parte de las ventas acumuladas de un día de pedido. Cada día se reparte en varias filas (parte)
+ * para que las altas simultáneas no esperen todas por la misma; las ventas del día son la suma de
+ * sus partes. Se actualiza en la misma transacción que crea los pedidos (ver ResumenVentasService);
+ * no se modifica desde JPA.
+ */
+@Entity
+@Table(name = "venta_diaria_parte", schema = "salesmaster")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VentaDiaria {
+
+    @EmbeddedId
+    private VentaDiariaId id;
+
+    @Column(name = "pedidos", nullable = false)
+    private Long pedidos;
+
+    @Column(name = "unidades", nullable = false)
+    private Long unidades;
+
+    @Column(name = "total", nullable = false, precision = 14, scale = 2)
+    private BigDecimal total;
+}
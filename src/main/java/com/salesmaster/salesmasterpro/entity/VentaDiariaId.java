@@ -0,0 +1,27 @@
+package com.salesmaster.salesmasterpro.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class VentaDiariaId implements Serializable {
+
+    @Column(name = "fecha")
+    private LocalDate fecha;
+
+    @Column(name = "parte")
+    private Integer parte;
+}
@@ -0,0 +1,34 @@
+package com.salesmaster.salesmasterpro.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * Ventas acumuladas por producto: pedidos que lo incluyen, unidades y suma de subtotales.
+ * Se actualiza en la misma transacción que crea los pedidos (ver ResumenVentasService).
+ */
+@Entity
+@Table(name = "venta_producto", schema = "salesmaster",
+        indexes = @Index(name = "idx_venta_producto_total", columnList = "total"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VentaProducto {
+
+    @Id
+    @Column(name = "id_prod")
+    private Long idProd;
+
+    @Column(name = "pedidos", nullable = false)
+    private Long pedidos;
+
+    @Column(name = "unidades", nullable = false)
+    private Long unidades;
+
+    @Column(name = "total", nullable = false, precision = 14, scale = 2)
+    private BigDecimal total;
+}
@@ -0,0 +1,8 @@
+package com.salesmaster.salesmasterpro.event;
+
+/**
+ * Se publica al terminar una compactación de IDs: todo lo que se haya guardado
+ * en memoria por ID de cliente o producto deja de ser válido.
+ */
+public record IdsCompactadosEvent(long clientesMovidos, long productosMovidos) {
+}
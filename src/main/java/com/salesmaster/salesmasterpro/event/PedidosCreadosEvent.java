@@ -0,0 +1,29 @@
+package com.salesmaster.salesmasterpro.event;
+
+import com.salesmaster.salesmasterpro.entity.Pedido;
+import com.salesmaster.salesmasterpro.entity.PedidoProducto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Se publica dentro de la transacción que crea pedidos. Solo lleva los datos de los items,
+ * así que los listeners posteriores al commit no dependen de las entidades.
+ */
+public record PedidosCreadosEvent(List<ItemVendido> items) {
+
+    public record ItemVendido(long idProd, int cantidad, LocalDateTime fecha) {
+    }
+
+    public static PedidosCreadosEvent de(Collection<Pedido> pedidos) {
+        List<ItemVendido> items = new ArrayList<>();
+        for (Pedido pedido : pedidos) {
+            for (PedidoProducto item : pedido.getPedidoProductos()) {
+                items.add(new ItemVendido(item.getId().getIdProd(), item.getCantidad(), pedido.getFecha()));
+            }
+        }
+        return new PedidosCreadosEvent(items);
+    }
+}
@@ -1,5 +1,9 @@
 package com.salesmaster.salesmasterpro.exception;
 
+import com.salesmaster.salesmasterpro.util.ViolacionUnica;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -36,6 +40,70 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
     }
 
+    // Restricciones únicas que un servicio no tradujo a su propio mensaje. Las demás violaciones de
+    // integridad (claves foráneas, nulos) son errores del servidor y siguen al manejador genérico
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ErrorResponse> handleDataIntegrityViolationException(DataIntegrityViolationException ex) {
+        if (!ViolacionUnica.es(ex)) {
+            return handleGenericException(ex);
+        }
+        ErrorResponse error = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.BAD_REQUEST.value())
+                .error("Solicitud inválida")
+                .message("Los datos entran en conflicto con un registro existente")
+                .build();
+        return new ResponseEntity<>(error, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(VersionDesactualizadaException.class)
+    public ResponseEntity<ErrorResponse> handleVersionDesactualizadaException(VersionDesactualizadaException ex) {
+        ErrorResponse error = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.PRECONDITION_FAILED.value())
+                .error("Versión desactualizada")
+                .message(ex.getMessage())
+                .build();
+        return new ResponseEntity<>(error, HttpStatus.PRECONDITION_FAILED);
+    }
+
+    @ExceptionHandler(VersionRequeridaException.class)
+    public ResponseEntity<ErrorResponse> handleVersionRequeridaException(VersionRequeridaException ex) {
+        ErrorResponse error = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.PRECONDITION_REQUIRED.value())
+                .error("Versión requerida")
+                .message(ex.getMessage())
+                .build();
+        return new ResponseEntity<>(error, HttpStatus.PRECONDITION_REQUIRED);
+    }
+
+    // Escrituras simultáneas sobre el mismo registro que siguieron chocando después de los reintentos
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex) {
+        ErrorResponse error = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.CONFLICT.value())
+                .error("Conflicto")
+                .message("El registro fue modificado al mismo tiempo por otra petición. Intente nuevamente")
+                .build();
+        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+    }
+
+    // La misma Idempotency-Key sigue en curso después de la espera; reintentar devuelve su resultado
+    @ExceptionHandler(PeticionEnCursoException.class)
+    public ResponseEntity<ErrorResponse> handlePeticionEnCursoException(PeticionEnCursoException ex) {
+        ErrorResponse error = ErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.CONFLICT.value())
+                .error("Petición en curso")
+                .message(ex.getMessage())
+                .build();
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getReintentarEnSegundos()))
+                .body(error);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, Object>> handleValidationExceptions(MethodArgumentNotValidException ex) {
         Map<String, String> errors = new HashMap<>();
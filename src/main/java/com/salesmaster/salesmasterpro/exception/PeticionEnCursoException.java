@@ -0,0 +1,18 @@
+package com.salesmaster.salesmasterpro.exception;
+
+/**
+ * Otra petición con la misma Idempotency-Key sigue ejecutándose: el cliente debe reintentar más tarde.
+ */
+public class PeticionEnCursoException extends RuntimeException {
+
+    private final long reintentarEnSegundos;
+
+    public PeticionEnCursoException(String message, long reintentarEnSegundos) {
+        super(message);
+        this.reintentarEnSegundos = reintentarEnSegundos;
+    }
+
+    public long getReintentarEnSegundos() {
+        return reintentarEnSegundos;
+    }
+}
@@ -0,0 +1,10 @@
+package com.salesmaster.salesmasterpro.exception;
+
+/**
+ * La versión enviada en If-Match ya no es la actual: otro cambio se guardó antes.
+ */
+public class VersionDesactualizadaException extends RuntimeException {
+    public VersionDesactualizadaException(String message) {
+        super(message);
+    }
+}
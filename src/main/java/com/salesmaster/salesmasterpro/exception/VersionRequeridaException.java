@@ -0,0 +1,10 @@
+package com.salesmaster.salesmasterpro.exception;
+
+/**
+ * Se pidió actualizar sin indicar sobre qué versión (ni If-Match ni el campo version del cuerpo).
+ */
+public class VersionRequeridaException extends RuntimeException {
+    public VersionRequeridaException(String message) {
+        super(message);
+    }
+}
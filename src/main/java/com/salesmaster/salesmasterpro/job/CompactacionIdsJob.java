@@ -0,0 +1,73 @@
+package com.salesmaster.salesmasterpro.job;
+
+import com.salesmaster.salesmasterpro.event.IdsCompactadosEvent;
+import com.salesmaster.salesmasterpro.service.CompactacionIdsService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Tarea programada que mantiene los IDs de cliente y producto sin huecos.
+ * Solo se activa con salesmaster.compactacion.enabled=true; las escrituras de la API
+ * nunca renumeran, así que su costo no depende del tamaño de las tablas.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(name = "salesmaster.compactacion.enabled", havingValue = "true")
+public class CompactacionIdsJob {
+
+    private final CompactacionIdsService compactacionIdsService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int tamanoLote;
+    private final Counter clientesMovidos;
+    private final Counter productosMovidos;
+
+    public CompactacionIdsJob(CompactacionIdsService compactacionIdsService,
+                              ApplicationEventPublisher eventPublisher,
+                              MeterRegistry meterRegistry,
+                              @Value("${salesmaster.compactacion.tamano-lote:1000}") int tamanoLote) {
+        this.compactacionIdsService = compactacionIdsService;
+        this.eventPublisher = eventPublisher;
+        this.tamanoLote = tamanoLote;
+        this.clientesMovidos = Counter.builder("salesmaster.compactacion.filas")
+                .description("Filas cuyo ID fue reasignado por la compactación")
+                .tag("tabla", "cliente")
+                .register(meterRegistry);
+        this.productosMovidos = Counter.builder("salesmaster.compactacion.filas")
+                .description("Filas cuyo ID fue reasignado por la compactación")
+                .tag("tabla", "producto")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${salesmaster.compactacion.cron:0 0 3 * * *}")
+    public void compactar() {
+        compactacionIdsService.prepararRestricciones();
+
+        // Cada lote es una transacción independiente para no retener bloqueos mucho tiempo
+        long clientes = compactarPorLotes(compactacionIdsService::compactarClientes, clientesMovidos);
+        long productos = compactarPorLotes(compactacionIdsService::compactarProductos, productosMovidos);
+
+        log.info("Compactación de IDs finalizada: {} clientes y {} productos renumerados", clientes, productos);
+        if (clientes > 0 || productos > 0) {
+            eventPublisher.publishEvent(new IdsCompactadosEvent(clientes, productos));
+        }
+    }
+
+    private long compactarPorLotes(IntUnaryOperator compactarLote, Counter contador) {
+        long total = 0;
+        int movidos;
+        do {
+            movidos = compactarLote.applyAsInt(tamanoLote);
+            contador.increment(movidos);
+            total += movidos;
+        } while (movidos == tamanoLote);
+        return total;
+    }
+}
@@ -1,13 +1,55 @@
 package com.salesmaster.salesmasterpro.repository;
 
 import com.salesmaster.salesmasterpro.entity.Cliente;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ClienteRepository extends JpaRepository<Cliente, Long> {
+
+    // Nombre y email en minúsculas y sin los acentos que admite @ValidNombre. Debe coincidir exactamente
+    // con la expresión de idx_cliente_busqueda_trgm (db/ajustes-esquema.sql) para que se use el índice
+    String TEXTO_BUSQUEDA = "translate(lower(c.nombre || ' ' || c.email), 'áéíóúüñÁÉÍÓÚÜÑ', 'aeiouunaeiouun')";
+
+    /**
+     * Coincidencias ordenadas por relevancia: primero las que empiezan por el texto, luego las que tienen
+     * una palabra que empieza por él, luego las que lo contienen y al final las parecidas (word_similarity).
+     */
+    @Query(value = "SELECT c.* FROM salesmaster.cliente c " +
+            "WHERE " + TEXTO_BUSQUEDA + " LIKE :contiene ESCAPE '\\' OR :texto <% " + TEXTO_BUSQUEDA + " " +
+            "ORDER BY CASE WHEN " + TEXTO_BUSQUEDA + " LIKE :prefijo ESCAPE '\\' THEN 0 " +
+            "WHEN " + TEXTO_BUSQUEDA + " LIKE :palabra ESCAPE '\\' THEN 1 " +
+            "WHEN " + TEXTO_BUSQUEDA + " LIKE :contiene ESCAPE '\\' THEN 2 ELSE 3 END, " +
+            "word_similarity(:texto, " + TEXTO_BUSQUEDA + ") DESC, c.id_cliente " +
+            "LIMIT :limite", nativeQuery = true)
+    List<Cliente> buscar(@Param("texto") String texto, @Param("prefijo") String prefijo,
+                         @Param("palabra") String palabra, @Param("contiene") String contiene,
+                         @Param("limite") int limite);
+
+    /**
+     * Para textos de menos de 3 letras, que no alcanzan para un trigrama completo: solo
+     * coincidencias al inicio del nombre o de una palabra (el índice sí puede usarse para eso).
+     */
+    @Query(value = "SELECT c.* FROM salesmaster.cliente c " +
+            "WHERE " + TEXTO_BUSQUEDA + " LIKE :prefijo ESCAPE '\\' OR " + TEXTO_BUSQUEDA + " LIKE :palabra ESCAPE '\\' " +
+            "ORDER BY CASE WHEN " + TEXTO_BUSQUEDA + " LIKE :prefijo ESCAPE '\\' THEN 0 ELSE 1 END, c.nombre, c.id_cliente " +
+            "LIMIT :limite", nativeQuery = true)
+    List<Cliente> buscarPorPrefijo(@Param("prefijo") String prefijo, @Param("palabra") String palabra,
+                                   @Param("limite") int limite);
+
     Optional<Cliente> findByEmail(String email);
+
+    @Query("SELECT c.email FROM Cliente c WHERE c.email IN :emails")
+    List<String> findEmailsExistentes(@Param("emails") Collection<String> emails);
+
+    long countByIdClienteLessThanEqual(Long idCliente);
+    List<Cliente> findByIdClienteGreaterThanOrderByIdClienteAsc(Long idCliente, Limit limit);
 }
 
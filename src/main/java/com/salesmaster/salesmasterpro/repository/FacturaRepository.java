@@ -1,14 +1,32 @@
 package com.salesmaster.salesmasterpro.repository;
 
 import com.salesmaster.salesmasterpro.entity.Factura;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface FacturaRepository extends JpaRepository<Factura, Long> {
     Optional<Factura> findByPedidoIdPedido(Long idPedido);
-    long countByNroStartingWith(String prefijo);
+
+    @Query("SELECT f.idFactura FROM Factura f WHERE f.idFactura > :idFactura ORDER BY f.idFactura")
+    List<Long> findIdsByIdFacturaGreaterThan(@Param("idFactura") Long idFactura, Pageable pageable);
+
+    // Carga la factura con su pedido, cliente, items y productos en una sola consulta
+    @Query("SELECT DISTINCT f FROM Factura f JOIN FETCH f.pedido p JOIN FETCH p.cliente " +
+           "LEFT JOIN FETCH p.pedidoProductos pp LEFT JOIN FETCH pp.producto " +
+           "WHERE f.idFactura IN :ids ORDER BY f.idFactura")
+    List<Factura> findConDetalleByIdFacturaIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT f FROM Factura f JOIN FETCH f.pedido p JOIN FETCH p.cliente " +
+           "LEFT JOIN FETCH p.pedidoProductos pp LEFT JOIN FETCH pp.producto " +
+           "WHERE f.idFactura = :idFactura")
+    Optional<Factura> findConDetalleByIdFactura(@Param("idFactura") Long idFactura);
 }
 
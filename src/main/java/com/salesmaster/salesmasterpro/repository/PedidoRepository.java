@@ -1,13 +1,45 @@
 package com.salesmaster.salesmasterpro.repository;
 
+import com.salesmaster.salesmasterpro.dto.PedidoLineaDTO;
 import com.salesmaster.salesmasterpro.entity.Pedido;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PedidoRepository extends JpaRepository<Pedido, Long> {
     List<Pedido> findByClienteIdCliente(Long idCliente);
+
+    @Query("SELECT p.idPedido FROM Pedido p WHERE p.idPedido > :idPedido ORDER BY p.idPedido")
+    List<Long> findIdsByIdPedidoGreaterThan(@Param("idPedido") Long idPedido, Pageable pageable);
+
+    // Carga el pedido con cliente, factura, items y productos en una sola consulta
+    @Query("SELECT DISTINCT p FROM Pedido p JOIN FETCH p.cliente LEFT JOIN FETCH p.factura " +
+           "LEFT JOIN FETCH p.pedidoProductos pp LEFT JOIN FETCH pp.producto " +
+           "WHERE p.idPedido IN :ids ORDER BY p.idPedido")
+    List<Pedido> findConDetalleByIdPedidoIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT p FROM Pedido p JOIN FETCH p.cliente LEFT JOIN FETCH p.factura " +
+           "LEFT JOIN FETCH p.pedidoProductos pp LEFT JOIN FETCH pp.producto " +
+           "WHERE p.idPedido = :idPedido")
+    Optional<Pedido> findConDetalleByIdPedido(@Param("idPedido") Long idPedido);
+
+    // Una fila por item, agrupables por pedido; se lee con cursor JDBC en bloques de 500
+    @Query("SELECT new com.salesmaster.salesmasterpro.dto.PedidoLineaDTO(" +
+           "p.idPedido, p.fecha, p.total, c.idCliente, c.nombre, pr.idProd, pr.nombre, pp.cantidad, pp.subtotal) " +
+           "FROM Pedido p JOIN p.cliente c LEFT JOIN p.pedidoProductos pp LEFT JOIN pp.producto pr " +
+           "ORDER BY p.idPedido, pr.idProd")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<PedidoLineaDTO> streamLineas();
 }
 
@@ -1,10 +1,15 @@
 package com.salesmaster.salesmasterpro.repository;
 
 import com.salesmaster.salesmasterpro.entity.Producto;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface ProductoRepository extends JpaRepository<Producto, Long> {
+    long countByIdProdLessThanEqual(Long idProd);
+    List<Producto> findByIdProdGreaterThanOrderByIdProdAsc(Long idProd, Limit limit);
 }
 
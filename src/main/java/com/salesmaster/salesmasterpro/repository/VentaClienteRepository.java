@@ -0,0 +1,24 @@
+package com.salesmaster.salesmasterpro.repository;
+
+import com.salesmaster.salesmasterpro.dto.VentaClienteDTO;
+import com.salesmaster.salesmasterpro.entity.VentaCliente;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface VentaClienteRepository extends JpaRepository<VentaCliente, Long> {
+
+    @Query("SELECT new com.salesmaster.salesmasterpro.dto.VentaClienteDTO(v.idCliente, c.nombre, v.pedidos, v.unidades, v.total) " +
+           "FROM VentaCliente v JOIN Cliente c ON c.idCliente = v.idCliente ORDER BY v.total DESC, v.idCliente")
+    List<VentaClienteDTO> findMayoresVentas(Limit limit);
+
+    @Query("SELECT new com.salesmaster.salesmasterpro.dto.VentaClienteDTO(v.idCliente, c.nombre, v.pedidos, v.unidades, v.total) " +
+           "FROM VentaCliente v JOIN Cliente c ON c.idCliente = v.idCliente WHERE v.idCliente = :idCliente")
+    Optional<VentaClienteDTO> findDetalleByIdCliente(@Param("idCliente") Long idCliente);
+}
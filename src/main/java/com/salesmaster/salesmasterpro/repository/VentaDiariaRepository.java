@@ -0,0 +1,21 @@
+package com.salesmaster.salesmasterpro.repository;
+
+import com.salesmaster.salesmasterpro.dto.VentaDiariaDTO;
+import com.salesmaster.salesmasterpro.entity.VentaDiaria;
+import com.salesmaster.salesmasterpro.entity.VentaDiariaId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface VentaDiariaRepository extends JpaRepository<VentaDiaria, VentaDiariaId> {
+
+    // Suma las partes de cada día
+    @Query("SELECT new com.salesmaster.salesmasterpro.dto.VentaDiariaDTO(v.id.fecha, SUM(v.pedidos), SUM(v.unidades), SUM(v.total)) " +
+           "FROM VentaDiaria v WHERE v.id.fecha BETWEEN :desde AND :hasta GROUP BY v.id.fecha ORDER BY v.id.fecha")
+    List<VentaDiariaDTO> findVentasPorDia(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+}
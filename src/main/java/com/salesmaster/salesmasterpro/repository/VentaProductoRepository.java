@@ -0,0 +1,24 @@
+package com.salesmaster.salesmasterpro.repository;
+
+import com.salesmaster.salesmasterpro.dto.VentaProductoDTO;
+import com.salesmaster.salesmasterpro.entity.VentaProducto;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface VentaProductoRepository extends JpaRepository<VentaProducto, Long> {
+
+    @Query("SELECT new com.salesmaster.salesmasterpro.dto.VentaProductoDTO(v.idProd, p.nombre, v.pedidos, v.unidades, v.total) " +
+           "FROM VentaProducto v JOIN Producto p ON p.idProd = v.idProd ORDER BY v.total DESC, v.idProd")
+    List<VentaProductoDTO> findMayoresVentas(Limit limit);
+
+    @Query("SELECT new com.salesmaster.salesmasterpro.dto.VentaProductoDTO(v.idProd, p.nombre, v.pedidos, v.unidades, v.total) " +
+           "FROM VentaProducto v JOIN Producto p ON p.idProd = v.idProd WHERE v.idProd = :idProd")
+    Optional<VentaProductoDTO> findDetalleByIdProd(@Param("idProd") Long idProd);
+}
@@ -0,0 +1,63 @@
+package com.salesmaster.salesmasterpro.service;
+
+import com.salesmaster.salesmasterpro.dto.VentaClienteDTO;
+import com.salesmaster.salesmasterpro.dto.VentaDiariaDTO;
+import com.salesmaster.salesmasterpro.dto.VentaProductoDTO;
+import com.salesmaster.salesmasterpro.exception.ResourceNotFoundException;
+import com.salesmaster.salesmasterpro.repository.VentaClienteRepository;
+import com.salesmaster.salesmasterpro.repository.VentaDiariaRepository;
+import com.salesmaster.salesmasterpro.repository.VentaProductoRepository;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Consultas de ventas sobre las tablas de resumen que mantiene ResumenVentasService:
+ * el costo depende de los días o filas pedidos, no de la cantidad de pedidos.
+ */
+@Service
+@Timed("salesmaster.servicio")
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class AnaliticaService {
+
+    public static final int DIAS_MAXIMOS = 366;
+
+    private final VentaDiariaRepository ventaDiariaRepository;
+    private final VentaClienteRepository ventaClienteRepository;
+    private final VentaProductoRepository ventaProductoRepository;
+
+    public List<VentaDiariaDTO> ventasDiarias(LocalDate desde, LocalDate hasta) {
+        if (desde.isAfter(hasta)) {
+            throw new IllegalArgumentException("La fecha desde no puede ser posterior a la fecha hasta");
+        }
+        if (ChronoUnit.DAYS.between(desde, hasta) >= DIAS_MAXIMOS) {
+            throw new IllegalArgumentException("El rango no puede superar los " + DIAS_MAXIMOS + " días");
+        }
+        return ventaDiariaRepository.findVentasPorDia(desde, hasta);
+    }
+
+    public List<VentaClienteDTO> mayoresClientes(int limite) {
+        return ventaClienteRepository.findMayoresVentas(Limit.of(limite));
+    }
+
+    public VentaClienteDTO ventasCliente(Long idCliente) {
+        return ventaClienteRepository.findDetalleByIdCliente(idCliente)
+                .orElseThrow(() -> new ResourceNotFoundException("No hay ventas registradas para el cliente con ID: " + idCliente));
+    }
+
+    public List<VentaProductoDTO> mayoresProductos(int limite) {
+        return ventaProductoRepository.findMayoresVentas(Limit.of(limite));
+    }
+
+    public VentaProductoDTO ventasProducto(Long idProd) {
+        return ventaProductoRepository.findDetalleByIdProd(idProd)
+                .orElseThrow(() -> new ResourceNotFoundException("No hay ventas registradas para el producto con ID: " + idProd));
+    }
+}
@@ -0,0 +1,429 @@
+package com.salesmaster.salesmasterpro.service;
+
+import com.salesmaster.salesmasterpro.dto.ProductoDTO;
+import com.salesmaster.salesmasterpro.event.IdsCompactadosEvent;
+import com.salesmaster.salesmasterpro.util.TextoBusqueda;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Búsqueda de productos por palabras del nombre y rango de precio, resuelta en memoria.
+ *
+ * El índice es inmutable: cada alta, modificación o baja confirmada arma uno nuevo a partir del
+ * anterior (solo cambian las palabras y la posición de precio del producto afectado) y lo publica
+ * de una vez, así que las búsquedas leen siempre un índice completo sin bloquear. Las escrituras
+ * se aplican después del commit; al arrancar y al compactar IDs se carga desde la base de datos.
+ */
+@Service
+@Timed("salesmaster.servicio")
+@Slf4j
+public class BusquedaProductosService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccionLectura;
+
+    private volatile Indice indice = Indice.VACIO;
+
+    public BusquedaProductosService(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(1000);
+        // Con una plantilla y no con @Transactional: alCompactarIds llama a cargar() desde la misma clase
+        this.transaccionLectura = new TransactionTemplate(transactionManager);
+        this.transaccionLectura.setReadOnly(true);
+    }
+
+    /**
+     * Productos cuyo nombre tiene palabras que empiezan por cada palabra del texto (sin distinguir
+     * mayúsculas ni acentos), dentro del rango de precio. Primero los que coinciden con más palabras
+     * completas. Sin texto, devuelve los del rango ordenados por precio.
+     */
+    public List<ProductoDTO> buscar(String texto, BigDecimal minPrecio, BigDecimal maxPrecio, int limite) {
+        if (minPrecio != null && maxPrecio != null && minPrecio.compareTo(maxPrecio) > 0) {
+            throw new IllegalArgumentException("El precio mínimo no puede ser mayor que el máximo");
+        }
+        long desde = minPrecio != null ? aCentavos(minPrecio, RoundingMode.CEILING) : Long.MIN_VALUE;
+        long hasta = maxPrecio != null ? aCentavos(maxPrecio, RoundingMode.FLOOR) : Long.MAX_VALUE;
+        List<String> palabras = texto != null ? TextoBusqueda.palabras(texto) : List.of();
+
+        Indice actual = indice;
+        if (palabras.isEmpty()) {
+            return actual.porPrecio(desde, hasta, limite);
+        }
+
+        long[] candidatos = null;
+        for (String palabra : palabras) {
+            long[] coincidencias = actual.conPrefijo(palabra);
+            candidatos = candidatos == null ? coincidencias : interseccion(candidatos, coincidencias);
+            if (candidatos.length == 0) {
+                return List.of();
+            }
+        }
+
+        List<ProductoDTO> resultado = new ArrayList<>();
+        Map<Long, Integer> exactas = new HashMap<>();
+        for (long idProd : candidatos) {
+            ProductoDTO producto = actual.productos().get(idProd);
+            long precio = aCentavos(producto.getPrecio(), RoundingMode.HALF_UP);
+            if (precio < desde || precio > hasta) {
+                continue;
+            }
+            int completas = 0;
+            for (String palabra : palabras) {
+                long[] ids = actual.terminos().get(palabra);
+                if (ids != null && Arrays.binarySearch(ids, idProd) >= 0) {
+                    completas++;
+                }
+            }
+            exactas.put(idProd, completas);
+            resultado.add(producto);
+        }
+        resultado.sort(Comparator.<ProductoDTO>comparingInt(p -> -exactas.get(p.getIdProd()))
+                .thenComparingInt(p -> p.getNombre().length())
+                .thenComparing(ProductoDTO::getIdProd));
+        return resultado.size() > limite ? new ArrayList<>(resultado.subList(0, limite)) : resultado;
+    }
+
+    /**
+     * Agrega o reemplaza el producto en el índice cuando se confirme la transacción actual.
+     */
+    public void guardarAlConfirmar(ProductoDTO producto) {
+        ProductoDTO snapshot = ProductoDTO.builder()
+                .idProd(producto.getIdProd())
+                .nombre(producto.getNombre())
+                .precio(producto.getPrecio())
+                .build();
+        alConfirmar(() -> guardarTodos(List.of(snapshot)));
+    }
+
+    /**
+     * Como {@link #guardarAlConfirmar(ProductoDTO)} para varios productos: el índice se copia una sola vez
+     * para todos, así que las importaciones lo actualizan por bloque y no por fila.
+     */
+    public void guardarTodosAlConfirmar(List<ProductoDTO> productos) {
+        if (productos.isEmpty()) {
+            return;
+        }
+        List<ProductoDTO> snapshots = new ArrayList<>(productos.size());
+        for (ProductoDTO producto : productos) {
+            snapshots.add(ProductoDTO.builder()
+                    .idProd(producto.getIdProd())
+                    .nombre(producto.getNombre())
+                    .precio(producto.getPrecio())
+                    .build());
+        }
+        alConfirmar(() -> guardarTodos(snapshots));
+    }
+
+    public void eliminarAlConfirmar(Long idProd) {
+        alConfirmar(() -> eliminar(idProd));
+    }
+
+    /**
+     * Carga todos los productos. Se lee con un cursor dentro de una transacción de solo lectura;
+     * las escrituras confirmadas mientras tanto esperan y se aplican sobre el índice nuevo.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void cargar() {
+        Map<Long, ProductoDTO> productos = new HashMap<>();
+        transaccionLectura.executeWithoutResult(status ->
+                jdbcTemplate.query("SELECT id_prod, nombre, precio FROM salesmaster.producto", rs -> {
+                    productos.put(rs.getLong("id_prod"), ProductoDTO.builder()
+                            .idProd(rs.getLong("id_prod"))
+                            .nombre(rs.getString("nombre"))
+                            .precio(rs.getBigDecimal("precio"))
+                            .build());
+                }));
+        indice = Indice.de(productos);
+        log.info("Índice de búsqueda de productos cargado con {} productos y {} palabras",
+                productos.size(), indice.terminos().size());
+    }
+
+    @EventListener(condition = "#evento.productosMovidos() > 0")
+    public void alCompactarIds(IdsCompactadosEvent evento) {
+        // Los IDs cambiaron: el índice se vuelve a cargar con los nuevos
+        cargar();
+    }
+
+    private synchronized void guardarTodos(List<ProductoDTO> nuevos) {
+        // Si el mismo producto viene más de una vez, queda la última versión
+        Map<Long, ProductoDTO> porId = new LinkedHashMap<>();
+        for (ProductoDTO producto : nuevos) {
+            porId.put(producto.getIdProd(), producto);
+        }
+        Indice actual = indice;
+        Map<Long, ProductoDTO> productos = new HashMap<>(actual.productos());
+        Map<String, long[]> terminos = new HashMap<>(actual.terminos());
+
+        for (ProductoDTO producto : porId.values()) {
+            ProductoDTO anterior = productos.put(producto.getIdProd(), producto);
+            if (anterior != null) {
+                quitarTerminos(anterior, terminos);
+            }
+            for (String palabra : TextoBusqueda.palabras(producto.getNombre())) {
+                long[] ids = terminos.get(palabra);
+                terminos.put(palabra, ids == null ? new long[]{producto.getIdProd()} : agregarOrdenado(ids, producto.getIdProd()));
+            }
+        }
+        long[][] precios = combinarPrecios(actual, porId);
+
+        indice = new Indice(productos, terminos, ordenarTerminos(actual, terminos), precios[0], precios[1]);
+    }
+
+    private synchronized void eliminar(Long idProd) {
+        Indice actual = indice;
+        if (!actual.productos().containsKey(idProd)) {
+            return;
+        }
+        Map<Long, ProductoDTO> productos = new HashMap<>(actual.productos());
+        Map<String, long[]> terminos = new HashMap<>(actual.terminos());
+        long[][] precios = {actual.centavos(), actual.idsPorPrecio()};
+
+        ProductoDTO producto = productos.remove(idProd);
+        quitarTerminos(producto, terminos);
+        quitarPrecio(producto, precios);
+        indice = new Indice(productos, terminos, ordenarTerminos(actual, terminos), precios[0], precios[1]);
+    }
+
+    private static void quitarTerminos(ProductoDTO producto, Map<String, long[]> terminos) {
+        for (String palabra : TextoBusqueda.palabras(producto.getNombre())) {
+            long[] ids = terminos.get(palabra);
+            if (ids == null) {
+                continue;
+            }
+            long[] restantes = quitarOrdenado(ids, producto.getIdProd());
+            if (restantes.length == 0) {
+                terminos.remove(palabra);
+            } else {
+                terminos.put(palabra, restantes);
+            }
+        }
+    }
+
+    private static void quitarPrecio(ProductoDTO producto, long[][] precios) {
+        long[] centavos = precios[0];
+        long[] ids = precios[1];
+        int i = Indice.primeraPosicion(centavos, aCentavos(producto.getPrecio(), RoundingMode.HALF_UP));
+        while (i < ids.length && ids[i] != producto.getIdProd()) {
+            i++;
+        }
+        if (i < ids.length) {
+            precios[0] = quitarPosicion(centavos, i);
+            precios[1] = quitarPosicion(ids, i);
+        }
+    }
+
+    // Una sola pasada sobre los precios: se omiten los de los productos reemplazados y se intercalan
+    // los nuevos, ya ordenados por (precio, ID)
+    private static long[][] combinarPrecios(Indice actual, Map<Long, ProductoDTO> nuevos) {
+        long[][] agregar = new long[nuevos.size()][];
+        int k = 0;
+        for (ProductoDTO producto : nuevos.values()) {
+            agregar[k++] = new long[]{aCentavos(producto.getPrecio(), RoundingMode.HALF_UP), producto.getIdProd()};
+        }
+        Arrays.sort(agregar, Comparator.<long[]>comparingLong(par -> par[0]).thenComparingLong(par -> par[1]));
+
+        long[] centavos = actual.centavos();
+        long[] ids = actual.idsPorPrecio();
+        long[] resultadoCentavos = new long[centavos.length + agregar.length];
+        long[] resultadoIds = new long[centavos.length + agregar.length];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < centavos.length || j < agregar.length) {
+            if (i < centavos.length && nuevos.containsKey(ids[i])) {
+                i++;
+            } else if (j == agregar.length || (i < centavos.length && (centavos[i] < agregar[j][0]
+                    || (centavos[i] == agregar[j][0] && ids[i] < agregar[j][1])))) {
+                resultadoCentavos[n] = centavos[i];
+                resultadoIds[n++] = ids[i++];
+            } else {
+                resultadoCentavos[n] = agregar[j][0];
+                resultadoIds[n++] = agregar[j++][1];
+            }
+        }
+        return new long[][]{Arrays.copyOf(resultadoCentavos, n), Arrays.copyOf(resultadoIds, n)};
+    }
+
+    // La lista ordenada de palabras solo se rehace si se agregó o quitó alguna
+    private static String[] ordenarTerminos(Indice anterior, Map<String, long[]> terminos) {
+        if (terminos.size() == anterior.terminos().size() && anterior.terminos().keySet().equals(terminos.keySet())) {
+            return anterior.terminosOrdenados();
+        }
+        String[] ordenados = terminos.keySet().toArray(new String[0]);
+        Arrays.sort(ordenados);
+        return ordenados;
+    }
+
+    private static void alConfirmar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+
+    private static long aCentavos(BigDecimal precio, RoundingMode redondeo) {
+        return precio.setScale(2, redondeo).unscaledValue().longValueExact();
+    }
+
+    private static long[] agregarOrdenado(long[] valores, long valor) {
+        int i = Arrays.binarySearch(valores, valor);
+        return i >= 0 ? valores : insertarPosicion(valores, -i - 1, valor);
+    }
+
+    private static long[] quitarOrdenado(long[] valores, long valor) {
+        int i = Arrays.binarySearch(valores, valor);
+        return i < 0 ? valores : quitarPosicion(valores, i);
+    }
+
+    private static long[] insertarPosicion(long[] valores, int posicion, long valor) {
+        long[] resultado = new long[valores.length + 1];
+        System.arraycopy(valores, 0, resultado, 0, posicion);
+        resultado[posicion] = valor;
+        System.arraycopy(valores, posicion, resultado, posicion + 1, valores.length - posicion);
+        return resultado;
+    }
+
+    private static long[] quitarPosicion(long[] valores, int posicion) {
+        long[] resultado = new long[valores.length - 1];
+        System.arraycopy(valores, 0, resultado, 0, posicion);
+        System.arraycopy(valores, posicion + 1, resultado, posicion, valores.length - posicion - 1);
+        return resultado;
+    }
+
+    private static long[] interseccion(long[] a, long[] b) {
+        long[] resultado = new long[Math.min(a.length, b.length)];
+        int n = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                resultado[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(resultado, n);
+    }
+
+    private static long[] union(long[] a, long[] b) {
+        long[] resultado = new long[a.length + b.length];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                resultado[n++] = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                resultado[n++] = b[j++];
+            } else {
+                resultado[n++] = a[i++];
+                j++;
+            }
+        }
+        return Arrays.copyOf(resultado, n);
+    }
+
+    /**
+     * Índice inmutable. terminos: palabra normalizada → IDs ordenados de los productos que la tienen.
+     * centavos e idsPorPrecio: precios de todos los productos ordenados (precio, ID), en paralelo.
+     */
+    private record Indice(Map<Long, ProductoDTO> productos,
+                          Map<String, long[]> terminos,
+                          String[] terminosOrdenados,
+                          long[] centavos,
+                          long[] idsPorPrecio) {
+
+        static final Indice VACIO = new Indice(Map.of(), Map.of(), new String[0], new long[0], new long[0]);
+
+        static Indice de(Map<Long, ProductoDTO> productos) {
+            Map<String, List<Long>> listas = new HashMap<>();
+            List<ProductoDTO> porPrecio = new ArrayList<>(productos.values());
+            for (ProductoDTO producto : porPrecio) {
+                for (String palabra : TextoBusqueda.palabras(producto.getNombre())) {
+                    listas.computeIfAbsent(palabra, k -> new ArrayList<>()).add(producto.getIdProd());
+                }
+            }
+            Map<String, long[]> terminos = new HashMap<>(listas.size() * 2);
+            listas.forEach((palabra, ids) ->
+                    terminos.put(palabra, ids.stream().mapToLong(Long::longValue).sorted().distinct().toArray()));
+            String[] ordenados = terminos.keySet().toArray(new String[0]);
+            Arrays.sort(ordenados);
+
+            porPrecio.sort(Comparator.<ProductoDTO>comparingLong(p -> aCentavos(p.getPrecio(), RoundingMode.HALF_UP))
+                    .thenComparing(ProductoDTO::getIdProd));
+            long[] centavos = new long[porPrecio.size()];
+            long[] ids = new long[porPrecio.size()];
+            for (int i = 0; i < porPrecio.size(); i++) {
+                centavos[i] = aCentavos(porPrecio.get(i).getPrecio(), RoundingMode.HALF_UP);
+                ids[i] = porPrecio.get(i).getIdProd();
+            }
+            return new Indice(productos, terminos, ordenados, centavos, ids);
+        }
+
+        /**
+         * IDs ordenados de los productos con alguna palabra que empieza por {@code prefijo}.
+         */
+        long[] conPrefijo(String prefijo) {
+            int i = Arrays.binarySearch(terminosOrdenados, prefijo);
+            if (i < 0) {
+                i = -i - 1;
+            }
+            long[] ids = new long[0];
+            for (; i < terminosOrdenados.length && terminosOrdenados[i].startsWith(prefijo); i++) {
+                ids = union(ids, terminos.get(terminosOrdenados[i]));
+            }
+            return ids;
+        }
+
+        List<ProductoDTO> porPrecio(long desde, long hasta, int limite) {
+            List<ProductoDTO> resultado = new ArrayList<>(Math.min(limite, centavos.length));
+            for (int i = primeraPosicion(centavos, desde); i < centavos.length && centavos[i] <= hasta
+                    && resultado.size() < limite; i++) {
+                resultado.add(productos.get(idsPorPrecio[i]));
+            }
+            return resultado;
+        }
+
+        // Primera posición con un valor mayor o igual (los precios pueden repetirse)
+        static int primeraPosicion(long[] valores, long valor) {
+            int bajo = 0;
+            int alto = valores.length;
+            while (bajo < alto) {
+                int medio = (bajo + alto) >>> 1;
+                if (valores[medio] < valor) {
+                    bajo = medio + 1;
+                } else {
+                    alto = medio;
+                }
+            }
+            return bajo;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.salesmaster.salesmasterpro.service;
+
+import com.salesmaster.salesmasterpro.config.CacheConfig;
+import com.salesmaster.salesmasterpro.dto.ProductoDTO;
+import com.salesmaster.salesmasterpro.entity.Producto;
+import com.salesmaster.salesmasterpro.event.IdsCompactadosEvent;
+import com.salesmaster.salesmasterpro.repository.ProductoRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Nombre y precio vigentes de cada producto, usados para armar pedidos sin leer la tabla producto
+ * en cada alta. ProductoService invalida la entrada de un producto al modificarlo o eliminarlo.
+ *
+ * Los pedidos leen el catálogo dentro de su transacción, así que un guardado diferido al confirmar
+ * podría volver a dejar un precio leído antes de una invalidación ya aplicada. Por eso, como en
+ * FacturasSerializadas, se guarda en el momento y cada invalidación incrementa una generación: lo
+ * leído con una generación anterior no se guarda.
+ */
+@Component
+public class CatalogoProductos {
+
+    private final ProductoRepository productoRepository;
+    private final Cache cache;
+    private final AtomicLong generacion = new AtomicLong();
+
+    public CatalogoProductos(ProductoRepository productoRepository, CacheManager cacheManager) {
+        this.productoRepository = productoRepository;
+        Cache registrada = cacheManager.getCache(CacheConfig.CATALOGO_PRODUCTOS);
+        this.cache = registrada instanceof TransactionAwareCacheDecorator decorada ? decorada.getTargetCache() : registrada;
+    }
+
+    /**
+     * Devuelve los productos existentes entre los IDs pedidos (sin el número de visualización).
+     * Los que no están en caché se cargan juntos con una sola consulta.
+     */
+    public Map<Long, ProductoDTO> obtener(Collection<Long> idsProductos) {
+        Map<Long, ProductoDTO> productos = new HashMap<>(idsProductos.size() * 2);
+        List<Long> faltantes = new ArrayList<>();
+        for (Long idProd : idsProductos) {
+            ProductoDTO producto = cache.get(idProd, ProductoDTO.class);
+            if (producto != null) {
+                productos.put(idProd, producto);
+            } else {
+                faltantes.add(idProd);
+            }
+        }
+
+        if (!faltantes.isEmpty()) {
+            long leida = generacion.get();
+            for (Producto producto : productoRepository.findAllById(faltantes)) {
+                ProductoDTO snapshot = ProductoDTO.builder()
+                        .idProd(producto.getIdProd())
+                        .nombre(producto.getNombre())
+                        .precio(producto.getPrecio())
+                        .build();
+                guardar(snapshot, leida);
+                productos.put(producto.getIdProd(), snapshot);
+            }
+        }
+        return productos;
+    }
+
+    /**
+     * Quita el producto del catálogo cuando se confirme la transacción actual (o ya, si no hay una).
+     */
+    public void invalidarAlConfirmar(Long idProd) {
+        alConfirmar(() -> {
+            generacion.incrementAndGet();
+            cache.evict(idProd);
+        });
+    }
+
+    @EventListener(condition = "#evento.productosMovidos() > 0")
+    public void alCompactarIds(IdsCompactadosEvent evento) {
+        // Los IDs de producto cambiaron: ninguna entrada sigue siendo válida
+        alConfirmar(() -> {
+            generacion.incrementAndGet();
+            cache.clear();
+        });
+    }
+
+    private void guardar(ProductoDTO producto, long generacionLeida) {
+        if (generacion.get() == generacionLeida) {
+            cache.put(producto.getIdProd(), producto);
+            // Una invalidación entre la comparación y el put pudo no alcanzar a esta entrada
+            if (generacion.get() != generacionLeida) {
+                cache.evict(producto.getIdProd());
+            }
+        }
+    }
+
+    private static void alConfirmar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+}
@@ -1,74 +1,115 @@
 package com.salesmaster.salesmasterpro.service;
 
 import com.salesmaster.salesmasterpro.dto.ClienteDTO;
+import com.salesmaster.salesmasterpro.dto.PaginaDTO;
 import com.salesmaster.salesmasterpro.entity.Cliente;
 import com.salesmaster.salesmasterpro.exception.ResourceNotFoundException;
+import com.salesmaster.salesmasterpro.exception.VersionDesactualizadaException;
 import com.salesmaster.salesmasterpro.repository.ClienteRepository;
 import com.salesmaster.salesmasterpro.repository.PedidoRepository;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
+import com.salesmaster.salesmasterpro.util.Paginacion;
+import com.salesmaster.salesmasterpro.util.TextoBusqueda;
+import com.salesmaster.salesmasterpro.util.VersionEtag;
+import com.salesmaster.salesmasterpro.util.ViolacionUnica;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
+@Timed("salesmaster.servicio")
 @RequiredArgsConstructor
 @Transactional
 public class ClienteService {
 
     private final ClienteRepository clienteRepository;
     private final PedidoRepository pedidoRepository;
-    
-    @PersistenceContext
-    private EntityManager entityManager;
+    private final RegistroEmails registroEmails;
+    private final FacturasSerializadas facturasSerializadas;
 
     public ClienteDTO crearCliente(ClienteDTO clienteDTO) {
-        if (clienteRepository.findByEmail(clienteDTO.getEmail()).isPresent()) {
-            throw new IllegalArgumentException("Ya existe un cliente con el email: " + clienteDTO.getEmail());
-        }
+        verificarEmailDisponible(clienteDTO.getEmail());
 
         Cliente cliente = Cliente.builder()
                 .nombre(clienteDTO.getNombre())
                 .email(clienteDTO.getEmail())
                 .build();
 
-        Cliente clienteGuardado = clienteRepository.save(cliente);
-        
-        // Reordenar los IDs después de crear para mantener secuencia (1, 2, 3, ...)
-        reordenarIdsClientes();
-        
-        // Recargar el cliente recién creado por email (ya que el ID pudo haber cambiado)
-        Cliente clienteReordenado = clienteRepository.findByEmail(clienteDTO.getEmail())
-                .orElse(clienteGuardado);
-        
-        return convertirADTO(clienteReordenado);
+        Cliente clienteGuardado = guardar(cliente, null);
+        registroEmails.registrar(clienteGuardado.getEmail());
+        return convertirADTO(clienteGuardado);
     }
 
-    public ClienteDTO actualizarCliente(Long id, ClienteDTO clienteDTO) {
+    /**
+     * @param versionEsperada versión recibida en If-Match; {@code null} actualiza sobre la versión que se lea.
+     *                        Si otra transacción guarda el cliente antes, falla con
+     *                        {@link VersionDesactualizadaException} o, sin versión esperada, con
+     *                        {@link ObjectOptimisticLockingFailureException} (ver ReintentoConflictos).
+     *                        Vacía el JSON de facturas en caché porque muestran el nombre del cliente
+     */
+    public ClienteDTO actualizarCliente(Long id, ClienteDTO clienteDTO, Long versionEsperada) {
         Cliente cliente = clienteRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Cliente no encontrado con ID: " + id));
+        VersionEtag.verificar(versionEsperada, cliente.getVersion(), "cliente");
 
-        if (!cliente.getEmail().equals(clienteDTO.getEmail())) {
-            if (clienteRepository.findByEmail(clienteDTO.getEmail()).isPresent()) {
-                throw new IllegalArgumentException("Ya existe un cliente con el email: " + clienteDTO.getEmail());
-            }
+        String emailAnterior = cliente.getEmail();
+        boolean cambiaEmail = !emailAnterior.equals(clienteDTO.getEmail());
+        if (cambiaEmail) {
+            verificarEmailDisponible(clienteDTO.getEmail());
         }
 
         cliente.setNombre(clienteDTO.getNombre());
         cliente.setEmail(clienteDTO.getEmail());
 
-        Cliente clienteActualizado = clienteRepository.save(cliente);
+        Cliente clienteActualizado = guardar(cliente, versionEsperada);
+        if (cambiaEmail) {
+            registroEmails.registrar(clienteActualizado.getEmail());
+            registroEmails.liberarAlConfirmar(emailAnterior);
+        }
+        facturasSerializadas.invalidarAlConfirmar();
         return convertirADTO(clienteActualizado);
     }
 
     @Transactional(readOnly = true)
-    public List<ClienteDTO> listarClientes() {
-        return clienteRepository.findAll().stream()
-                .map(this::convertirADTO)
-                .collect(Collectors.toList());
+    public PaginaDTO<ClienteDTO> listarClientes(long despuesDe, int limite) {
+        List<Cliente> clientes = clienteRepository.findByIdClienteGreaterThanOrderByIdClienteAsc(despuesDe, Limit.of(limite + 1));
+
+        // El número de visualización continúa desde la cantidad de clientes anteriores al cursor
+        long numero = despuesDe > 0 ? clienteRepository.countByIdClienteLessThanEqual(despuesDe) : 0;
+        List<ClienteDTO> resultado = new ArrayList<>(clientes.size());
+        for (Cliente cliente : clientes) {
+            resultado.add(convertirADTO(cliente, ++numero));
+        }
+        return Paginacion.construirPagina(resultado, limite, ClienteDTO::getIdCliente);
+    }
+
+    /**
+     * Hasta {@code limite} clientes cuyo nombre o email coincide con el texto, sin distinguir mayúsculas
+     * ni acentos, ordenados por relevancia. El número de visualización no se calcula en la búsqueda.
+     */
+    @Transactional(readOnly = true)
+    public List<ClienteDTO> buscarClientes(String texto, int limite) {
+        String normalizado = texto == null ? "" : TextoBusqueda.normalizar(texto);
+        if (normalizado.isEmpty()) {
+            throw new IllegalArgumentException("El texto de búsqueda es obligatorio");
+        }
+
+        String escapado = escaparLike(normalizado);
+        List<Cliente> clientes = normalizado.length() < 3
+                ? clienteRepository.buscarPorPrefijo(escapado + "%", "% " + escapado + "%", limite)
+                : clienteRepository.buscar(normalizado, escapado + "%", "% " + escapado + "%", "%" + escapado + "%", limite);
+
+        List<ClienteDTO> resultado = new ArrayList<>(clientes.size());
+        for (Cliente cliente : clientes) {
+            resultado.add(convertirADTO(cliente, null));
+        }
+        return resultado;
     }
 
     @Transactional(readOnly = true)
@@ -89,132 +130,60 @@ public class ClienteService {
             );
         }
         
-        // Eliminar el cliente
         clienteRepository.deleteById(id);
-        
-        // Reordenar los IDs de los clientes restantes
-        reordenarIdsClientes();
+        registroEmails.liberarAlConfirmar(cliente.getEmail());
     }
-    
+
     /**
-     * Reordena los IDs de los clientes para que sean secuenciales (1, 2, 3, ...)
-     * y actualiza las referencias en la tabla de pedidos usando SQL nativo
+     * Solo consulta la base de datos si el registro en memoria no puede descartar el email.
      */
-    private void reordenarIdsClientes() {
-        // Obtener todos los clientes ordenados por ID actual
-        List<Cliente> clientes = clienteRepository.findAll().stream()
-                .sorted((c1, c2) -> Long.compare(c1.getIdCliente(), c2.getIdCliente()))
-                .collect(Collectors.toList());
-        
-        if (clientes.isEmpty()) {
-            // Resetear la secuencia si no hay clientes
-            entityManager.createNativeQuery(
-                "SELECT setval('salesmaster.cliente_id_cliente_seq', 0, true)"
-            ).getSingleResult();
-            return;
+    private void verificarEmailDisponible(String email) {
+        if (registroEmails.puedeEstarRegistrado(email) && clienteRepository.findByEmail(email).isPresent()) {
+            throw new IllegalArgumentException("Ya existe un cliente con el email: " + email);
         }
-        
-        // Usar IDs temporales altos para evitar conflictos
-        Long idTemporalBase = 1000000L;
-        
+    }
+
+    /**
+     * Escribe de inmediato para que un email duplicado que no se detectó antes (por ejemplo, registrado
+     * por otra instancia) o un conflicto de versión choquen acá y no al confirmar la transacción.
+     * La única restricción única de cliente es la del email; las demás violaciones se propagan.
+     */
+    private Cliente guardar(Cliente cliente, Long versionEsperada) {
         try {
-            // Paso 1: Eliminar temporalmente la foreign key constraint
-            entityManager.createNativeQuery(
-                "ALTER TABLE salesmaster.pedido DROP CONSTRAINT IF EXISTS pedido_id_cliente_fkey"
-            ).executeUpdate();
-            
-            // Paso 2: Asignar IDs temporales a todos los clientes
-            for (Cliente cliente : clientes) {
-                Long idAntiguo = cliente.getIdCliente();
-                Long idTemporal = idTemporalBase + idAntiguo;
-                
-                // Actualizar ID del cliente
-                entityManager.createNativeQuery(
-                    "UPDATE salesmaster.cliente SET id_cliente = :idTemporal WHERE id_cliente = :idAntiguo"
-                )
-                .setParameter("idTemporal", idTemporal)
-                .setParameter("idAntiguo", idAntiguo)
-                .executeUpdate();
-                
-                // Actualizar referencias en pedidos
-                entityManager.createNativeQuery(
-                    "UPDATE salesmaster.pedido SET id_cliente = :idTemporal WHERE id_cliente = :idAntiguo"
-                )
-                .setParameter("idTemporal", idTemporal)
-                .setParameter("idAntiguo", idAntiguo)
-                .executeUpdate();
-            }
-            
-            // Limpiar el contexto de persistencia
-            entityManager.clear();
-            
-            // Paso 3: Asignar IDs secuenciales finales (1, 2, 3, ...)
-            @SuppressWarnings("unchecked")
-            List<Number> clientesTemporales = entityManager.createNativeQuery(
-                "SELECT id_cliente FROM salesmaster.cliente WHERE id_cliente >= :base ORDER BY id_cliente"
-            )
-            .setParameter("base", idTemporalBase)
-            .getResultList();
-            
-            for (int i = 0; i < clientesTemporales.size(); i++) {
-                Long idTemporal = clientesTemporales.get(i).longValue();
-                Long idNuevo = (long) (i + 1);
-                
-                // Actualizar ID del cliente
-                entityManager.createNativeQuery(
-                    "UPDATE salesmaster.cliente SET id_cliente = :idNuevo WHERE id_cliente = :idTemporal"
-                )
-                .setParameter("idNuevo", idNuevo)
-                .setParameter("idTemporal", idTemporal)
-                .executeUpdate();
-                
-                // Actualizar referencias en pedidos
-                entityManager.createNativeQuery(
-                    "UPDATE salesmaster.pedido SET id_cliente = :idNuevo WHERE id_cliente = :idTemporal"
-                )
-                .setParameter("idNuevo", idNuevo)
-                .setParameter("idTemporal", idTemporal)
-                .executeUpdate();
+            return clienteRepository.saveAndFlush(cliente);
+        } catch (DataIntegrityViolationException e) {
+            if (!ViolacionUnica.es(e)) {
+                throw e;
             }
-            
-            // Paso 4: Recrear la foreign key constraint
-            entityManager.createNativeQuery(
-                "ALTER TABLE salesmaster.pedido " +
-                "ADD CONSTRAINT pedido_id_cliente_fkey " +
-                "FOREIGN KEY (id_cliente) REFERENCES salesmaster.cliente(id_cliente)"
-            ).executeUpdate();
-            
-            // Paso 5: Resetear la secuencia de PostgreSQL
-            Long maxId = (long) clientesTemporales.size();
-            entityManager.createNativeQuery(
-                "SELECT setval('salesmaster.cliente_id_cliente_seq', :maxId, true)"
-            )
-            .setParameter("maxId", maxId)
-            .getSingleResult();
-            
-        } catch (Exception e) {
-            // En caso de error, intentar recrear la constraint si no existe
-            try {
-                entityManager.createNativeQuery(
-                    "ALTER TABLE salesmaster.pedido " +
-                    "ADD CONSTRAINT pedido_id_cliente_fkey " +
-                    "FOREIGN KEY (id_cliente) REFERENCES salesmaster.cliente(id_cliente)"
-                ).executeUpdate();
-            } catch (Exception ex) {
-                // La constraint ya existe, ignorar
+            throw new IllegalArgumentException("Ya existe un cliente con el email: " + cliente.getEmail(), e);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            if (versionEsperada != null) {
+                throw new VersionDesactualizadaException("El cliente fue modificado por otra petición. " +
+                        "Vuelva a obtenerlo antes de actualizar");
             }
-            throw new RuntimeException("Error al reordenar IDs de clientes: " + e.getMessage(), e);
-        } finally {
-            // Limpiar el contexto
-            entityManager.clear();
+            throw e;
         }
     }
+    
+    private static String escaparLike(String texto) {
+        return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
 
+    /**
+     * Los IDs son estables; el número correlativo (1, 2, 3, ...) que ve el usuario
+     * se calcula al leer contando los clientes con ID menor o igual.
+     */
     private ClienteDTO convertirADTO(Cliente cliente) {
+        return convertirADTO(cliente, clienteRepository.countByIdClienteLessThanEqual(cliente.getIdCliente()));
+    }
+
+    private ClienteDTO convertirADTO(Cliente cliente, Long numero) {
         return ClienteDTO.builder()
                 .idCliente(cliente.getIdCliente())
+                .numero(numero)
                 .nombre(cliente.getNombre())
                 .email(cliente.getEmail())
+                .version(cliente.getVersion())
                 .build();
     }
 }
@@ -0,0 +1,159 @@
+package com.salesmaster.salesmasterpro.service;
+
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Compacta los IDs de cliente y producto para que vuelvan a ser secuenciales (1, 2, 3, ...).
+ * Se ejecuta fuera de las peticiones (ver CompactacionIdsJob) con sentencias set-based:
+ * cada lote es un número constante de UPDATE, sin importar cuántas filas se muevan.
+ *
+ * Las referencias se actualizan con las foreign keys en modo DEFERRED, por lo que la
+ * integridad se verifica al confirmar la transacción en lugar de eliminar la constraint.
+ * La secuencia no se retrocede: el siguiente ID nuevo siempre es mayor que cualquiera
+ * ya entregado, y el hueco que queda al final se cierra en la próxima ejecución.
+ */
+@Service
+@Timed("salesmaster.servicio")
+@Transactional
+public class CompactacionIdsService {
+
+    // Mapeo ID actual -> posición, limitado a las primeras filas desplazadas
+    private static final String MAPEO_CLIENTES =
+            "SELECT id_cliente, nuevo FROM (" +
+            "  SELECT id_cliente, row_number() OVER (ORDER BY id_cliente) AS nuevo FROM salesmaster.cliente" +
+            ") r WHERE r.id_cliente <> r.nuevo ORDER BY r.id_cliente LIMIT :lote";
+
+    private static final String MAPEO_PRODUCTOS =
+            "SELECT id_prod, nuevo FROM (" +
+            "  SELECT id_prod, row_number() OVER (ORDER BY id_prod) AS nuevo FROM salesmaster.producto" +
+            ") r WHERE r.id_prod <> r.nuevo ORDER BY r.id_prod LIMIT :lote";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Deja las foreign keys que apuntan a cliente y producto como DEFERRABLE.
+     * Solo altera las que aún no lo son, así que después de la primera vez no hace nada.
+     */
+    public void prepararRestricciones() {
+        entityManager.createNativeQuery(
+            "DO $$ DECLARE r record; BEGIN " +
+            "FOR r IN SELECT CAST(conrelid AS regclass) AS tabla, conname FROM pg_constraint " +
+            "  WHERE contype = 'f' AND NOT condeferrable " +
+            "  AND confrelid IN (CAST('salesmaster.cliente' AS regclass), CAST('salesmaster.producto' AS regclass)) LOOP " +
+            "  EXECUTE format('ALTER TABLE %s ALTER CONSTRAINT %I DEFERRABLE INITIALLY IMMEDIATE', r.tabla, r.conname); " +
+            "END LOOP; END $$"
+        ).executeUpdate();
+    }
+
+    /**
+     * Compacta hasta {@code lote} clientes desplazados.
+     *
+     * @return cantidad de clientes cuyo ID cambió
+     */
+    public int compactarClientes(int lote) {
+        iniciarCompactacion("salesmaster.cliente");
+
+        // Los pedidos no tienen restricción de unicidad sobre id_cliente: basta una pasada
+        entityManager.createNativeQuery(
+            "UPDATE salesmaster.pedido p SET id_cliente = m.nuevo " +
+            "FROM (" + MAPEO_CLIENTES + ") m WHERE p.id_cliente = m.id_cliente"
+        )
+        .setParameter("lote", lote)
+        .executeUpdate();
+
+        // venta_cliente tiene id_cliente como clave primaria: dos pasadas, como pedido_producto
+        entityManager.createNativeQuery(
+            "UPDATE salesmaster.venta_cliente v SET id_cliente = -m.nuevo " +
+            "FROM (" + MAPEO_CLIENTES + ") m WHERE v.id_cliente = m.id_cliente"
+        )
+        .setParameter("lote", lote)
+        .executeUpdate();
+
+        entityManager.createNativeQuery(
+            "UPDATE salesmaster.venta_cliente v SET id_cliente = m.nuevo " +
+            "FROM (" + MAPEO_CLIENTES + ") m WHERE v.id_cliente = -m.nuevo"
+        )
+        .setParameter("lote", lote)
+        .executeUpdate();
+
+        // La clave primaria se verifica fila a fila: primero a negativos, luego se invierte
+        int movidos = entityManager.createNativeQuery(
+            "UPDATE salesmaster.cliente c SET id_cliente = -m.nuevo " +
+            "FROM (" + MAPEO_CLIENTES + ") m WHERE c.id_cliente = m.id_cliente"
+        )
+        .setParameter("lote", lote)
+        .executeUpdate();
+
+        entityManager.createNativeQuery(
+            "UPDATE salesmaster.cliente SET id_cliente = -id_cliente WHERE id_cliente < 0"
+        ).executeUpdate();
+
+        return movidos;
+    }
+
+    /**
+     * Compacta hasta {@code lote} productos desplazados.
+     *
+     * @return cantidad de productos cuyo ID cambió
+     */
+    public int compactarProductos(int lote) {
+        iniciarCompactacion("salesmaster.producto");
+
+        // id_prod forma parte de la clave primaria de pedido_producto: también en dos pasadas.
+        // Ambas usan el mismo mapeo porque producto todavía no cambió.
+        entityManager.createNativeQuery(
+            "UPDATE salesmaster.pedido_producto pp SET id_prod = -m.nuevo " +
+            "FROM (" + MAPEO_PRODUCTOS + ") m WHERE pp.id_prod = m.id_prod"
+        )
+        .setParameter("lote", lote)
+        .executeUpdate();
+
+        entityManager.createNativeQuery(
+            "UPDATE salesmaster.pedido_producto pp SET id_prod = m.nuevo " +
+            "FROM (" + MAPEO_PRODUCTOS + ") m WHERE pp.id_prod = -m.nuevo"
+        )
+        .setParameter("lote", lote)
+        .executeUpdate();
+
+        entityManager.createNativeQuery(
+            "UPDATE salesmaster.venta_producto v SET id_prod = -m.nuevo " +
+            "FROM (" + MAPEO_PRODUCTOS + ") m WHERE v.id_prod = m.id_prod"
+        )
+        .setParameter("lote", lote)
+        .executeUpdate();
+
+        entityManager.createNativeQuery(
+            "UPDATE salesmaster.venta_producto v SET id_prod = m.nuevo " +
+            "FROM (" + MAPEO_PRODUCTOS + ") m WHERE v.id_prod = -m.nuevo"
+        )
+        .setParameter("lote", lote)
+        .executeUpdate();
+
+        int movidos = entityManager.createNativeQuery(
+            "UPDATE salesmaster.producto p SET id_prod = -m.nuevo " +
+            "FROM (" + MAPEO_PRODUCTOS + ") m WHERE p.id_prod = m.id_prod"
+        )
+        .setParameter("lote", lote)
+        .executeUpdate();
+
+        entityManager.createNativeQuery(
+            "UPDATE salesmaster.producto SET id_prod = -id_prod WHERE id_prod < 0"
+        ).executeUpdate();
+
+        return movidos;
+    }
+
+    private void iniciarCompactacion(String tabla) {
+        entityManager.createNativeQuery("SET CONSTRAINTS ALL DEFERRED").executeUpdate();
+
+        // Bloquea inserciones y borrados concurrentes para que el mapeo sea estable.
+        // Las lecturas siguen funcionando; el bloqueo dura solo lo que tarda el lote.
+        entityManager.createNativeQuery("LOCK TABLE " + tabla + " IN SHARE ROW EXCLUSIVE MODE")
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,107 @@
+package com.salesmaster.salesmasterpro.service;
+
+import com.salesmaster.salesmasterpro.util.Csv;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Exportación CSV de las facturas de un rango de fechas, una fila por item facturado.
+ *
+ * Una sola consulta nativa une factura, pedido, cliente, items y productos, y se lee con un cursor
+ * de solo avance (dentro de una transacción de solo lectura, como necesita PostgreSQL) en bloques
+ * de {@link #FILAS_POR_BLOQUE}. Cada fila se escribe en la respuesta apenas se lee: no se crean
+ * entidades ni objetos intermedios, así que la memoria no depende de la cantidad de facturas.
+ */
+@Service
+@Timed("salesmaster.servicio")
+@Transactional(readOnly = true)
+public class FacturaExportacionService {
+
+    private static final int FILAS_POR_BLOQUE = 1000;
+    private static final int FILAS_POR_FLUSH = 500;
+
+    private static final String[] COLUMNAS = {
+            "nro", "fecha", "id_pedido", "id_cliente", "nombre_cliente", "total",
+            "id_prod", "nombre_producto", "cantidad", "subtotal"
+    };
+
+    // El orden sigue al índice idx_factura_fecha; los items de cada factura quedan juntos
+    private static final String LINEAS_FACTURADAS =
+            "SELECT f.nro, f.fecha, f.id_pedido, c.id_cliente, c.nombre, f.total, " +
+            "pp.id_prod, pr.nombre, pp.cantidad, pp.subtotal " +
+            "FROM salesmaster.factura f " +
+            "JOIN salesmaster.pedido p ON p.id_pedido = f.id_pedido " +
+            "JOIN salesmaster.cliente c ON c.id_cliente = p.id_cliente " +
+            "LEFT JOIN salesmaster.pedido_producto pp ON pp.id_pedido = f.id_pedido " +
+            "LEFT JOIN salesmaster.producto pr ON pr.id_prod = pp.id_prod " +
+            "WHERE f.fecha >= :desde AND f.fecha < :hastaExclusive " +
+            "ORDER BY f.fecha, f.id_factura, pp.id_prod";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public FacturaExportacionService(DataSource dataSource) {
+        JdbcTemplate cursor = new JdbcTemplate(dataSource);
+        cursor.setFetchSize(FILAS_POR_BLOQUE);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(cursor);
+    }
+
+    /**
+     * Se llama antes de empezar a escribir la respuesta, para que un rango inválido sea un 400.
+     */
+    public static void validarRango(LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null) {
+            throw new IllegalArgumentException("Debe indicar las fechas desde y hasta");
+        }
+        if (desde.isAfter(hasta)) {
+            throw new IllegalArgumentException("La fecha desde no puede ser posterior a la fecha hasta");
+        }
+    }
+
+    public void exportarCsv(LocalDate desde, LocalDate hasta, OutputStream out) throws IOException {
+        validarRango(desde, hasta);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        Csv.escribirFila(writer, (Object[]) COLUMNAS);
+
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("desde", desde.atStartOfDay())
+                .addValue("hastaExclusive", hasta.plusDays(1).atStartOfDay());
+        int[] escritas = {0};
+        try {
+            jdbcTemplate.query(LINEAS_FACTURADAS, parametros, rs -> {
+                try {
+                    for (int i = 1; i <= COLUMNAS.length; i++) {
+                        if (i > 1) {
+                            writer.write(',');
+                        }
+                        Csv.escribirValor(writer, i == 2 ? Csv.fechaHora(rs.getObject(i, LocalDateTime.class)) : rs.getString(i));
+                    }
+                    writer.write('\n');
+                    if (++escritas[0] % FILAS_POR_FLUSH == 0) {
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // El cliente cortó la descarga: se cierra el cursor y se propaga el error original
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+}
@@ -1,28 +1,36 @@
 package com.salesmaster.salesmasterpro.service;
 
 import com.salesmaster.salesmasterpro.dto.FacturaDTO;
+import com.salesmaster.salesmasterpro.dto.PaginaDTO;
 import com.salesmaster.salesmasterpro.dto.PedidoItemDTO;
 import com.salesmaster.salesmasterpro.entity.Factura;
 import com.salesmaster.salesmasterpro.entity.Pedido;
 import com.salesmaster.salesmasterpro.exception.ResourceNotFoundException;
 import com.salesmaster.salesmasterpro.repository.FacturaRepository;
 import com.salesmaster.salesmasterpro.repository.PedidoRepository;
+import com.salesmaster.salesmasterpro.util.Paginacion;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Service
+@Timed("salesmaster.servicio")
 @RequiredArgsConstructor
 @Transactional
 public class FacturaService {
 
     private final FacturaRepository facturaRepository;
     private final PedidoRepository pedidoRepository;
+    private final NumeradorFacturas numeradorFacturas;
 
     public FacturaDTO generarFactura(Long idPedido) {
         Pedido pedido = pedidoRepository.findById(idPedido)
@@ -32,12 +40,14 @@ public class FacturaService {
             throw new IllegalArgumentException("El pedido ya tiene una factura asociada");
         }
 
-        String numeroFactura = generarNumeroFactura();
+        String numeroFactura = numeradorFacturas.siguienteNumero();
 
+        // El DTO devuelto se guarda en FacturasSerializadas: la fecha tiene que ser la misma que queda en la base,
+        // que guarda hasta microsegundos
         Factura factura = Factura.builder()
                 .pedido(pedido)
                 .nro(numeroFactura)
-                .fecha(LocalDateTime.now())
+                .fecha(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS))
                 .total(pedido.getTotal())
                 .build();
 
@@ -48,57 +58,28 @@ public class FacturaService {
     }
 
     @Transactional(readOnly = true)
-    public List<FacturaDTO> listarFacturas() {
-        List<Factura> facturas = facturaRepository.findAll();
-        
-        // Forzar carga de relaciones lazy para evitar LazyInitializationException
-        facturas.forEach(factura -> {
-            if (factura.getPedido() != null) {
-                factura.getPedido().getPedidoProductos().size(); // Inicializar colección
-                if (factura.getPedido().getCliente() != null) {
-                    factura.getPedido().getCliente().getNombre(); // Inicializar relación
-                }
-            }
-        });
-        
-        return facturas.stream()
-                .map(this::convertirADTO)
-                .collect(Collectors.toList());
+    public PaginaDTO<FacturaDTO> listarFacturas(long despuesDe, int limite) {
+        // Dos consultas por página: IDs de la página y luego las facturas con pedido, cliente e items
+        List<Long> ids = facturaRepository.findIdsByIdFacturaGreaterThan(despuesDe, PageRequest.ofSize(limite + 1));
+        List<FacturaDTO> resultado = new ArrayList<>(ids.size());
+        if (!ids.isEmpty()) {
+            facturaRepository.findConDetalleByIdFacturaIn(ids).forEach(factura -> resultado.add(convertirADTO(factura)));
+        }
+        return Paginacion.construirPagina(resultado, limite, FacturaDTO::getIdFactura);
     }
 
     @Transactional(readOnly = true)
     public FacturaDTO obtenerFacturaPorId(Long id) {
-        Factura factura = facturaRepository.findById(id)
+        Factura factura = facturaRepository.findConDetalleByIdFactura(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Factura no encontrada con ID: " + id));
-        
-        // Forzar carga de relaciones lazy para evitar LazyInitializationException
-        if (factura.getPedido() != null) {
-            factura.getPedido().getPedidoProductos().size(); // Inicializar colección
-            if (factura.getPedido().getCliente() != null) {
-                factura.getPedido().getCliente().getNombre(); // Inicializar relación
-            }
-        }
-        
         return convertirADTO(factura);
     }
 
-    private String generarNumeroFactura() {
-        // Formato compacto: FAC-YYMMDD-NNNN (máximo 15 caracteres)
-        // Ejemplo: FAC-251123-0001 = 13 caracteres
-        String fecha = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyMMdd"));
-        String prefijo = "FAC-" + fecha + "-";
-        
-        // Contar facturas del día actual
-        long count = facturaRepository.countByNroStartingWith(prefijo);
-        long numero = count + 1;
-        
-        // Formato: FAC-YYMMDD-NNNN (máximo 13 caracteres)
-        return String.format("FAC-%s-%04d", fecha, numero);
-    }
-
-    private FacturaDTO convertirADTO(Factura factura) {
-        // Obtener items del pedido asociado
+    FacturaDTO convertirADTO(Factura factura) {
+        // Obtener items del pedido asociado, por producto: el orden en que llegan depende de la consulta
+        // y el JSON de la factura (y su ETag) tiene que ser siempre el mismo
         List<PedidoItemDTO> items = factura.getPedido().getPedidoProductos().stream()
+                .sorted(Comparator.comparing(pp -> pp.getProducto().getIdProd()))
                 .map(pp -> PedidoItemDTO.builder()
                         .idProd(pp.getProducto().getIdProd())
                         .cantidad(pp.getCantidad())
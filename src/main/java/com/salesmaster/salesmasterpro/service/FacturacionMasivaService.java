@@ -0,0 +1,163 @@
+package com.salesmaster.salesmasterpro.service;
+
+import com.salesmaster.salesmasterpro.dto.FacturacionMasivaDTO;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Factura de una vez todos los pedidos sin factura de un rango de fechas.
+ *
+ * Los pedidos se recorren por ID en lotes; cada lote es una transacción con un bloque de números
+ * reservado y un INSERT en batch JDBC. Un lote confirmado no se vuelve a procesar: si la ejecución
+ * se interrumpe, repetir la misma petición continúa con los pedidos que quedaron sin factura.
+ *
+ * Todas las facturas se numeran con la fecha del día, que admite NUMERO_MAXIMO_DIARIO. Antes de empezar
+ * se comparan los pedidos pendientes con los números que quedan, para no fallar a mitad de camino.
+ * Si igual falla un lote después de confirmar otros (otra facturación gastó los números, un error de
+ * base de datos), se devuelve lo confirmado hasta ahí con {@code completa = false} y el motivo.
+ */
+@Service
+@Timed("salesmaster.servicio")
+@RequiredArgsConstructor
+@Slf4j
+public class FacturacionMasivaService {
+
+    private static final int PEDIDOS_POR_LOTE = 500;
+
+    // Anti-join: solo pedidos del rango que todavía no tienen factura
+    private static final String PEDIDOS_SIN_FACTURA =
+            "SELECT p.id_pedido, p.total FROM salesmaster.pedido p " +
+            "WHERE p.fecha >= :desde AND p.fecha < :hastaExclusive AND p.id_pedido > :despuesDe " +
+            "AND NOT EXISTS (SELECT 1 FROM salesmaster.factura f WHERE f.id_pedido = p.id_pedido) " +
+            "ORDER BY p.id_pedido LIMIT :lote";
+
+    private static final String CONTAR_PENDIENTES =
+            "SELECT count(*) FROM salesmaster.pedido p " +
+            "WHERE p.fecha >= :desde AND p.fecha < :hastaExclusive " +
+            "AND NOT EXISTS (SELECT 1 FROM salesmaster.factura f WHERE f.id_pedido = p.id_pedido)";
+
+    // Si otra petición facturó el pedido mientras tanto, se omite y su número queda sin usar
+    private static final String INSERTAR_FACTURA =
+            "INSERT INTO salesmaster.factura (id_pedido, nro, fecha, total) " +
+            "VALUES (:idPedido, :nro, :fecha, :total) ON CONFLICT (id_pedido) DO NOTHING";
+
+    // Con reWriteBatchedInserts el driver no informa filas por sentencia: se cuentan por número
+    private static final String CONTAR_INSERTADAS =
+            "SELECT count(*) FROM salesmaster.factura WHERE nro BETWEEN :primero AND :ultimo";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final NumeradorFacturas numeradorFacturas;
+
+    public FacturacionMasivaDTO facturarPedidos(LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null) {
+            throw new IllegalArgumentException("Debe indicar las fechas desde y hasta");
+        }
+        if (desde.isAfter(hasta)) {
+            throw new IllegalArgumentException("La fecha desde no puede ser posterior a la fecha hasta");
+        }
+
+        Long pendientes = jdbcTemplate.queryForObject(CONTAR_PENDIENTES, new MapSqlParameterSource()
+                .addValue("desde", desde.atStartOfDay())
+                .addValue("hastaExclusive", hasta.plusDays(1).atStartOfDay()), Long.class);
+        LocalDate hoy = LocalDate.now();
+        long disponibles = numeradorFacturas.disponibles(hoy);
+        if (pendientes > disponibles) {
+            throw new IllegalArgumentException("Hay " + pendientes + " pedidos sin factura en el rango y quedan " +
+                    disponibles + " números de factura para el día " + hoy + " (máximo " +
+                    NumeradorFacturas.NUMERO_MAXIMO_DIARIO + " por día). Facture un rango de fechas más corto");
+        }
+
+        FacturacionMasivaDTO resumen = FacturacionMasivaDTO.builder()
+                .desde(desde)
+                .hasta(hasta)
+                .pendientes(pendientes)
+                .build();
+        long despuesDe = 0;
+        while (true) {
+            long desdeId = despuesDe;
+            Long ultimoId;
+            try {
+                ultimoId = transactionTemplate.execute(status -> facturarLote(desde, hasta, desdeId, resumen));
+            } catch (RuntimeException e) {
+                if (resumen.getLotes() == 0) {
+                    throw e;
+                }
+                // Los lotes anteriores ya están confirmados: se informan en lugar de perderlos en un error
+                log.warn("Facturación masiva {} a {} detenida después de {} lotes ({} facturas)",
+                        desde, hasta, resumen.getLotes(), resumen.getFacturadas(), e);
+                resumen.setError(e.getMessage());
+                return resumen;
+            }
+            if (ultimoId == null) {
+                break;
+            }
+            despuesDe = ultimoId;
+            log.info("Facturación masiva {} a {}: lote {} confirmado, {} de {} facturas hasta el pedido {}",
+                    desde, hasta, resumen.getLotes(), resumen.getFacturadas(), pendientes, despuesDe);
+        }
+        resumen.setCompleta(true);
+        log.info("Facturación masiva {} a {} finalizada: {} facturas en {} lotes",
+                desde, hasta, resumen.getFacturadas(), resumen.getLotes());
+        return resumen;
+    }
+
+    /**
+     * @return el último ID de pedido del lote, o null si no quedan pedidos por facturar
+     */
+    private Long facturarLote(LocalDate desde, LocalDate hasta, long despuesDe, FacturacionMasivaDTO resumen) {
+        List<PedidoPendiente> pedidos = jdbcTemplate.query(PEDIDOS_SIN_FACTURA, new MapSqlParameterSource()
+                        .addValue("desde", desde.atStartOfDay())
+                        .addValue("hastaExclusive", hasta.plusDays(1).atStartOfDay())
+                        .addValue("despuesDe", despuesDe)
+                        .addValue("lote", PEDIDOS_POR_LOTE),
+                (rs, fila) -> new PedidoPendiente(rs.getLong("id_pedido"), rs.getBigDecimal("total")));
+        if (pedidos.isEmpty()) {
+            return null;
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDate hoy = ahora.toLocalDate();
+        // En la transacción del lote: si se revierte, los números vuelven al contador
+        long ultimoNumero = numeradorFacturas.reservar(hoy, pedidos.size());
+        long primerNumero = ultimoNumero - pedidos.size() + 1;
+
+        SqlParameterSource[] filas = new SqlParameterSource[pedidos.size()];
+        for (int i = 0; i < pedidos.size(); i++) {
+            filas[i] = new MapSqlParameterSource()
+                    .addValue("idPedido", pedidos.get(i).idPedido())
+                    .addValue("nro", NumeradorFacturas.formatear(hoy, primerNumero + i))
+                    .addValue("fecha", ahora)
+                    .addValue("total", pedidos.get(i).total());
+        }
+        jdbcTemplate.batchUpdate(INSERTAR_FACTURA, filas);
+
+        String primera = NumeradorFacturas.formatear(hoy, primerNumero);
+        String ultima = NumeradorFacturas.formatear(hoy, ultimoNumero);
+        Long insertadas = jdbcTemplate.queryForObject(CONTAR_INSERTADAS, new MapSqlParameterSource()
+                .addValue("primero", primera)
+                .addValue("ultimo", ultima), Long.class);
+
+        if (resumen.getPrimeraFactura() == null) {
+            resumen.setPrimeraFactura(primera);
+        }
+        resumen.setUltimaFactura(ultima);
+        resumen.setFacturadas(resumen.getFacturadas() + insertadas);
+        resumen.setLotes(resumen.getLotes() + 1);
+        return pedidos.get(pedidos.size() - 1).idPedido();
+    }
+
+    private record PedidoPendiente(long idPedido, BigDecimal total) {
+    }
+}
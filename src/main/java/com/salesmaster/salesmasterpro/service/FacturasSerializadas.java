@@ -0,0 +1,130 @@
+package com.salesmaster.salesmasterpro.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.salesmaster.salesmasterpro.config.CacheConfig;
+import com.salesmaster.salesmasterpro.dto.FacturaDTO;
+import com.salesmaster.salesmasterpro.event.IdsCompactadosEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JSON ya serializado de cada factura, listo para escribirse en la respuesta.
+ *
+ * Una factura emitida no cambia, así que la segunda lectura no pasa por JPA ni por Jackson.
+ * La caché está acotada por bytes y vence a los salesmaster.cache.facturas.ttl (ver CacheConfig).
+ * Lo único que puede cambiar el JSON es renombrar el cliente o un producto, o compactar sus IDs:
+ * en esos casos se vacía completa al confirmar (ver {@link #invalidarAlConfirmar()}).
+ *
+ * Cada vaciado incrementa una generación. Quien lee una factura anota la generación antes de leerla
+ * y no la guarda si cambió mientras tanto, así un JSON leído antes del vaciado no vuelve a la caché.
+ * Una lectura desde una réplica atrasada todavía puede guardar un nombre viejo; ese caso lo acota el vencimiento.
+ */
+@Component
+public class FacturasSerializadas {
+
+    private final FacturaService facturaService;
+    private final ObjectMapper objectMapper;
+    private final Cache cache;
+    private final AtomicLong generacion = new AtomicLong();
+
+    public FacturasSerializadas(FacturaService facturaService, ObjectMapper objectMapper, CacheManager cacheManager) {
+        this.facturaService = facturaService;
+        this.objectMapper = objectMapper;
+        // Se usa la caché de Caffeine directamente: los guardados y vaciados se ordenan con la generación,
+        // no se difieren al confirmar como en el resto de las cachés
+        Cache registrada = cacheManager.getCache(CacheConfig.FACTURAS_JSON);
+        this.cache = registrada instanceof TransactionAwareCacheDecorator decorada ? decorada.getTargetCache() : registrada;
+    }
+
+    public FacturaSerializada obtener(Long idFactura) {
+        FacturaSerializada factura = cache.get(idFactura, FacturaSerializada.class);
+        if (factura != null) {
+            return factura;
+        }
+        long leida = generacion.get();
+        return guardar(facturaService.obtenerFacturaPorId(idFactura), leida);
+    }
+
+    /**
+     * Generación actual; se anota antes de leer una factura que luego se pasa a {@link #guardar(FacturaDTO, long)}.
+     */
+    public long generacion() {
+        return generacion.get();
+    }
+
+    /**
+     * Serializa la factura y la deja en caché si no hubo vaciados desde {@code generacionLeida}; se usa
+     * también al emitirla para que la primera lectura ya la encuentre.
+     */
+    public FacturaSerializada guardar(FacturaDTO factura, long generacionLeida) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(factura);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la factura " + factura.getIdFactura(), e);
+        }
+        FacturaSerializada serializada = new FacturaSerializada(json, etag(json));
+        if (generacion.get() == generacionLeida) {
+            cache.put(factura.getIdFactura(), serializada);
+            // Un vaciado entre la comparación y el put pudo no alcanzar a esta entrada
+            if (generacion.get() != generacionLeida) {
+                cache.evict(factura.getIdFactura());
+            }
+        }
+        return serializada;
+    }
+
+    /**
+     * Vacía la caché cuando se confirme la transacción actual (o ya, si no hay una); lo llaman las
+     * actualizaciones que cambian datos mostrados en las facturas.
+     */
+    public void invalidarAlConfirmar() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidar();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidar();
+            }
+        });
+    }
+
+    @EventListener(condition = "#evento.clientesMovidos() > 0 || #evento.productosMovidos() > 0")
+    public void alCompactarIds(IdsCompactadosEvent evento) {
+        // Los IDs de producto que muestran los items cambiaron
+        invalidarAlConfirmar();
+    }
+
+    // Primero la generación: una lectura en curso que ya guardó la ve cambiada y se quita sola
+    private void invalidar() {
+        generacion.incrementAndGet();
+        cache.clear();
+    }
+
+    // ETag fuerte: depende solo del contenido, así que es el mismo en todas las instancias
+    private static String etag(byte[] json) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + HexFormat.of().formatHex(Arrays.copyOf(hash, 16)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record FacturaSerializada(byte[] json, String etag) {
+    }
+}
@@ -0,0 +1,278 @@
+package com.salesmaster.salesmasterpro.service;
+
+import com.salesmaster.salesmasterpro.dto.ClienteDTO;
+import com.salesmaster.salesmasterpro.dto.ErrorFilaDTO;
+import com.salesmaster.salesmasterpro.dto.ProductoDTO;
+import com.salesmaster.salesmasterpro.dto.ResultadoImportacionDTO;
+import com.salesmaster.salesmasterpro.entity.Cliente;
+import com.salesmaster.salesmasterpro.entity.Producto;
+import com.salesmaster.salesmasterpro.repository.ClienteRepository;
+import com.salesmaster.salesmasterpro.repository.ProductoRepository;
+import com.salesmaster.salesmasterpro.util.Csv;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Alta masiva de clientes y productos desde archivos CSV con encabezado.
+ *
+ * El archivo se lee de a una fila: cada fila se valida con las mismas reglas que el alta individual
+ * y las válidas se guardan en bloques, cada uno en su propia transacción y con INSERTs en batch JDBC.
+ * Una fila rechazada se informa con su número sin impedir que se guarden las demás; un error de formato
+ * del CSV detiene la lectura y se informa en la fila donde ocurrió.
+ */
+@Service
+@Timed("salesmaster.servicio")
+@RequiredArgsConstructor
+@Slf4j
+public class ImportacionService {
+
+    public static final int MAXIMO_ERRORES_INFORMADOS = 1000;
+    private static final int FILAS_POR_TRANSACCION = 500;
+
+    private final ClienteRepository clienteRepository;
+    private final ProductoRepository productoRepository;
+    private final RegistroEmails registroEmails;
+    private final BusquedaProductosService busquedaProductosService;
+    private final ProductosEnCache productosEnCache;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+
+    /**
+     * Columnas: nombre, email.
+     */
+    public ResultadoImportacionDTO importarClientes(InputStream entrada) throws IOException {
+        // Emails del archivo ya aceptados, para rechazar los repetidos dentro del mismo archivo
+        Set<String> emailsDelArchivo = new HashSet<>();
+        return importar(entrada, new String[]{"nombre", "email"},
+                campos -> ClienteDTO.builder().nombre(campos[0]).email(campos[1]).build(),
+                (filas, informe) -> guardarClientes(filas, informe, emailsDelArchivo));
+    }
+
+    /**
+     * Columnas: nombre, precio (con punto decimal).
+     */
+    public ResultadoImportacionDTO importarProductos(InputStream entrada) throws IOException {
+        return importar(entrada, new String[]{"nombre", "precio"},
+                campos -> ProductoDTO.builder().nombre(campos[0]).precio(leerPrecio(campos[1])).build(),
+                (filas, informe) -> guardarBloque(filas, informe, productoRepository,
+                        dto -> Producto.builder().nombre(dto.getNombre()).precio(dto.getPrecio()).build(),
+                        productos -> {
+                            busquedaProductosService.guardarTodosAlConfirmar(productos.stream()
+                                    .map(producto -> ProductoDTO.builder()
+                                            .idProd(producto.getIdProd())
+                                            .nombre(producto.getNombre())
+                                            .precio(producto.getPrecio())
+                                            .build())
+                                    .toList());
+                            // Cada bloque se confirma por separado: las páginas se vacían con cada uno
+                            productosEnCache.vaciarPaginasAlConfirmar();
+                        }));
+    }
+
+    private <T> ResultadoImportacionDTO importar(InputStream entrada, String[] columnas,
+                                                 Function<String[], T> convertir,
+                                                 GuardadoBloque<T> guardar) throws IOException {
+        Csv.Lector lector = new Csv.Lector(new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8)));
+        int[] posiciones = leerEncabezado(lector.leerFila(), columnas);
+
+        Informe informe = new Informe();
+        List<Fila<T>> pendientes = new ArrayList<>(FILAS_POR_TRANSACCION);
+        long numero = 1;
+        while (true) {
+            List<String> valores;
+            numero++;
+            try {
+                valores = lector.leerFila();
+            } catch (IllegalArgumentException e) {
+                informe.filas++;
+                informe.rechazar(numero, "CSV mal formado, se detuvo la lectura: " + e.getMessage());
+                break;
+            }
+            if (valores == null) {
+                break;
+            }
+            if (valores.size() == 1 && valores.get(0).isBlank()) {
+                continue;
+            }
+
+            informe.filas++;
+            String error = null;
+            T datos = null;
+            try {
+                String[] campos = new String[columnas.length];
+                for (int i = 0; i < columnas.length; i++) {
+                    campos[i] = posiciones[i] < valores.size() ? valores.get(posiciones[i]).trim() : "";
+                }
+                datos = convertir.apply(campos);
+                error = validar(datos);
+            } catch (IllegalArgumentException e) {
+                error = e.getMessage();
+            }
+            if (error != null) {
+                informe.rechazar(numero, error);
+                continue;
+            }
+
+            pendientes.add(new Fila<>(numero, datos));
+            if (pendientes.size() == FILAS_POR_TRANSACCION) {
+                guardar.guardar(pendientes, informe);
+                pendientes.clear();
+            }
+        }
+        if (!pendientes.isEmpty()) {
+            guardar.guardar(pendientes, informe);
+        }
+
+        log.info("Importación CSV: {} filas, {} importadas, {} rechazadas", informe.filas, informe.importadas, informe.rechazadas);
+        return ResultadoImportacionDTO.builder()
+                .filas(informe.filas)
+                .importadas(informe.importadas)
+                .rechazadas(informe.rechazadas)
+                .errores(informe.errores)
+                .erroresTruncados(informe.rechazadas > informe.errores.size())
+                .build();
+    }
+
+    private void guardarClientes(List<Fila<ClienteDTO>> filas, Informe informe, Set<String> emailsDelArchivo) {
+        // Los emails ya registrados se buscan con una consulta por bloque
+        Set<String> existentes = new HashSet<>(clienteRepository.findEmailsExistentes(
+                filas.stream().map(fila -> fila.datos().getEmail()).collect(Collectors.toSet())));
+
+        List<Fila<ClienteDTO>> nuevas = new ArrayList<>(filas.size());
+        for (Fila<ClienteDTO> fila : filas) {
+            String email = fila.datos().getEmail();
+            if (existentes.contains(email) || !emailsDelArchivo.add(email)) {
+                informe.rechazar(fila.numero(), "Ya existe un cliente con el email: " + email);
+            } else {
+                nuevas.add(fila);
+            }
+        }
+        guardarBloque(nuevas, informe, clienteRepository,
+                dto -> Cliente.builder().nombre(dto.getNombre()).email(dto.getEmail()).build(),
+                clientes -> clientes.forEach(cliente -> registroEmails.registrar(cliente.getEmail())));
+    }
+
+    private <T, E> void guardarBloque(List<Fila<T>> filas, Informe informe, JpaRepository<E, Long> repositorio,
+                                      Function<T, E> aEntidad, Consumer<List<E>> alGuardar) {
+        if (filas.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> guardarTodas(filas, repositorio, aEntidad, alGuardar));
+            informe.importadas += filas.size();
+        } catch (RuntimeException e) {
+            // Un error de base de datos revierte el bloque completo: se reintenta de a una fila
+            // para guardar las correctas e identificar la que falló
+            log.warn("Falló el bloque de filas [{}, {}], reintentando una por una: {}",
+                    filas.get(0).numero(), filas.get(filas.size() - 1).numero(), e.getMessage());
+            for (Fila<T> fila : filas) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> guardarTodas(List.of(fila), repositorio, aEntidad, alGuardar));
+                    informe.importadas++;
+                } catch (RuntimeException ex) {
+                    informe.rechazar(fila.numero(), "No se pudo guardar la fila: " +
+                            NestedExceptionUtils.getMostSpecificCause(ex).getMessage());
+                }
+            }
+        }
+    }
+
+    // Las entidades se crean dentro de la transacción: si se revierte, el reintento parte de objetos nuevos
+    private static <T, E> void guardarTodas(List<Fila<T>> filas, JpaRepository<E, Long> repositorio,
+                                            Function<T, E> aEntidad, Consumer<List<E>> alGuardar) {
+        List<E> entidades = new ArrayList<>(filas.size());
+        for (Fila<T> fila : filas) {
+            entidades.add(aEntidad.apply(fila.datos()));
+        }
+        // Con IDs de secuencia pooled, el flush envía las filas como INSERTs en batch
+        repositorio.saveAll(entidades);
+        repositorio.flush();
+        // Una sola llamada por bloque: el índice de búsqueda se copia una vez por transacción
+        alGuardar.accept(entidades);
+    }
+
+    private static int[] leerEncabezado(List<String> encabezado, String[] columnas) {
+        if (encabezado == null) {
+            throw new IllegalArgumentException("El archivo está vacío");
+        }
+        List<String> nombres = new ArrayList<>(encabezado.size());
+        for (String nombre : encabezado) {
+            nombres.add(nombre.trim().toLowerCase(Locale.ROOT));
+        }
+        int[] posiciones = new int[columnas.length];
+        for (int i = 0; i < columnas.length; i++) {
+            posiciones[i] = nombres.indexOf(columnas[i]);
+            if (posiciones[i] < 0) {
+                throw new IllegalArgumentException("Falta la columna '" + columnas[i] + "' en el encabezado. " +
+                        "Columnas esperadas: " + String.join(",", columnas));
+            }
+        }
+        return posiciones;
+    }
+
+    private <T> String validar(T datos) {
+        Set<ConstraintViolation<T>> violaciones = validator.validate(datos);
+        if (violaciones.isEmpty()) {
+            return null;
+        }
+        return violaciones.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private static BigDecimal leerPrecio(String texto) {
+        if (texto.isEmpty()) {
+            return null;
+        }
+        try {
+            return new BigDecimal(texto);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("precio: '" + texto + "' no es un número válido");
+        }
+    }
+
+    private record Fila<T>(long numero, T datos) {
+    }
+
+    @FunctionalInterface
+    private interface GuardadoBloque<T> {
+        void guardar(List<Fila<T>> filas, Informe informe);
+    }
+
+    private static class Informe {
+        private long filas;
+        private long importadas;
+        private long rechazadas;
+        private final List<ErrorFilaDTO> errores = new ArrayList<>();
+
+        void rechazar(long fila, String error) {
+            rechazadas++;
+            if (errores.size() < MAXIMO_ERRORES_INFORMADOS) {
+                errores.add(ErrorFilaDTO.builder().fila(fila).error(error).build());
+            }
+        }
+    }
+}
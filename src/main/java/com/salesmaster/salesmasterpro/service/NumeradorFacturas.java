@@ -0,0 +1,185 @@
+package com.salesmaster.salesmasterpro.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Entrega los números de factura FAC-YYMMDD-NNNN sin contar las facturas existentes.
+ *
+ * El contador de cada día vive en la tabla factura_contador. Cada instancia reserva un bloque
+ * de números con un único UPDATE atómico y luego los entrega desde memoria con un AtomicLong.
+ * Dos instancias nunca reciben el mismo bloque; los números de un bloque que no se llegan a usar
+ * (por ejemplo al reiniciar) quedan como huecos en la numeración.
+ *
+ * El UPDATE se ejecuta en la transacción del llamador, con la conexión que ya tiene: reservar no
+ * pide una segunda conexión al pool mientras se retiene la primera. El bloqueo de la fila del día
+ * dura hasta que esa transacción termina, y si se revierte el contador vuelve atrás. Por eso el
+ * resto del bloque se entrega recién cuando se confirma; mientras tanto, las demás transacciones
+ * que se quedan sin números reservan de a uno para no gastar un bloque cada una.
+ */
+@Component
+public class NumeradorFacturas {
+
+    public static final long NUMERO_MAXIMO_DIARIO = 9999;
+
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("yyMMdd");
+
+    private static final String INCREMENTAR =
+            "UPDATE salesmaster.factura_contador SET ultimo = ultimo + :cantidad " +
+            "WHERE fecha = :fecha RETURNING ultimo";
+
+    // Primera reserva del día: continúa después de las facturas que ya tengan ese prefijo
+    // (las emitidas antes de existir el contador). Si otra instancia creó la fila en paralelo,
+    // ON CONFLICT suma sobre la suya
+    private static final String INICIALIZAR =
+            "INSERT INTO salesmaster.factura_contador (fecha, ultimo) " +
+            "SELECT :fecha, COALESCE(MAX(CAST(SUBSTRING(f.nro FROM 12) AS BIGINT)), 0) + :cantidad " +
+            "FROM salesmaster.factura f WHERE f.nro LIKE :prefijo " +
+            "ON CONFLICT (fecha) DO UPDATE SET ultimo = salesmaster.factura_contador.ultimo + :cantidad " +
+            "RETURNING ultimo";
+
+    // Lo mismo que usaría la primera reserva del día si todavía no hay contador
+    private static final String ULTIMO_RESERVADO =
+            "SELECT COALESCE((SELECT c.ultimo FROM salesmaster.factura_contador c WHERE c.fecha = :fecha), " +
+            "(SELECT MAX(CAST(SUBSTRING(f.nro FROM 12) AS BIGINT)) FROM salesmaster.factura f WHERE f.nro LIKE :prefijo), 0)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+    private final int tamanoBloque;
+    private final AtomicBoolean reservandoBloque = new AtomicBoolean();
+
+    private volatile Bloque bloque;
+
+    public NumeradorFacturas(PlatformTransactionManager transactionManager,
+                             @Value("${salesmaster.facturas.bloque-numeros:20}") int tamanoBloque) {
+        // REQUIRED: se une a la transacción del llamador; sin una, la reserva se confirma sola
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanoBloque = tamanoBloque;
+    }
+
+    public String siguienteNumero() {
+        LocalDate hoy = LocalDate.now();
+        while (true) {
+            Bloque actual = bloque;
+            if (actual != null && actual.fecha().equals(hoy)) {
+                long numero = actual.siguiente().getAndIncrement();
+                if (numero <= actual.fin()) {
+                    return formatear(hoy, numero);
+                }
+            }
+            // Otra transacción ya reservó un bloque que todavía no confirmó
+            if (!reservandoBloque.compareAndSet(false, true)) {
+                return formatear(hoy, reservar(hoy, 1));
+            }
+            if (bloque != actual) {
+                // Se publicó un bloque nuevo entre la lectura y la marca: se usa ese
+                reservandoBloque.set(false);
+                continue;
+            }
+            long fin;
+            try {
+                fin = reservar(hoy, tamanoBloque);
+            } catch (RuntimeException e) {
+                reservandoBloque.set(false);
+                throw e;
+            }
+            long primero = fin - tamanoBloque + 1;
+            publicarAlConfirmar(new Bloque(hoy, primero + 1, fin));
+            return formatear(hoy, primero);
+        }
+    }
+
+    /**
+     * Reserva {@code cantidad} números consecutivos del día, independientes del bloque en memoria.
+     * Se confirman o revierten con la transacción del llamador.
+     *
+     * @return el último número reservado; el primero es {@code resultado - cantidad + 1}
+     */
+    public long reservar(LocalDate fecha, int cantidad) {
+        Long ultimo = transactionTemplate.execute(status -> incrementar(fecha, cantidad));
+        if (ultimo - cantidad + 1 > NUMERO_MAXIMO_DIARIO) {
+            throw new IllegalStateException("Se agotó la numeración de facturas del día " + fecha);
+        }
+        return ultimo;
+    }
+
+    /**
+     * Números del día que todavía no reservó ninguna instancia. Es una lectura sin bloqueo: otra
+     * transacción puede reservar algunos antes de que el llamador los use.
+     */
+    public long disponibles(LocalDate fecha) {
+        Number ultimo = (Number) entityManager.createNativeQuery(ULTIMO_RESERVADO)
+                .setParameter("fecha", fecha)
+                .setParameter("prefijo", prefijo(fecha) + "%")
+                .getSingleResult();
+        return Math.max(0, NUMERO_MAXIMO_DIARIO - ultimo.longValue());
+    }
+
+    /**
+     * Suma {@code cantidad} al contador del día, creándolo si hace falta, y devuelve el nuevo valor.
+     */
+    protected long incrementar(LocalDate fecha, int cantidad) {
+        List<?> actualizado = entityManager.createNativeQuery(INCREMENTAR)
+                .setParameter("cantidad", cantidad)
+                .setParameter("fecha", fecha)
+                .getResultList();
+        if (!actualizado.isEmpty()) {
+            return ((Number) actualizado.get(0)).longValue();
+        }
+        return ((Number) entityManager.createNativeQuery(INICIALIZAR)
+                .setParameter("fecha", fecha)
+                .setParameter("cantidad", cantidad)
+                .setParameter("prefijo", prefijo(fecha) + "%")
+                .getSingleResult()).longValue();
+    }
+
+    // Si la transacción se revierte, el contador también: el resto del bloque se descarta
+    private void publicarAlConfirmar(Bloque nuevo) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bloque = nuevo;
+            reservandoBloque.set(false);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    bloque = nuevo;
+                }
+                reservandoBloque.set(false);
+            }
+        });
+    }
+
+    public static String formatear(LocalDate fecha, long numero) {
+        if (numero > NUMERO_MAXIMO_DIARIO) {
+            throw new IllegalStateException("Se agotó la numeración de facturas del día " + fecha);
+        }
+        // Formato: FAC-YYMMDD-NNNN (15 caracteres, el largo de la columna nro)
+        return String.format("%s%04d", prefijo(fecha), numero);
+    }
+
+    private static String prefijo(LocalDate fecha) {
+        return "FAC-" + fecha.format(FORMATO_FECHA) + "-";
+    }
+
+    private record Bloque(LocalDate fecha, AtomicLong siguiente, long fin) {
+        Bloque(LocalDate fecha, long primero, long fin) {
+            this(fecha, new AtomicLong(primero), fin);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.salesmaster.salesmasterpro.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.salesmaster.salesmasterpro.dto.PedidoDTO;
+import com.salesmaster.salesmasterpro.dto.PedidoItemDTO;
+import com.salesmaster.salesmasterpro.dto.PedidoLineaDTO;
+import com.salesmaster.salesmasterpro.repository.PedidoRepository;
+import com.salesmaster.salesmasterpro.util.Csv;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exportación completa de pedidos con memoria constante: las filas se leen con un cursor
+ * JDBC como proyecciones (no se crean entidades, así que el contexto de persistencia no crece)
+ * y cada pedido se escribe en cuanto se completan sus items.
+ */
+@Service
+@Timed("salesmaster.servicio")
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class PedidoExportacionService {
+
+    public enum Formato {
+        NDJSON, CSV
+    }
+
+    private static final int FILAS_POR_FLUSH = 500;
+
+    private final PedidoRepository pedidoRepository;
+    private final ObjectMapper objectMapper;
+
+    public void exportar(OutputStream out, Formato formato) throws IOException {
+        try (Stream<PedidoLineaDTO> lineas = pedidoRepository.streamLineas()) {
+            if (formato == Formato.CSV) {
+                exportarCsv(lineas.iterator(), out);
+            } else {
+                exportarNdjson(lineas.iterator(), out);
+            }
+        }
+    }
+
+    private void exportarNdjson(Iterator<PedidoLineaDTO> lineas, OutputStream out) throws IOException {
+        // El flush lo controlamos nosotros cada FILAS_POR_FLUSH pedidos, no después de cada uno
+        ObjectWriter pedidoWriter = objectMapper.writerFor(PedidoDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.setRootValueSeparator(new SerializedString("\n"));
+
+        PedidoDTO actual = null;
+        int escritos = 0;
+        while (lineas.hasNext()) {
+            PedidoLineaDTO linea = lineas.next();
+            if (actual == null || !actual.getIdPedido().equals(linea.getIdPedido())) {
+                if (actual != null) {
+                    pedidoWriter.writeValue(generator, actual);
+                    if (++escritos % FILAS_POR_FLUSH == 0) {
+                        generator.flush();
+                    }
+                }
+                actual = PedidoDTO.builder()
+                        .idPedido(linea.getIdPedido())
+                        .idCliente(linea.getIdCliente())
+                        .nombreCliente(linea.getNombreCliente())
+                        .fecha(linea.getFecha())
+                        .total(linea.getTotal())
+                        .items(new ArrayList<>())
+                        .build();
+            }
+            if (linea.getIdProd() != null) {
+                actual.getItems().add(PedidoItemDTO.builder()
+                        .idProd(linea.getIdProd())
+                        .cantidad(linea.getCantidad())
+                        .subtotal(linea.getSubtotal())
+                        .nombreProducto(linea.getNombreProducto())
+                        .build());
+            }
+        }
+        if (actual != null) {
+            pedidoWriter.writeValue(generator, actual);
+            generator.writeRaw('\n');
+        }
+        generator.flush();
+    }
+
+    private void exportarCsv(Iterator<PedidoLineaDTO> lineas, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        Csv.escribirFila(writer, "id_pedido", "fecha", "id_cliente", "nombre_cliente", "total",
+                "id_prod", "nombre_producto", "cantidad", "subtotal");
+
+        int escritas = 0;
+        while (lineas.hasNext()) {
+            PedidoLineaDTO linea = lineas.next();
+            Csv.escribirFila(writer, linea.getIdPedido(), Csv.fechaHora(linea.getFecha()), linea.getIdCliente(),
+                    linea.getNombreCliente(), linea.getTotal(), linea.getIdProd(), linea.getNombreProducto(),
+                    linea.getCantidad(), linea.getSubtotal());
+            if (++escritas % FILAS_POR_FLUSH == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+    }
+}
@@ -0,0 +1,185 @@
+package com.salesmaster.salesmasterpro.service;
+
+import com.salesmaster.salesmasterpro.dto.PedidoDTO;
+import com.salesmaster.salesmasterpro.dto.PedidoItemDTO;
+import com.salesmaster.salesmasterpro.dto.ProductoDTO;
+import com.salesmaster.salesmasterpro.dto.ResultadoItemLoteDTO;
+import com.salesmaster.salesmasterpro.dto.ResultadoLoteDTO;
+import com.salesmaster.salesmasterpro.entity.Cliente;
+import com.salesmaster.salesmasterpro.entity.Pedido;
+import com.salesmaster.salesmasterpro.event.PedidosCreadosEvent;
+import com.salesmaster.salesmasterpro.repository.ClienteRepository;
+import com.salesmaster.salesmasterpro.repository.PedidoRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Alta masiva de pedidos (sincronización de terminales POS).
+ * Los pedidos se guardan en bloques, cada uno en su propia transacción y con INSERTs en batch JDBC;
+ * un pedido inválido se informa en su posición sin impedir que se guarden los demás.
+ */
+@Service
+@Timed("salesmaster.servicio")
+@RequiredArgsConstructor
+@Slf4j
+public class PedidoLoteService {
+
+    public static final int MAXIMO_PEDIDOS_POR_LOTE = 1000;
+    private static final int PEDIDOS_POR_TRANSACCION = 100;
+
+    private final PedidoService pedidoService;
+    private final PedidoRepository pedidoRepository;
+    private final ClienteRepository clienteRepository;
+    private final CatalogoProductos catalogoProductos;
+    private final ResumenVentasService resumenVentasService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+
+    public ResultadoLoteDTO crearPedidos(List<PedidoDTO> pedidos) {
+        if (pedidos == null || pedidos.isEmpty()) {
+            throw new IllegalArgumentException("El lote debe contener al menos un pedido");
+        }
+        if (pedidos.size() > MAXIMO_PEDIDOS_POR_LOTE) {
+            throw new IllegalArgumentException("El lote no puede superar los " + MAXIMO_PEDIDOS_POR_LOTE +
+                    " pedidos. Cantidad actual: " + pedidos.size());
+        }
+
+        ResultadoItemLoteDTO[] resultados = new ResultadoItemLoteDTO[pedidos.size()];
+        for (int inicio = 0; inicio < pedidos.size(); inicio += PEDIDOS_POR_TRANSACCION) {
+            procesarBloque(pedidos, inicio, Math.min(inicio + PEDIDOS_POR_TRANSACCION, pedidos.size()), resultados);
+        }
+
+        int exitosos = (int) Arrays.stream(resultados).filter(r -> r.getError() == null).count();
+        return ResultadoLoteDTO.builder()
+                .total(pedidos.size())
+                .exitosos(exitosos)
+                .fallidos(pedidos.size() - exitosos)
+                .resultados(Arrays.asList(resultados))
+                .build();
+    }
+
+    private void procesarBloque(List<PedidoDTO> pedidos, int inicio, int fin, ResultadoItemLoteDTO[] resultados) {
+        // Los pedidos que no pasan la validación no llegan a la transacción
+        List<Integer> validos = new ArrayList<>();
+        for (int i = inicio; i < fin; i++) {
+            String error = validar(pedidos.get(i));
+            if (error != null) {
+                resultados[i] = fallido(i, error);
+            } else {
+                validos.add(i);
+            }
+        }
+        if (validos.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> guardar(pedidos, validos, resultados));
+        } catch (RuntimeException e) {
+            // Un error de base de datos revierte el bloque completo: se reintenta de a un pedido
+            // para guardar los correctos e identificar el que falló
+            log.warn("Falló el bloque de pedidos [{}, {}), reintentando uno por uno: {}", inicio, fin, e.getMessage());
+            for (Integer indice : validos) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> guardar(pedidos, List.of(indice), resultados));
+                } catch (RuntimeException ex) {
+                    resultados[indice] = fallido(indice, "No se pudo guardar el pedido: " +
+                            NestedExceptionUtils.getMostSpecificCause(ex).getMessage());
+                }
+            }
+        }
+    }
+
+    private String validar(PedidoDTO pedidoDTO) {
+        if (pedidoDTO == null) {
+            return "El pedido no puede ser nulo";
+        }
+        Set<ConstraintViolation<PedidoDTO>> violaciones = validator.validate(pedidoDTO);
+        if (!violaciones.isEmpty()) {
+            return violaciones.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        try {
+            pedidoService.validarLimiteArticulos(pedidoDTO);
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    private void guardar(List<PedidoDTO> pedidos, List<Integer> indices, ResultadoItemLoteDTO[] resultados) {
+        // Clientes y productos de todo el bloque se resuelven con una consulta cada uno
+        // (los productos, solo los que no estén en el catálogo en caché)
+        Set<Long> idsClientes = new HashSet<>();
+        Set<Long> idsProductos = new HashSet<>();
+        for (Integer i : indices) {
+            idsClientes.add(pedidos.get(i).getIdCliente());
+            pedidos.get(i).getItems().forEach(item -> idsProductos.add(item.getIdProd()));
+        }
+        Map<Long, Cliente> clientes = clienteRepository.findAllById(idsClientes).stream()
+                .collect(Collectors.toMap(Cliente::getIdCliente, Function.identity()));
+        Map<Long, ProductoDTO> productos = catalogoProductos.obtener(idsProductos);
+
+        List<Pedido> nuevos = new ArrayList<>(indices.size());
+        List<Integer> indicesNuevos = new ArrayList<>(indices.size());
+        for (Integer i : indices) {
+            PedidoDTO pedidoDTO = pedidos.get(i);
+            Cliente cliente = clientes.get(pedidoDTO.getIdCliente());
+            if (cliente == null) {
+                resultados[i] = fallido(i, "Cliente no encontrado con ID: " + pedidoDTO.getIdCliente());
+                continue;
+            }
+            List<Long> faltantes = pedidoDTO.getItems().stream()
+                    .map(PedidoItemDTO::getIdProd)
+                    .filter(idProd -> !productos.containsKey(idProd))
+                    .distinct()
+                    .collect(Collectors.toList());
+            if (!faltantes.isEmpty()) {
+                resultados[i] = fallido(i, "Productos no encontrados con ID: " + faltantes);
+                continue;
+            }
+            nuevos.add(pedidoService.construirPedido(cliente, pedidoService.agruparCantidades(pedidoDTO), productos));
+            indicesNuevos.add(i);
+        }
+
+        // Con IDs de secuencia pooled, el flush envía pedidos e items como INSERTs en batch
+        pedidoRepository.saveAll(nuevos);
+        pedidoRepository.flush();
+        resumenVentasService.registrarPedidos(nuevos);
+        eventPublisher.publishEvent(PedidosCreadosEvent.de(nuevos));
+
+        for (int k = 0; k < nuevos.size(); k++) {
+            int indice = indicesNuevos.get(k);
+            resultados[indice] = ResultadoItemLoteDTO.builder()
+                    .indice(indice)
+                    .id(nuevos.get(k).getIdPedido())
+                    .build();
+        }
+    }
+
+    private ResultadoItemLoteDTO fallido(int indice, String error) {
+        return ResultadoItemLoteDTO.builder()
+                .indice(indice)
+                .error(error)
+                .build();
+    }
+}
@@ -1,23 +1,36 @@
 package com.salesmaster.salesmasterpro.service;
 
+import com.salesmaster.salesmasterpro.dto.PaginaDTO;
 import com.salesmaster.salesmasterpro.dto.PedidoDTO;
 import com.salesmaster.salesmasterpro.dto.PedidoItemDTO;
+import com.salesmaster.salesmasterpro.dto.ProductoDTO;
 import com.salesmaster.salesmasterpro.entity.*;
+import com.salesmaster.salesmasterpro.event.PedidosCreadosEvent;
 import com.salesmaster.salesmasterpro.exception.ResourceNotFoundException;
 import com.salesmaster.salesmasterpro.repository.ClienteRepository;
 import com.salesmaster.salesmasterpro.repository.PedidoProductoRepository;
 import com.salesmaster.salesmasterpro.repository.PedidoRepository;
 import com.salesmaster.salesmasterpro.repository.ProductoRepository;
+import com.salesmaster.salesmasterpro.util.Paginacion;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
+@Timed("salesmaster.servicio")
 @RequiredArgsConstructor
 @Transactional
 public class PedidoService {
@@ -26,8 +39,29 @@ public class PedidoService {
     private final ClienteRepository clienteRepository;
     private final ProductoRepository productoRepository;
     private final PedidoProductoRepository pedidoProductoRepository;
+    private final CatalogoProductos catalogoProductos;
+    private final ResumenVentasService resumenVentasService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public PedidoDTO crearPedido(PedidoDTO pedidoDTO) {
+        validarLimiteArticulos(pedidoDTO);
+
+        Cliente cliente = clienteRepository.findById(pedidoDTO.getIdCliente())
+                .orElseThrow(() -> new ResourceNotFoundException("Cliente no encontrado con ID: " + pedidoDTO.getIdCliente()));
+
+        Map<Long, Integer> cantidades = agruparCantidades(pedidoDTO);
+        Map<Long, ProductoDTO> productos = resolverProductos(cantidades.keySet());
+
+        Pedido pedido = construirPedido(cliente, cantidades, productos);
+        Pedido pedidoGuardado = pedidoRepository.save(pedido);
+        resumenVentasService.registrarPedidos(List.of(pedidoGuardado));
+        eventPublisher.publishEvent(PedidosCreadosEvent.de(List.of(pedidoGuardado)));
+
+        // Los productos del pedido son referencias sin cargar: el nombre sale del catálogo
+        return convertirADTO(pedidoGuardado, pp -> productos.get(pp.getId().getIdProd()).getNombre());
+    }
+
+    void validarLimiteArticulos(PedidoDTO pedidoDTO) {
         // Validación de límite de items por pedido (máximo 100 unidades)
         int totalItems = pedidoDTO.getItems().stream()
                 .mapToInt(item -> item.getCantidad())
@@ -36,10 +70,42 @@ public class PedidoService {
         if (totalItems > 100) {
             throw new IllegalArgumentException("El pedido no puede superar los 100 artículos en total. Cantidad actual: " + totalItems);
         }
+    }
 
-        Cliente cliente = clienteRepository.findById(pedidoDTO.getIdCliente())
-                .orElseThrow(() -> new ResourceNotFoundException("Cliente no encontrado con ID: " + pedidoDTO.getIdCliente()));
+    /**
+     * Cantidad total por producto, en el orden en que aparece cada producto por primera vez.
+     * Las líneas repetidas se suman porque el item se identifica por (pedido, producto).
+     */
+    Map<Long, Integer> agruparCantidades(PedidoDTO pedidoDTO) {
+        Map<Long, Integer> cantidades = new LinkedHashMap<>();
+        for (PedidoItemDTO itemDTO : pedidoDTO.getItems()) {
+            cantidades.merge(itemDTO.getIdProd(), itemDTO.getCantidad(), Integer::sum);
+        }
+        return cantidades;
+    }
+
+    /**
+     * Obtiene nombre y precio de todos los productos del pedido desde el catálogo en caché
+     * (a lo sumo una consulta) e informa juntos los que no existen.
+     */
+    private Map<Long, ProductoDTO> resolverProductos(Collection<Long> idsProductos) {
+        Map<Long, ProductoDTO> productos = catalogoProductos.obtener(idsProductos);
+
+        if (productos.size() < idsProductos.size()) {
+            List<Long> faltantes = idsProductos.stream()
+                    .filter(idProd -> !productos.containsKey(idProd))
+                    .collect(Collectors.toList());
+            throw new ResourceNotFoundException("Productos no encontrados con ID: " + faltantes);
+        }
+        return productos;
+    }
 
+    /**
+     * Arma el pedido con sus items y total, sin guardarlo. Compartido con la carga en lote,
+     * que resuelve los productos de varios pedidos a la vez. Los precios vienen del catálogo;
+     * cada item apunta al producto con una referencia que no se lee de la base de datos.
+     */
+    Pedido construirPedido(Cliente cliente, Map<Long, Integer> cantidades, Map<Long, ProductoDTO> productos) {
         Pedido pedido = Pedido.builder()
                 .cliente(cliente)
                 .fecha(LocalDateTime.now())
@@ -48,11 +114,11 @@ public class PedidoService {
 
         BigDecimal totalPedido = BigDecimal.ZERO;
 
-        for (PedidoItemDTO itemDTO : pedidoDTO.getItems()) {
-            Producto producto = productoRepository.findById(itemDTO.getIdProd())
-                    .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + itemDTO.getIdProd()));
+        for (Map.Entry<Long, Integer> item : cantidades.entrySet()) {
+            ProductoDTO producto = productos.get(item.getKey());
+            int cantidad = item.getValue();
 
-            BigDecimal subtotal = producto.getPrecio().multiply(BigDecimal.valueOf(itemDTO.getCantidad()));
+            BigDecimal subtotal = producto.getPrecio().multiply(BigDecimal.valueOf(cantidad));
             totalPedido = totalPedido.add(subtotal);
 
             // Crear PedidoProductoId con idProd, idPedido se establecerá automáticamente por @MapsId
@@ -63,8 +129,8 @@ public class PedidoService {
             PedidoProducto pedidoProducto = PedidoProducto.builder()
                     .id(pedidoProductoId)
                     .pedido(pedido)
-                    .producto(producto)
-                    .cantidad(itemDTO.getCantidad())
+                    .producto(productoRepository.getReferenceById(producto.getIdProd()))
+                    .cantidad(cantidad)
                     .subtotal(subtotal)
                     .build();
 
@@ -72,48 +138,39 @@ public class PedidoService {
         }
 
         pedido.setTotal(totalPedido);
-        Pedido pedidoGuardado = pedidoRepository.save(pedido);
-
-        return convertirADTO(pedidoGuardado);
+        return pedido;
     }
 
     @Transactional(readOnly = true)
-    public List<PedidoDTO> listarPedidos() {
-        List<Pedido> pedidos = pedidoRepository.findAll();
-        
-        // Forzar carga de relaciones lazy para evitar LazyInitializationException
-        pedidos.forEach(pedido -> {
-            if (pedido.getCliente() != null) {
-                pedido.getCliente().getNombre(); // Inicializar relación
-            }
-            if (pedido.getPedidoProductos() != null) {
-                pedido.getPedidoProductos().forEach(pp -> {
-                    if (pp.getProducto() != null) {
-                        pp.getProducto().getNombre(); // Inicializar relación
-                    }
-                });
-            }
-        });
-        
-        return pedidos.stream()
-                .map(this::convertirADTO)
-                .collect(Collectors.toList());
+    public PaginaDTO<PedidoDTO> listarPedidos(long despuesDe, int limite) {
+        // Dos consultas por página sin importar la cantidad de pedidos o items:
+        // primero los IDs de la página y luego los pedidos con todas sus relaciones
+        List<Long> ids = pedidoRepository.findIdsByIdPedidoGreaterThan(despuesDe, PageRequest.ofSize(limite + 1));
+        List<PedidoDTO> resultado = new ArrayList<>(ids.size());
+        if (!ids.isEmpty()) {
+            pedidoRepository.findConDetalleByIdPedidoIn(ids).forEach(pedido -> resultado.add(convertirADTO(pedido)));
+        }
+        return Paginacion.construirPagina(resultado, limite, PedidoDTO::getIdPedido);
     }
 
     @Transactional(readOnly = true)
     public PedidoDTO obtenerPedidoPorId(Long id) {
-        Pedido pedido = pedidoRepository.findById(id)
+        Pedido pedido = pedidoRepository.findConDetalleByIdPedido(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Pedido no encontrado con ID: " + id));
         return convertirADTO(pedido);
     }
 
-    private PedidoDTO convertirADTO(Pedido pedido) {
+    PedidoDTO convertirADTO(Pedido pedido) {
+        return convertirADTO(pedido, pp -> pp.getProducto().getNombre());
+    }
+
+    private PedidoDTO convertirADTO(Pedido pedido, Function<PedidoProducto, String> nombreProducto) {
         List<PedidoItemDTO> items = pedido.getPedidoProductos().stream()
                 .map(pp -> PedidoItemDTO.builder()
                         .idProd(pp.getProducto().getIdProd())
                         .cantidad(pp.getCantidad())
                         .subtotal(pp.getSubtotal())
-                        .nombreProducto(pp.getProducto().getNombre())
+                        .nombreProducto(nombreProducto.apply(pp))
                         .build())
                 .collect(Collectors.toList());
 
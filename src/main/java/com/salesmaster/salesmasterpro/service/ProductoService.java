@@ -1,27 +1,37 @@
 package com.salesmaster.salesmasterpro.service;
 
+import com.salesmaster.salesmasterpro.dto.PaginaDTO;
 import com.salesmaster.salesmasterpro.dto.ProductoDTO;
 import com.salesmaster.salesmasterpro.entity.Producto;
 import com.salesmaster.salesmasterpro.exception.ResourceNotFoundException;
+import com.salesmaster.salesmasterpro.exception.VersionDesactualizadaException;
 import com.salesmaster.salesmasterpro.repository.ProductoRepository;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
+import com.salesmaster.salesmasterpro.util.Paginacion;
+import com.salesmaster.salesmasterpro.util.VersionEtag;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
+@Timed("salesmaster.servicio")
 @RequiredArgsConstructor
 @Transactional
 public class ProductoService {
 
     private final ProductoRepository productoRepository;
-    
-    @PersistenceContext
-    private EntityManager entityManager;
+    private final BusquedaProductosService busquedaProductosService;
+    private final FacturasSerializadas facturasSerializadas;
+    private final CatalogoProductos catalogoProductos;
+    private final ProductosEnCache productosEnCache;
+    private final TransactionTemplate transactionTemplate;
 
     public ProductoDTO crearProducto(ProductoDTO productoDTO) {
         Producto producto = Producto.builder()
@@ -30,48 +40,60 @@ public class ProductoService {
                 .build();
 
         Producto productoGuardado = productoRepository.save(producto);
-        Long idOriginal = productoGuardado.getIdProd();
-        
-        // Reordenar los IDs después de crear para mantener secuencia (1, 2, 3, ...)
-        reordenarIdsProductos();
-        
-        // Recargar el producto recién creado
-        // Buscar por nombre y precio ya que el ID pudo haber cambiado
-        Producto productoReordenado = productoRepository.findAll().stream()
-                .filter(p -> p.getNombre().equals(productoDTO.getNombre()) && 
-                            p.getPrecio().equals(productoDTO.getPrecio()))
-                .findFirst()
-                .orElse(productoRepository.findById(idOriginal)
-                        .orElse(productoGuardado));
-        
-        return convertirADTO(productoReordenado);
+        ProductoDTO resultado = convertirADTO(productoGuardado);
+        busquedaProductosService.guardarAlConfirmar(resultado);
+        productosEnCache.vaciarPaginasAlConfirmar();
+        return resultado;
     }
 
-    public ProductoDTO actualizarProducto(Long id, ProductoDTO productoDTO) {
+    /**
+     * Al confirmar quita el producto de ProductosEnCache y del catálogo de pedidos, y vacía el JSON de
+     * facturas en caché, porque muestran su nombre.
+     *
+     * @param versionEsperada versión recibida en If-Match; {@code null} actualiza sobre la versión que se lea.
+     *                        Si otra transacción guarda el producto antes, falla con
+     *                        {@link VersionDesactualizadaException} o, sin versión esperada, con
+     *                        {@link ObjectOptimisticLockingFailureException} (ver ReintentoConflictos).
+     */
+    public ProductoDTO actualizarProducto(Long id, ProductoDTO productoDTO, Long versionEsperada) {
         Producto producto = productoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + id));
+        VersionEtag.verificar(versionEsperada, producto.getVersion(), "producto");
 
         producto.setNombre(productoDTO.getNombre());
         producto.setPrecio(productoDTO.getPrecio());
 
-        Producto productoActualizado = productoRepository.save(producto);
-        return convertirADTO(productoActualizado);
+        Producto productoActualizado = guardar(producto, versionEsperada);
+        ProductoDTO resultado = convertirADTO(productoActualizado);
+        busquedaProductosService.guardarAlConfirmar(resultado);
+        productosEnCache.invalidarAlConfirmar(id);
+        catalogoProductos.invalidarAlConfirmar(id);
+        facturasSerializadas.invalidarAlConfirmar();
+        return resultado;
     }
 
-    @Transactional(readOnly = true)
-    public List<ProductoDTO> listarProductos() {
-        return productoRepository.findAll().stream()
-                .map(this::convertirADTO)
-                .collect(Collectors.toList());
+    /**
+     * Las páginas y los productos salen de caché sin abrir una transacción (ver ProductosEnCache). Lo que
+     * falta se lee del primario y no de una réplica: llevan la versión, y una réplica atrasada dejaría en
+     * caché la anterior hasta que venza.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public PaginaDTO<ProductoDTO> listarProductos(long despuesDe, int limite) {
+        return productosEnCache.obtenerPagina(despuesDe, limite,
+                () -> transactionTemplate.execute(estado -> cargarPagina(despuesDe, limite)));
     }
 
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public ProductoDTO obtenerProductoPorId(Long id) {
-        Producto producto = productoRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + id));
-        return convertirADTO(producto);
+        return productosEnCache.obtener(id, () -> transactionTemplate.execute(estado -> {
+            Producto producto = productoRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + id));
+            return convertirADTO(producto);
+        }));
     }
 
+    // Eliminar corre el número de visualización de los productos posteriores,
+    // por eso se descartan todas las entradas con número y solo la del catálogo de precios
     public void eliminarProducto(Long id) {
         Producto producto = productoRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Producto no encontrado con ID: " + id));
@@ -83,132 +105,52 @@ public class ProductoService {
             );
         }
         
-        // Eliminar el producto
         productoRepository.deleteById(id);
-        
-        // Reordenar los IDs de los productos restantes
-        reordenarIdsProductos();
+        busquedaProductosService.eliminarAlConfirmar(id);
+        productosEnCache.vaciarAlConfirmar();
+        catalogoProductos.invalidarAlConfirmar(id);
     }
-    
-    /**
-     * Reordena los IDs de los productos para que sean secuenciales (1, 2, 3, ...)
-     * y actualiza las referencias en la tabla de pedido_producto usando SQL nativo
-     */
-    private void reordenarIdsProductos() {
-        // Obtener todos los productos ordenados por ID actual
-        List<Producto> productos = productoRepository.findAll().stream()
-                .sorted((p1, p2) -> Long.compare(p1.getIdProd(), p2.getIdProd()))
-                .collect(Collectors.toList());
-        
-        if (productos.isEmpty()) {
-            // Resetear la secuencia si no hay productos
-            entityManager.createNativeQuery(
-                "SELECT setval('salesmaster.producto_id_prod_seq', 0, true)"
-            ).getSingleResult();
-            return;
+
+    private PaginaDTO<ProductoDTO> cargarPagina(long despuesDe, int limite) {
+        List<Producto> productos = productoRepository.findByIdProdGreaterThanOrderByIdProdAsc(despuesDe, Limit.of(limite + 1));
+
+        // El número de visualización continúa desde la cantidad de productos anteriores al cursor
+        long numero = despuesDe > 0 ? productoRepository.countByIdProdLessThanEqual(despuesDe) : 0;
+        List<ProductoDTO> resultado = new ArrayList<>(productos.size());
+        for (Producto producto : productos) {
+            resultado.add(convertirADTO(producto, ++numero));
         }
-        
-        // Usar IDs temporales altos para evitar conflictos
-        Long idTemporalBase = 1000000L;
-        
+        return Paginacion.construirPagina(resultado, limite, ProductoDTO::getIdProd);
+    }
+
+    // El UPDATE se envía acá para que un conflicto de versión se detecte dentro del método y no al confirmar
+    private Producto guardar(Producto producto, Long versionEsperada) {
         try {
-            // Paso 1: Eliminar temporalmente la foreign key constraint
-            entityManager.createNativeQuery(
-                "ALTER TABLE salesmaster.pedido_producto DROP CONSTRAINT IF EXISTS pedido_producto_id_prod_fkey"
-            ).executeUpdate();
-            
-            // Paso 2: Asignar IDs temporales a todos los productos
-            for (Producto producto : productos) {
-                Long idAntiguo = producto.getIdProd();
-                Long idTemporal = idTemporalBase + idAntiguo;
-                
-                // Actualizar ID del producto
-                entityManager.createNativeQuery(
-                    "UPDATE salesmaster.producto SET id_prod = :idTemporal WHERE id_prod = :idAntiguo"
-                )
-                .setParameter("idTemporal", idTemporal)
-                .setParameter("idAntiguo", idAntiguo)
-                .executeUpdate();
-                
-                // Actualizar referencias en pedido_producto
-                entityManager.createNativeQuery(
-                    "UPDATE salesmaster.pedido_producto SET id_prod = :idTemporal WHERE id_prod = :idAntiguo"
-                )
-                .setParameter("idTemporal", idTemporal)
-                .setParameter("idAntiguo", idAntiguo)
-                .executeUpdate();
+            return productoRepository.saveAndFlush(producto);
+        } catch (ObjectOptimisticLockingFailureException e) {
+            if (versionEsperada != null) {
+                throw new VersionDesactualizadaException("El producto fue modificado por otra petición. " +
+                        "Vuelva a obtenerlo antes de actualizar");
             }
-            
-            // Limpiar el contexto de persistencia
-            entityManager.clear();
-            
-            // Paso 3: Asignar IDs secuenciales finales (1, 2, 3, ...)
-            @SuppressWarnings("unchecked")
-            List<Number> productosTemporales = entityManager.createNativeQuery(
-                "SELECT id_prod FROM salesmaster.producto WHERE id_prod >= :base ORDER BY id_prod"
-            )
-            .setParameter("base", idTemporalBase)
-            .getResultList();
-            
-            for (int i = 0; i < productosTemporales.size(); i++) {
-                Long idTemporal = productosTemporales.get(i).longValue();
-                Long idNuevo = (long) (i + 1);
-                
-                // Actualizar ID del producto
-                entityManager.createNativeQuery(
-                    "UPDATE salesmaster.producto SET id_prod = :idNuevo WHERE id_prod = :idTemporal"
-                )
-                .setParameter("idNuevo", idNuevo)
-                .setParameter("idTemporal", idTemporal)
-                .executeUpdate();
-                
-                // Actualizar referencias en pedido_producto
-                entityManager.createNativeQuery(
-                    "UPDATE salesmaster.pedido_producto SET id_prod = :idNuevo WHERE id_prod = :idTemporal"
-                )
-                .setParameter("idNuevo", idNuevo)
-                .setParameter("idTemporal", idTemporal)
-                .executeUpdate();
-            }
-            
-            // Paso 4: Recrear la foreign key constraint
-            entityManager.createNativeQuery(
-                "ALTER TABLE salesmaster.pedido_producto " +
-                "ADD CONSTRAINT pedido_producto_id_prod_fkey " +
-                "FOREIGN KEY (id_prod) REFERENCES salesmaster.producto(id_prod)"
-            ).executeUpdate();
-            
-            // Paso 5: Resetear la secuencia de PostgreSQL
-            Long maxId = (long) productosTemporales.size();
-            entityManager.createNativeQuery(
-                "SELECT setval('salesmaster.producto_id_prod_seq', :maxId, true)"
-            )
-            .setParameter("maxId", maxId)
-            .getSingleResult();
-            
-        } catch (Exception e) {
-            // En caso de error, intentar recrear la constraint si no existe
-            try {
-                entityManager.createNativeQuery(
-                    "ALTER TABLE salesmaster.pedido_producto " +
-                    "ADD CONSTRAINT pedido_producto_id_prod_fkey " +
-                    "FOREIGN KEY (id_prod) REFERENCES salesmaster.producto(id_prod)"
-                ).executeUpdate();
-            } catch (Exception ex) {
-                // La constraint ya existe, ignorar
-            }
-            throw new RuntimeException("Error al reordenar IDs de productos: " + e.getMessage(), e);
-        } finally {
-            // Limpiar el contexto
-            entityManager.clear();
+            throw e;
         }
     }
 
+    /**
+     * Los IDs son estables; el número correlativo (1, 2, 3, ...) que ve el usuario
+     * se calcula al leer contando los productos con ID menor o igual.
+     */
     private ProductoDTO convertirADTO(Producto producto) {
+        return convertirADTO(producto, productoRepository.countByIdProdLessThanEqual(producto.getIdProd()));
+    }
+
+    private ProductoDTO convertirADTO(Producto producto, long numero) {
         return ProductoDTO.builder()
                 .idProd(producto.getIdProd())
+                .numero(numero)
                 .nombre(producto.getNombre())
                 .precio(producto.getPrecio())
+                .version(producto.getVersion())
                 .build();
     }
 }
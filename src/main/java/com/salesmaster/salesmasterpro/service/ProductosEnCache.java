@@ -0,0 +1,131 @@
+package com.salesmaster.salesmasterpro.service;
+
+import com.salesmaster.salesmasterpro.config.CacheConfig;
+import com.salesmaster.salesmasterpro.dto.PaginaDTO;
+import com.salesmaster.salesmasterpro.dto.ProductoDTO;
+import com.salesmaster.salesmasterpro.event.IdsCompactadosEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Productos y páginas del listado de productos que devuelve ProductoService, con su versión (el ETag).
+ *
+ * Un GET que leyó el producto antes de que se confirmara un cambio no debe volver a dejar la versión
+ * anterior después de la invalidación: los GET seguirían devolviéndola hasta que venza y cada PUT con ese
+ * ETag recibiría 412. Por eso, como en CatalogoProductos, se guarda en el momento y cada invalidación
+ * incrementa una generación: lo leído con una generación anterior no se guarda. Una sola generación
+ * cubre las dos cachés, porque cambiar un producto también cambia las páginas que lo muestran.
+ */
+@Component
+public class ProductosEnCache {
+
+    private final Cache productos;
+    private final Cache paginas;
+    private final AtomicLong generacion = new AtomicLong();
+
+    public ProductosEnCache(CacheManager cacheManager) {
+        this.productos = cacheDestino(cacheManager, CacheConfig.PRODUCTOS);
+        this.paginas = cacheDestino(cacheManager, CacheConfig.PRODUCTOS_PAGINAS);
+    }
+
+    /**
+     * Devuelve el producto en caché o lo carga con {@code cargar} y lo guarda.
+     */
+    public ProductoDTO obtener(Long idProd, Supplier<ProductoDTO> cargar) {
+        return obtener(productos, idProd, cargar);
+    }
+
+    /**
+     * Devuelve la página en caché o la carga con {@code cargar} y la guarda.
+     */
+    public PaginaDTO<ProductoDTO> obtenerPagina(long despuesDe, int limite, Supplier<PaginaDTO<ProductoDTO>> cargar) {
+        return obtener(paginas, despuesDe + ":" + limite, cargar);
+    }
+
+    /**
+     * Al confirmar quita el producto y vacía las páginas; lo llama la actualización de un producto.
+     */
+    public void invalidarAlConfirmar(Long idProd) {
+        alConfirmar(() -> {
+            generacion.incrementAndGet();
+            productos.evict(idProd);
+            paginas.clear();
+        });
+    }
+
+    /**
+     * Al confirmar vacía las páginas; lo llaman las altas, que no cambian los productos existentes.
+     */
+    public void vaciarPaginasAlConfirmar() {
+        alConfirmar(() -> {
+            generacion.incrementAndGet();
+            paginas.clear();
+        });
+    }
+
+    /**
+     * Al confirmar vacía las dos cachés; lo llama la eliminación, que corre el número de visualización
+     * de los productos posteriores.
+     */
+    public void vaciarAlConfirmar() {
+        alConfirmar(this::vaciar);
+    }
+
+    @EventListener(condition = "#evento.productosMovidos() > 0")
+    public void alCompactarIds(IdsCompactadosEvent evento) {
+        // Los IDs de producto cambiaron: ninguna entrada sigue siendo válida
+        vaciarAlConfirmar();
+    }
+
+    private void vaciar() {
+        generacion.incrementAndGet();
+        productos.clear();
+        paginas.clear();
+    }
+
+    private <V> V obtener(Cache cache, Object clave, Supplier<V> cargar) {
+        Cache.ValueWrapper guardado = cache.get(clave);
+        if (guardado != null) {
+            @SuppressWarnings("unchecked")
+            V valor = (V) guardado.get();
+            return valor;
+        }
+        long leida = generacion.get();
+        V valor = cargar.get();
+        if (generacion.get() == leida) {
+            cache.put(clave, valor);
+            // Una invalidación entre la comparación y el put pudo no alcanzar a esta entrada
+            if (generacion.get() != leida) {
+                cache.evict(clave);
+            }
+        }
+        return valor;
+    }
+
+    // Se usa la caché de Caffeine directamente: los guardados y vaciados se ordenan con la generación
+    private static Cache cacheDestino(CacheManager cacheManager, String nombre) {
+        Cache registrada = cacheManager.getCache(nombre);
+        return registrada instanceof TransactionAwareCacheDecorator decorada ? decorada.getTargetCache() : registrada;
+    }
+
+    private static void alConfirmar(Runnable accion) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            accion.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                accion.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,218 @@
+package com.salesmaster.salesmasterpro.service;
+
+import com.salesmaster.salesmasterpro.dto.ProductoVendidoDTO;
+import com.salesmaster.salesmasterpro.event.IdsCompactadosEvent;
+import com.salesmaster.salesmasterpro.event.PedidosCreadosEvent;
+import com.salesmaster.salesmasterpro.util.SpaceSaving;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Ranking en memoria de los productos más vendidos (por unidades) en la última hora o el último día.
+ *
+ * Cada minuto y cada hora tiene su propio resumen Space-Saving de capacidad fija, en dos anillos
+ * (60 minutos y 24 horas), así que la memoria no depende de la cantidad de productos ni de pedidos.
+ * Las ventanas de minutos se arman con los resúmenes por minuto y las de horas con los resúmenes
+ * por hora (la hora en curso cuenta completa). Se alimenta con los pedidos confirmados y al arrancar
+ * carga las ventas de las últimas 24 horas; las consultas no tocan la base de datos.
+ */
+@Service
+@Timed("salesmaster.servicio")
+@Slf4j
+public class RankingProductosService {
+
+    private static final Pattern VENTANA = Pattern.compile("(\\d+)([mhd])");
+    private static final int MINUTOS = 60;
+    private static final int HORAS = 24;
+
+    private static final String VENTAS_RECIENTES =
+            "SELECT pp.id_prod, pp.cantidad, p.fecha FROM salesmaster.pedido_producto pp " +
+            "JOIN salesmaster.pedido p ON p.id_pedido = pp.id_pedido WHERE p.fecha >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaccionLectura;
+    private final Anillo porMinuto;
+    private final Anillo porHora;
+
+    public RankingProductosService(DataSource dataSource,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${salesmaster.ranking-productos.capacidad:256}") int capacidad) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(1000);
+        // Con una plantilla y no con @Transactional: alCompactarIds llama a precargar() desde la misma clase
+        this.transaccionLectura = new TransactionTemplate(transactionManager);
+        this.transaccionLectura.setReadOnly(true);
+        this.porMinuto = new Anillo(MINUTOS, capacidad);
+        this.porHora = new Anillo(HORAS, capacidad);
+    }
+
+    public List<ProductoVendidoDTO> masVendidos(String ventana, int cantidad) {
+        Matcher matcher = VENTANA.matcher(ventana == null ? "" : ventana.trim().toLowerCase());
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Ventana inválida: " + ventana + ". Use minutos (15m), horas (1h) o días (1d)");
+        }
+        int valor = Integer.parseInt(matcher.group(1));
+        long minutoActual = minutoDe(System.currentTimeMillis());
+
+        return switch (matcher.group(2)) {
+            case "m" -> {
+                validarVentana(valor, MINUTOS, ventana);
+                yield porMinuto.ranking(minutoActual, valor, cantidad);
+            }
+            case "h" -> {
+                validarVentana(valor, HORAS, ventana);
+                // Una hora exacta sale de los minutos; más horas, de los resúmenes por hora
+                yield valor == 1
+                        ? porMinuto.ranking(minutoActual, MINUTOS, cantidad)
+                        : porHora.ranking(minutoActual / MINUTOS, valor, cantidad);
+            }
+            default -> {
+                validarVentana(valor, 1, ventana);
+                yield porHora.ranking(minutoActual / MINUTOS, HORAS, cantidad);
+            }
+        };
+    }
+
+    @TransactionalEventListener
+    public void alCrearPedidos(PedidosCreadosEvent evento) {
+        for (PedidosCreadosEvent.ItemVendido item : evento.items()) {
+            registrar(item.idProd(), item.cantidad(), item.fecha());
+        }
+    }
+
+    /**
+     * Carga las ventas de las últimas 24 horas. Se lee con un cursor dentro de una transacción
+     * de solo lectura para no traer todas las filas a memoria de una vez.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void precargar() {
+        LocalDateTime desde = LocalDateTime.now().minusHours(HORAS);
+        long[] filas = {0};
+        transaccionLectura.executeWithoutResult(status ->
+                jdbcTemplate.query(VENTAS_RECIENTES, rs -> {
+                    registrar(rs.getLong("id_prod"), rs.getInt("cantidad"), rs.getTimestamp("fecha").toLocalDateTime());
+                    filas[0]++;
+                }, Timestamp.valueOf(desde)));
+        log.info("Ranking de productos precargado con {} items de las últimas {} horas", filas[0], HORAS);
+    }
+
+    @EventListener(condition = "#evento.productosMovidos() > 0")
+    public void alCompactarIds(IdsCompactadosEvent evento) {
+        // Los IDs cambiaron: el ranking se reconstruye con los nuevos
+        porMinuto.limpiar();
+        porHora.limpiar();
+        precargar();
+    }
+
+    private void registrar(long idProd, int cantidad, LocalDateTime fecha) {
+        long minuto = minutoDe(fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        porMinuto.agregar(minuto, idProd, cantidad);
+        porHora.agregar(minuto / MINUTOS, idProd, cantidad);
+    }
+
+    private static long minutoDe(long epochMillis) {
+        return Math.floorDiv(epochMillis, 60_000L);
+    }
+
+    private static void validarVentana(int valor, int maximo, String ventana) {
+        if (valor < 1 || valor > maximo) {
+            throw new IllegalArgumentException("Ventana fuera de rango: " + ventana +
+                    ". Máximo " + MINUTOS + "m, " + HORAS + "h o 1d");
+        }
+    }
+
+    /**
+     * Anillo de resúmenes, uno por período (minuto u hora). Un período viejo se descarta
+     * la primera vez que su posición se reutiliza.
+     */
+    private static class Anillo {
+
+        private final SpaceSaving[] resumenes;
+        private final long[] periodos;
+
+        Anillo(int tamano, int capacidad) {
+            resumenes = new SpaceSaving[tamano];
+            periodos = new long[tamano];
+            for (int i = 0; i < tamano; i++) {
+                resumenes[i] = new SpaceSaving(capacidad);
+                periodos[i] = Long.MIN_VALUE;
+            }
+        }
+
+        synchronized void agregar(long periodo, long idProd, long unidades) {
+            int i = (int) Math.floorMod(periodo, (long) resumenes.length);
+            if (periodo < periodos[i]) {
+                // Más viejo que lo que ya ocupa la posición: fuera de toda ventana
+                return;
+            }
+            if (periodo > periodos[i]) {
+                resumenes[i].limpiar();
+                periodos[i] = periodo;
+            }
+            resumenes[i].agregar(idProd, unidades);
+        }
+
+        /**
+         * Suma los resúmenes de los últimos {@code cantidadPeriodos} períodos. Para un producto ausente en
+         * un período, lo vendido ahí es a lo sumo el mínimo de ese resumen: se suma a su error máximo.
+         */
+        synchronized List<ProductoVendidoDTO> ranking(long periodoActual, int cantidadPeriodos, int cantidad) {
+            Map<Long, long[]> acumulado = new HashMap<>();
+            long sumaMinimos = 0;
+            for (int i = 0; i < resumenes.length; i++) {
+                if (periodos[i] <= periodoActual - cantidadPeriodos || periodos[i] > periodoActual) {
+                    continue;
+                }
+                long minimo = resumenes[i].minimo();
+                sumaMinimos += minimo;
+                resumenes[i].recorrer((idProd, conteo, error) -> {
+                    // [unidades, error, mínimos de los períodos donde sí aparece]
+                    long[] total = acumulado.computeIfAbsent(idProd, k -> new long[3]);
+                    total[0] += conteo;
+                    total[1] += error;
+                    total[2] += minimo;
+                });
+            }
+
+            List<ProductoVendidoDTO> ranking = new ArrayList<>(acumulado.size());
+            for (Map.Entry<Long, long[]> entrada : acumulado.entrySet()) {
+                long[] total = entrada.getValue();
+                ranking.add(ProductoVendidoDTO.builder()
+                        .idProd(entrada.getKey())
+                        .unidades(total[0])
+                        .errorMaximo(total[1] + sumaMinimos - total[2])
+                        .build());
+            }
+            ranking.sort(Comparator.comparingLong(ProductoVendidoDTO::getUnidades).reversed()
+                    .thenComparing(ProductoVendidoDTO::getIdProd));
+            return ranking.size() > cantidad ? new ArrayList<>(ranking.subList(0, cantidad)) : ranking;
+        }
+
+        synchronized void limpiar() {
+            for (int i = 0; i < resumenes.length; i++) {
+                resumenes[i].limpiar();
+                periodos[i] = Long.MIN_VALUE;
+            }
+        }
+    }
+}
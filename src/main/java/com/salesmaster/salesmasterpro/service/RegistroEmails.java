@@ -0,0 +1,87 @@
+package com.salesmaster.salesmasterpro.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Emails de clientes (normalizados: sin espacios en los extremos y en minúsculas) en memoria,
+ * para saber sin consultar la base de datos que un email seguro no está registrado.
+ *
+ * Solo puede equivocarse en un sentido: si un email normalizado está en el conjunto hay que
+ * confirmarlo en la base de datos. Las altas se agregan de inmediato y las bajas recién después
+ * del commit. Lo que otra instancia registre y esta no vea lo rechaza igual la restricción
+ * única de cliente.email, que sigue siendo la referencia.
+ */
+@Component
+@Slf4j
+public class RegistroEmails {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Set<String> emails = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean cargado;
+
+    public RegistroEmails(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(1000);
+    }
+
+    /**
+     * {@code false} si el email seguro no pertenece a ningún cliente; {@code true} si puede pertenecer.
+     */
+    public boolean puedeEstarRegistrado(String email) {
+        return !cargado || emails.contains(normalizar(email));
+    }
+
+    public void registrar(String email) {
+        emails.add(normalizar(email));
+    }
+
+    /**
+     * Quita el email cuando se confirme la transacción actual (si se revierte, sigue registrado).
+     */
+    public void liberarAlConfirmar(String email) {
+        String normalizado = normalizar(email);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            emails.remove(normalizado);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                emails.remove(normalizado);
+            }
+        });
+    }
+
+    /**
+     * Carga los emails existentes con un cursor dentro de una transacción de solo lectura.
+     * Las altas que lleguen mientras tanto ya se agregan con {@link #registrar(String)}.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void cargar() {
+        long[] filas = {0};
+        jdbcTemplate.query("SELECT email FROM salesmaster.cliente", rs -> {
+            emails.add(normalizar(rs.getString(1)));
+            filas[0]++;
+        });
+        cargado = true;
+        log.info("Registro de emails cargado con {} clientes", filas[0]);
+    }
+
+    private static String normalizar(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
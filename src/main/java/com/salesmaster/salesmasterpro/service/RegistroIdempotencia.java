@@ -0,0 +1,257 @@
+package com.salesmaster.salesmasterpro.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.salesmaster.salesmasterpro.exception.PeticionEnCursoException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Ejecuta una sola vez cada operación enviada con el encabezado Idempotency-Key y responde
+ * los reintentos con el resultado guardado.
+ *
+ * La respuesta se guarda en la tabla clave_idempotencia dentro de la misma transacción que la
+ * operación: si se revierte, la clave queda libre para reintentar. El INSERT de la clave espera a
+ * que termine otra transacción que tenga la misma clave sin confirmar, así que entre instancias
+ * tampoco se ejecuta dos veces. En cada instancia, los reintentos simultáneos esperan a la
+ * ejecución en curso sin ocupar una conexión, y los recientes se responden desde una caché acotada.
+ * Si la ejecución en curso no termina dentro de salesmaster.idempotencia.espera-maxima, el reintento
+ * recibe {@link PeticionEnCursoException} (409 con Retry-After).
+ */
+@Component
+@Slf4j
+public class RegistroIdempotencia {
+
+    public static final String ENCABEZADO = "Idempotency-Key";
+    public static final String ENCABEZADO_REPETIDA = "Idempotent-Replayed";
+
+    private static final int LARGO_MAXIMO_CLAVE = 100;
+    private static final long REINTENTAR_EN_SEGUNDOS = 5;
+
+    private static final String RESERVAR =
+            "INSERT INTO salesmaster.clave_idempotencia (clave, huella, creada) VALUES (:clave, :huella, :creada) " +
+            "ON CONFLICT (clave) DO NOTHING";
+
+    private static final String GUARDAR_RESPUESTA =
+            "UPDATE salesmaster.clave_idempotencia SET respuesta = :respuesta WHERE clave = :clave";
+
+    private static final String BUSCAR =
+            "SELECT huella, respuesta FROM salesmaster.clave_idempotencia WHERE clave = :clave";
+
+    private static final String ELIMINAR_VENCIDAS =
+            "DELETE FROM salesmaster.clave_idempotencia WHERE creada < :limite";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration retencion;
+    private final Duration esperaMaxima;
+    private final Cache<String, Respuesta> recientes;
+    private final ConcurrentMap<String, CompletableFuture<Respuesta>> enCurso = new ConcurrentHashMap<>();
+
+    public RegistroIdempotencia(TransactionTemplate transactionTemplate,
+                                ObjectMapper objectMapper,
+                                @Value("${salesmaster.idempotencia.retencion:24h}") Duration retencion,
+                                @Value("${salesmaster.idempotencia.espera-maxima:30s}") Duration esperaMaxima,
+                                @Value("${salesmaster.idempotencia.maximo-en-memoria:10000}") long maximoEnMemoria) {
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.retencion = retencion;
+        this.esperaMaxima = esperaMaxima;
+        this.recientes = Caffeine.newBuilder()
+                .maximumSize(maximoEnMemoria)
+                .expireAfterWrite(retencion)
+                .build();
+    }
+
+    /**
+     * Ejecuta {@code accion} si la clave no se usó antes para {@code operacion}; si ya se usó con la
+     * misma petición devuelve el resultado guardado. Sin clave, ejecuta la acción sin registrar nada.
+     *
+     * @param peticion datos que identifican la petición; la misma clave con otros datos se rechaza
+     */
+    public <T> Resultado<T> ejecutar(String operacion, String clave, Object peticion, Class<T> tipo, Supplier<T> accion) {
+        if (clave == null) {
+            return new Resultado<>(accion.get(), false);
+        }
+        validarClave(clave);
+        String id = operacion + ":" + clave;
+        String huella = huella(peticion);
+
+        Respuesta guardada = recientes.getIfPresent(id);
+        if (guardada != null) {
+            return repetir(guardada, huella, tipo);
+        }
+
+        CompletableFuture<Respuesta> propia = new CompletableFuture<>();
+        CompletableFuture<Respuesta> otra = enCurso.putIfAbsent(id, propia);
+        if (otra != null) {
+            return repetir(esperar(otra, clave), huella, tipo);
+        }
+        try {
+            Ejecucion<T> ejecucion = transactionTemplate.execute(status -> ejecutarUnaVez(id, huella, accion));
+            // Ya confirmada: se guarda en memoria antes de liberar a los que esperan
+            recientes.put(id, ejecucion.respuesta());
+            propia.complete(ejecucion.respuesta());
+            return ejecucion.valor() != null
+                    ? new Resultado<>(ejecucion.valor(), false)
+                    : repetir(ejecucion.respuesta(), huella, tipo);
+        } catch (RuntimeException e) {
+            propia.completeExceptionally(e);
+            throw e;
+        } finally {
+            enCurso.remove(id, propia);
+        }
+    }
+
+    // valor es null si la operación ya la había confirmado otra instancia o una ejecución anterior
+    private <T> Ejecucion<T> ejecutarUnaVez(String id, String huella, Supplier<T> accion) {
+        if (!reservar(id, huella)) {
+            Respuesta guardada = buscar(id);
+            if (guardada == null) {
+                throw new IllegalStateException("La clave de idempotencia " + id + " se eliminó mientras se usaba");
+            }
+            return new Ejecucion<>(guardada, null);
+        }
+
+        T valor = accion.get();
+        String json = serializar(valor);
+        guardarRespuesta(id, json);
+        return new Ejecucion<>(new Respuesta(huella, json), valor);
+    }
+
+    /**
+     * Inserta la clave; {@code false} si ya existía. Espera a que termine otra transacción que la tenga sin confirmar.
+     */
+    protected boolean reservar(String id, String huella) {
+        return entityManager.createNativeQuery(RESERVAR)
+                .setParameter("clave", id)
+                .setParameter("huella", huella)
+                .setParameter("creada", LocalDateTime.now())
+                .executeUpdate() > 0;
+    }
+
+    protected Respuesta buscar(String id) {
+        List<?> filas = entityManager.createNativeQuery(BUSCAR)
+                .setParameter("clave", id)
+                .getResultList();
+        if (filas.isEmpty()) {
+            return null;
+        }
+        Object[] fila = (Object[]) filas.get(0);
+        return new Respuesta((String) fila[0], (String) fila[1]);
+    }
+
+    protected void guardarRespuesta(String id, String json) {
+        entityManager.createNativeQuery(GUARDAR_RESPUESTA)
+                .setParameter("respuesta", json)
+                .setParameter("clave", id)
+                .executeUpdate();
+    }
+
+    @Scheduled(cron = "${salesmaster.idempotencia.limpieza-cron:0 30 * * * *}")
+    public void eliminarVencidas() {
+        Integer eliminadas = transactionTemplate.execute(status -> entityManager.createNativeQuery(ELIMINAR_VENCIDAS)
+                .setParameter("limite", LocalDateTime.now().minus(retencion))
+                .executeUpdate());
+        if (eliminadas != null && eliminadas > 0) {
+            log.info("Se eliminaron {} claves de idempotencia vencidas", eliminadas);
+        }
+    }
+
+    private <T> Resultado<T> repetir(Respuesta respuesta, String huella, Class<T> tipo) {
+        if (!respuesta.huella().equals(huella)) {
+            throw new IllegalArgumentException("La clave " + ENCABEZADO + " ya se usó con otra petición");
+        }
+        try {
+            return new Resultado<>(objectMapper.readValue(respuesta.json(), tipo), true);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo leer la respuesta guardada", e);
+        }
+    }
+
+    // Si la primera ejecución falla, los que esperaban reciben el mismo error y la clave queda libre
+    private Respuesta esperar(CompletableFuture<Respuesta> ejecucion, String clave) {
+        try {
+            return ejecucion.get(esperaMaxima.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new PeticionEnCursoException("La petición con " + ENCABEZADO + " " + clave +
+                    " sigue en curso. Reintente más tarde", REINTENTAR_EN_SEGUNDOS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void validarClave(String clave) {
+        if (clave.isEmpty() || clave.length() > LARGO_MAXIMO_CLAVE) {
+            throw new IllegalArgumentException("El encabezado " + ENCABEZADO + " debe tener entre 1 y " +
+                    LARGO_MAXIMO_CLAVE + " caracteres");
+        }
+        for (int i = 0; i < clave.length(); i++) {
+            char c = clave.charAt(i);
+            if (c < '!' || c > '~') {
+                throw new IllegalArgumentException("El encabezado " + ENCABEZADO + " solo admite caracteres ASCII visibles");
+            }
+        }
+    }
+
+    private String serializar(Object valor) {
+        try {
+            return objectMapper.writeValueAsString(valor);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar la respuesta", e);
+        }
+    }
+
+    private String huella(Object peticion) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(serializar(peticion).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param repetido {@code true} si el valor es el de una ejecución anterior con la misma clave
+     */
+    public record Resultado<T>(T valor, boolean repetido) {
+    }
+
+    record Respuesta(String huella, String json) {
+    }
+
+    private record Ejecucion<T>(Respuesta respuesta, T valor) {
+    }
+}
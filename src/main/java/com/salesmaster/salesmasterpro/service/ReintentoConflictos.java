@@ -0,0 +1,63 @@
+package com.salesmaster.salesmasterpro.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Reintenta una escritura que perdió contra otra por el bloqueo optimista (@Version). Es para las
+ * escrituras que no dependen de una versión leída antes (If-Match: *, procesos internos): las que
+ * traen la versión del cliente no se reintentan, el conflicto se le informa con 412.
+ *
+ * Cada intento debe ser una transacción nueva que vuelve a leer la entidad, por eso se llama desde
+ * fuera de los servicios transaccionales. La espera crece al doble en cada intento, con una parte
+ * aleatoria para que los escritores que chocaron no vuelvan a coincidir. Agotados los intentos, la
+ * excepción se propaga (409).
+ */
+@Component
+@Slf4j
+public class ReintentoConflictos {
+
+    private final int intentosMaximos;
+    private final long esperaInicialMillis;
+
+    public ReintentoConflictos(@Value("${salesmaster.reintentos.intentos-maximos:4}") int intentosMaximos,
+                               @Value("${salesmaster.reintentos.espera-inicial:20ms}") Duration esperaInicial) {
+        this.intentosMaximos = intentosMaximos;
+        this.esperaInicialMillis = esperaInicial.toMillis();
+    }
+
+    public <T> T ejecutar(Supplier<T> escritura) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Los reintentos deben ejecutarse fuera de una transacción");
+        }
+        long espera = esperaInicialMillis;
+        for (int intento = 1; ; intento++) {
+            try {
+                return escritura.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (intento >= intentosMaximos) {
+                    throw e;
+                }
+                log.debug("Conflicto de versión en el intento {}, reintentando: {}", intento, e.getMessage());
+                esperar(espera + ThreadLocalRandom.current().nextLong(espera + 1));
+                espera *= 2;
+            }
+        }
+    }
+
+    private static void esperar(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reintento interrumpido", e);
+        }
+    }
+}
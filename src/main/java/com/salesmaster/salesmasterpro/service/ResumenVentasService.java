@@ -0,0 +1,233 @@
+package com.salesmaster.salesmasterpro.service;
+
+import com.salesmaster.salesmasterpro.dto.ReconstruccionVentasDTO;
+import com.salesmaster.salesmasterpro.entity.Pedido;
+import com.salesmaster.salesmasterpro.entity.PedidoProducto;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Mantiene las tablas de resumen venta_diaria_parte, venta_cliente y venta_producto.
+ *
+ * Cada alta de pedidos suma sus importes con un UPSERT por fila afectada, dentro de la misma
+ * transacción que guarda los pedidos, así que el resumen nunca incluye pedidos revertidos.
+ * Los pedidos no se modifican ni se eliminan, por lo que no hay que restar nada.
+ *
+ * Todas las altas del día tocan el resumen de ese día, y la fila queda bloqueada hasta el commit.
+ * Para que no se confirmen de a una, cada día se reparte en {@link #PARTES_POR_DIA} filas: cada alta
+ * suma en una elegida al azar y las consultas suman las partes (ver VentaDiariaRepository).
+ */
+@Service
+@Timed("salesmaster.servicio")
+@RequiredArgsConstructor
+@Transactional
+@Slf4j
+public class ResumenVentasService {
+
+    static final int PARTES_POR_DIA = 16;
+
+    private static final String SUMAR_DIA =
+            "INSERT INTO salesmaster.venta_diaria_parte AS v (fecha, parte, pedidos, unidades, total) " +
+            "VALUES (:clave, :parte, :pedidos, :unidades, :total) " +
+            "ON CONFLICT (fecha, parte) DO UPDATE SET pedidos = v.pedidos + EXCLUDED.pedidos, " +
+            "unidades = v.unidades + EXCLUDED.unidades, total = v.total + EXCLUDED.total";
+
+    private static final String SUMAR_CLIENTE =
+            "INSERT INTO salesmaster.venta_cliente AS v (id_cliente, pedidos, unidades, total) " +
+            "VALUES (:clave, :pedidos, :unidades, :total) " +
+            "ON CONFLICT (id_cliente) DO UPDATE SET pedidos = v.pedidos + EXCLUDED.pedidos, " +
+            "unidades = v.unidades + EXCLUDED.unidades, total = v.total + EXCLUDED.total";
+
+    private static final String SUMAR_PRODUCTO =
+            "INSERT INTO salesmaster.venta_producto AS v (id_prod, pedidos, unidades, total) " +
+            "VALUES (:clave, :pedidos, :unidades, :total) " +
+            "ON CONFLICT (id_prod) DO UPDATE SET pedidos = v.pedidos + EXCLUDED.pedidos, " +
+            "unidades = v.unidades + EXCLUDED.unidades, total = v.total + EXCLUDED.total";
+
+    // Una fila por item (o una sin item para pedidos vacíos), agrupadas por pedido
+    private static final String PEDIDOS_CON_ITEMS =
+            "SELECT p.id_pedido, CAST(p.fecha AS DATE) AS dia, p.id_cliente, p.total, pp.id_prod, pp.cantidad, pp.subtotal " +
+            "FROM salesmaster.pedido p LEFT JOIN salesmaster.pedido_producto pp ON pp.id_pedido = p.id_pedido " +
+            "ORDER BY p.id_pedido";
+
+    private static final int FILAS_POR_LECTURA = 1000;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Suma los pedidos recién creados al resumen. Debe llamarse dentro de la transacción que los guarda.
+     */
+    public void registrarPedidos(Collection<Pedido> pedidos) {
+        if (pedidos.isEmpty()) {
+            return;
+        }
+
+        // Los pedidos del mismo día, cliente o producto se agrupan para actualizar cada fila una sola vez
+        SortedMap<LocalDate, Acumulado> porDia = new TreeMap<>();
+        SortedMap<Long, Acumulado> porCliente = new TreeMap<>();
+        SortedMap<Long, Acumulado> porProducto = new TreeMap<>();
+        for (Pedido pedido : pedidos) {
+            long unidades = 0;
+            for (PedidoProducto item : pedido.getPedidoProductos()) {
+                unidades += item.getCantidad();
+                porProducto.computeIfAbsent(item.getId().getIdProd(), k -> new Acumulado())
+                        .sumar(item.getCantidad(), item.getSubtotal());
+            }
+            porDia.computeIfAbsent(pedido.getFecha().toLocalDate(), k -> new Acumulado())
+                    .sumar(unidades, pedido.getTotal());
+            porCliente.computeIfAbsent(pedido.getCliente().getIdCliente(), k -> new Acumulado())
+                    .sumar(unidades, pedido.getTotal());
+        }
+
+        // Las filas quedan bloqueadas hasta el commit, por eso esto se hace al final del alta. Las claves
+        // van siempre en el mismo orden (tabla y valor) para que dos altas concurrentes no se bloqueen mutuamente.
+        sumar(SUMAR_DIA, porDia, ThreadLocalRandom.current().nextInt(PARTES_POR_DIA));
+        sumar(SUMAR_CLIENTE, porCliente);
+        sumar(SUMAR_PRODUCTO, porProducto);
+    }
+
+    /**
+     * Recalcula las tres tablas en una sola lectura de pedido y pedido_producto, con un cursor: en memoria
+     * quedan solo los acumulados por día, cliente y producto, no las filas. Cada día queda en la parte 0.
+     */
+    public ReconstruccionVentasDTO reconstruir() {
+        // Frena altas de pedidos mientras tanto (las lecturas siguen) y espera a las que estén en curso,
+        // para que ningún pedido quede contado dos veces o sin contar
+        jdbcTemplate.getJdbcTemplate().execute("LOCK TABLE salesmaster.pedido IN SHARE MODE");
+
+        Recalculo recalculo = new Recalculo();
+        jdbcTemplate.getJdbcTemplate().query(con -> {
+            PreparedStatement sentencia = con.prepareStatement(PEDIDOS_CON_ITEMS);
+            sentencia.setFetchSize(FILAS_POR_LECTURA);
+            return sentencia;
+        }, recalculo);
+        recalculo.terminarPedido();
+
+        jdbcTemplate.getJdbcTemplate().execute("DELETE FROM salesmaster.venta_diaria_parte");
+        jdbcTemplate.getJdbcTemplate().execute("DELETE FROM salesmaster.venta_cliente");
+        jdbcTemplate.getJdbcTemplate().execute("DELETE FROM salesmaster.venta_producto");
+        sumar(SUMAR_DIA, recalculo.porDia, 0);
+        sumar(SUMAR_CLIENTE, recalculo.porCliente);
+        sumar(SUMAR_PRODUCTO, recalculo.porProducto);
+
+        ReconstruccionVentasDTO resultado = ReconstruccionVentasDTO.builder()
+                .dias(recalculo.porDia.size())
+                .clientes(recalculo.porCliente.size())
+                .productos(recalculo.porProducto.size())
+                .build();
+        log.info("Resumen de ventas recalculado: {} días, {} clientes, {} productos",
+                resultado.getDias(), resultado.getClientes(), resultado.getProductos());
+        return resultado;
+    }
+
+    /**
+     * La primera vez que arranca con las tablas de resumen vacías y pedidos existentes, las completa.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializarSiEstaVacio() {
+        Boolean faltaResumen = jdbcTemplate.getJdbcTemplate().queryForObject(
+                "SELECT NOT EXISTS (SELECT 1 FROM salesmaster.venta_diaria_parte) " +
+                "AND EXISTS (SELECT 1 FROM salesmaster.pedido)", Boolean.class);
+        if (Boolean.TRUE.equals(faltaResumen)) {
+            reconstruir();
+        }
+    }
+
+    private <K> void sumar(String sql, Map<K, Acumulado> acumulados) {
+        sumar(sql, acumulados, null);
+    }
+
+    private <K> void sumar(String sql, Map<K, Acumulado> acumulados, Integer parte) {
+        if (acumulados.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] filas = acumulados.entrySet().stream()
+                .map(e -> new MapSqlParameterSource()
+                        .addValue("clave", e.getKey())
+                        .addValue("parte", parte)
+                        .addValue("pedidos", e.getValue().pedidos)
+                        .addValue("unidades", e.getValue().unidades)
+                        .addValue("total", e.getValue().total))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(sql, filas);
+    }
+
+    /**
+     * Acumula las filas de PEDIDOS_CON_ITEMS; el día y el cliente de un pedido se suman al pasar al siguiente,
+     * cuando ya se conocen todas sus unidades.
+     */
+    private static class Recalculo implements RowCallbackHandler {
+
+        private final SortedMap<LocalDate, Acumulado> porDia = new TreeMap<>();
+        private final SortedMap<Long, Acumulado> porCliente = new TreeMap<>();
+        private final SortedMap<Long, Acumulado> porProducto = new TreeMap<>();
+
+        private long idPedido = -1;
+        private LocalDate dia;
+        private long idCliente;
+        private BigDecimal total;
+        private long unidades;
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long id = rs.getLong("id_pedido");
+            if (id != idPedido) {
+                terminarPedido();
+                idPedido = id;
+                dia = rs.getObject("dia", LocalDate.class);
+                idCliente = rs.getLong("id_cliente");
+                total = rs.getBigDecimal("total");
+                unidades = 0;
+            }
+            long idProd = rs.getLong("id_prod");
+            if (!rs.wasNull()) {
+                int cantidad = rs.getInt("cantidad");
+                unidades += cantidad;
+                porProducto.computeIfAbsent(idProd, k -> new Acumulado()).sumar(cantidad, rs.getBigDecimal("subtotal"));
+            }
+        }
+
+        void terminarPedido() {
+            if (idPedido < 0) {
+                return;
+            }
+            porDia.computeIfAbsent(dia, k -> new Acumulado()).sumar(unidades, total);
+            porCliente.computeIfAbsent(idCliente, k -> new Acumulado()).sumar(unidades, total);
+            idPedido = -1;
+        }
+    }
+
+    private static class Acumulado {
+        private long pedidos;
+        private long unidades;
+        private BigDecimal total = BigDecimal.ZERO;
+
+        void sumar(long unidades, BigDecimal total) {
+            this.pedidos++;
+            this.unidades += unidades;
+            if (total != null) {
+                this.total = this.total.add(total);
+            }
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.salesmaster.salesmasterpro.util;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Escritura de valores CSV (RFC 4180) directamente sobre un Writer y lectura fila por fila desde un Reader.
+ */
+public final class Csv {
+
+    /**
+     * Formato de las columnas de fecha y hora de las exportaciones: siempre el mismo ancho, sin la
+     * parte fraccionaria que LocalDateTime.toString() agrega u omite según el valor.
+     */
+    public static final DateTimeFormatter FECHA_HORA = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private Csv() {
+    }
+
+    public static String fechaHora(LocalDateTime fecha) {
+        return fecha == null ? null : FECHA_HORA.format(fecha);
+    }
+
+    /**
+     * Escribe una fila completa terminada en salto de línea.
+     */
+    public static void escribirFila(Writer writer, Object... valores) throws IOException {
+        for (int i = 0; i < valores.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            escribirValor(writer, valores[i]);
+        }
+        writer.write('\n');
+    }
+
+    public static void escribirValor(Writer writer, Object valor) throws IOException {
+        if (valor == null) {
+            return;
+        }
+        String texto = valor.toString();
+        if (!requiereComillas(texto)) {
+            writer.write(texto);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    private static boolean requiereComillas(String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lee un CSV de a una fila, sin cargar el resto del archivo. Admite campos entre comillas
+     * (con comillas dobles escapadas y saltos de línea), finales de línea \n o \r\n y la marca BOM
+     * al principio (los archivos guardados desde Excel suelen tenerla). Una fila ocupa como máximo
+     * {@link #MAXIMO_CAMPOS} campos de {@link #LARGO_MAXIMO_CAMPO} caracteres.
+     */
+    public static final class Lector {
+
+        public static final int LARGO_MAXIMO_CAMPO = 10_000;
+        public static final int MAXIMO_CAMPOS = 100;
+
+        private final Reader reader;
+        private boolean primeraFila = true;
+
+        /**
+         * @param reader conviene que tenga buffer: se lee de a un carácter
+         */
+        public Lector(Reader reader) {
+            this.reader = reader;
+        }
+
+        /**
+         * @return los campos de la próxima fila, o {@code null} si no quedan filas
+         * @throws IllegalArgumentException si hay comillas sin cerrar, un campo supera {@link #LARGO_MAXIMO_CAMPO}
+         *                                  o la fila supera {@link #MAXIMO_CAMPOS}
+         */
+        public List<String> leerFila() throws IOException {
+            int c = reader.read();
+            if (primeraFila) {
+                primeraFila = false;
+                if (c == '\uFEFF') {
+                    c = reader.read();
+                }
+            }
+            if (c == -1) {
+                return null;
+            }
+            List<String> campos = new ArrayList<>();
+            StringBuilder campo = new StringBuilder();
+            boolean entreComillas = false;
+            while (true) {
+                if (entreComillas) {
+                    if (c == -1) {
+                        throw new IllegalArgumentException("Comillas sin cerrar");
+                    }
+                    if (c == '"') {
+                        int siguiente = reader.read();
+                        if (siguiente != '"') {
+                            entreComillas = false;
+                            c = siguiente;
+                            continue;
+                        }
+                    }
+                    agregar(campo, c);
+                } else if (c == -1 || c == '\n') {
+                    agregarCampo(campos, campo);
+                    return campos;
+                } else if (c == ',') {
+                    agregarCampo(campos, campo);
+                    campo.setLength(0);
+                } else if (c == '"' && campo.isEmpty()) {
+                    entreComillas = true;
+                } else if (c != '\r') {
+                    agregar(campo, c);
+                }
+                c = reader.read();
+            }
+        }
+
+        private static void agregarCampo(List<String> campos, StringBuilder campo) {
+            if (campos.size() >= MAXIMO_CAMPOS) {
+                throw new IllegalArgumentException("Una fila supera los " + MAXIMO_CAMPOS + " campos");
+            }
+            campos.add(campo.toString());
+        }
+
+        private static void agregar(StringBuilder campo, int c) {
+            if (campo.length() >= LARGO_MAXIMO_CAMPO) {
+                throw new IllegalArgumentException("Un campo supera los " + LARGO_MAXIMO_CAMPO + " caracteres");
+            }
+            campo.append((char) c);
+        }
+    }
+}
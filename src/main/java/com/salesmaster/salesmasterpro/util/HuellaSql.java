@@ -0,0 +1,101 @@
+package com.salesmaster.salesmasterpro.util;
+
+/**
+ * Huella de una sentencia SQL: el texto sin literales, para agrupar las ejecuciones de una misma
+ * consulta aunque cambien sus valores.
+ *
+ * Los textos entre comillas simples y los números se reemplazan por {@code ?}, los espacios
+ * consecutivos se reducen a uno y una lista de parámetros como {@code IN (?, ?, ?)} queda como
+ * {@code IN (?+)}, así que el largo de la lista no genera huellas distintas.
+ */
+public final class HuellaSql {
+
+    private HuellaSql() {
+    }
+
+    public static String normalizar(String sql) {
+        int largo = sql.length();
+        StringBuilder huella = new StringBuilder(largo);
+        int i = 0;
+        while (i < largo) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                while (i < largo && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if (huella.length() > 0 && i < largo) {
+                    huella.append(' ');
+                }
+            } else if (c == '\'') {
+                // Literal de texto; '' dentro del literal es una comilla escapada
+                i++;
+                while (i < largo) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < largo && sql.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        i++;
+                        break;
+                    }
+                    i++;
+                }
+                agregarParametro(huella);
+            } else if (Character.isDigit(c) && !esParteDeIdentificador(huella)) {
+                while (i < largo && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                agregarParametro(huella);
+            } else if (c == '?') {
+                i++;
+                agregarParametro(huella);
+            } else {
+                huella.append(c);
+                i++;
+            }
+        }
+        return huella.toString();
+    }
+
+    /**
+     * Agrega un {@code ?}; si continúa una lista "(?, ?" o "(?+" la deja como "(?+".
+     */
+    private static void agregarParametro(StringBuilder huella) {
+        int fin = huella.length();
+        int coma = fin - 1;
+        if (coma >= 0 && huella.charAt(coma) == ' ') {
+            coma--;
+        }
+        if (coma >= 0 && huella.charAt(coma) == ',') {
+            int anterior = coma - 1;
+            if (anterior >= 0 && huella.charAt(anterior) == ' ') {
+                anterior--;
+            }
+            if (anterior >= 1 && huella.charAt(anterior) == '+' && huella.charAt(anterior - 1) == '?') {
+                huella.setLength(anterior + 1);
+                return;
+            }
+            if (anterior >= 1 && huella.charAt(anterior) == '?' && esInicioDeLista(huella, anterior - 1)) {
+                huella.setLength(anterior + 1);
+                huella.append('+');
+                return;
+            }
+        }
+        huella.append('?');
+    }
+
+    private static boolean esInicioDeLista(StringBuilder huella, int posicion) {
+        if (posicion >= 0 && huella.charAt(posicion) == ' ') {
+            posicion--;
+        }
+        return posicion >= 0 && huella.charAt(posicion) == '(';
+    }
+
+    private static boolean esParteDeIdentificador(StringBuilder huella) {
+        if (huella.length() == 0) {
+            return false;
+        }
+        char anterior = huella.charAt(huella.length() - 1);
+        return Character.isLetterOrDigit(anterior) || anterior == '_' || anterior == '.' || anterior == '$' || anterior == '"';
+    }
+}
@@ -0,0 +1,83 @@
+package com.salesmaster.salesmasterpro.util;
+
+import com.salesmaster.salesmasterpro.dto.PaginaDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Utilidades para la paginación por cursor (keyset) de los listados.
+ * El cursor es el último ID entregado, codificado para que el cliente lo trate como opaco.
+ */
+public final class Paginacion {
+
+    public static final int LIMITE_POR_DEFECTO = 20;
+    public static final int LIMITE_MAXIMO = 100;
+
+    private static final String PREFIJO_CURSOR = "id:";
+
+    private Paginacion() {
+    }
+
+    public static int normalizarLimite(Integer limite) {
+        if (limite == null) {
+            return LIMITE_POR_DEFECTO;
+        }
+        if (limite < 1) {
+            throw new IllegalArgumentException("El límite debe ser al menos 1");
+        }
+        return Math.min(limite, LIMITE_MAXIMO);
+    }
+
+    /**
+     * Resuelve el ID a partir del cual continuar. El cursor opaco tiene prioridad sobre after.
+     */
+    public static long resolverDespuesDe(Long after, String cursor) {
+        Long despuesDe = cursor != null && !cursor.isBlank() ? decodificarCursor(cursor) : after;
+        if (despuesDe == null) {
+            return 0L;
+        }
+        if (despuesDe < 0) {
+            throw new IllegalArgumentException("El parámetro after no puede ser negativo");
+        }
+        return despuesDe;
+    }
+
+    public static String codificarCursor(long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIJO_CURSOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static long decodificarCursor(String cursor) {
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (valor.startsWith(PREFIJO_CURSOR)) {
+                return Long.parseLong(valor.substring(PREFIJO_CURSOR.length()));
+            }
+        } catch (IllegalArgumentException e) {
+            // Base64 mal formado o ID no numérico (NumberFormatException)
+        }
+        throw new IllegalArgumentException("Cursor inválido: " + cursor);
+    }
+
+    /**
+     * Arma la página a partir de una consulta que pidió limite + 1 filas:
+     * la fila extra solo indica que hay más resultados y se descarta.
+     */
+    public static <T> PaginaDTO<T> construirPagina(List<T> items, int limite, Function<T, Long> obtenerId) {
+        boolean hayMas = items.size() > limite;
+        if (hayMas) {
+            items = items.subList(0, limite);
+        }
+        String siguienteCursor = hayMas ? codificarCursor(obtenerId.apply(items.get(items.size() - 1))) : null;
+
+        return PaginaDTO.<T>builder()
+                .items(items)
+                .siguienteCursor(siguienteCursor)
+                .hayMas(hayMas)
+                .limite(limite)
+                .build();
+    }
+}
@@ -0,0 +1,94 @@
+package com.salesmaster.salesmasterpro.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Resumen Space-Saving de los elementos más frecuentes de un flujo, con memoria fija.
+ *
+ * Guarda como máximo {@code capacidad} contadores. Cuando llega un elemento nuevo y no hay lugar,
+ * reemplaza al de menor conteo y hereda ese conteo como error: el conteo informado nunca es menor
+ * al real y lo supera como mucho en {@link #error(long)}. Cualquier elemento cuya frecuencia real
+ * sea mayor que total/capacidad está garantizado en el resumen.
+ *
+ * No es thread-safe: quien lo use debe sincronizar el acceso.
+ */
+public class SpaceSaving {
+
+    private final int capacidad;
+    private final Map<Long, long[]> contadores;
+
+    public SpaceSaving(int capacidad) {
+        if (capacidad < 1) {
+            throw new IllegalArgumentException("La capacidad debe ser al menos 1");
+        }
+        this.capacidad = capacidad;
+        this.contadores = new HashMap<>(capacidad * 2);
+    }
+
+    public void agregar(long clave, long peso) {
+        long[] contador = contadores.get(clave);
+        if (contador != null) {
+            contador[0] += peso;
+            return;
+        }
+        if (contadores.size() < capacidad) {
+            contadores.put(clave, new long[]{peso, 0});
+            return;
+        }
+
+        // Reemplaza al mínimo: con capacidades de unos cientos, recorrerlos es más barato
+        // que mantener una estructura ordenada en cada incremento
+        Long claveMinima = null;
+        long minimo = Long.MAX_VALUE;
+        for (Map.Entry<Long, long[]> entrada : contadores.entrySet()) {
+            if (entrada.getValue()[0] < minimo) {
+                minimo = entrada.getValue()[0];
+                claveMinima = entrada.getKey();
+            }
+        }
+        contadores.remove(claveMinima);
+        contadores.put(clave, new long[]{minimo + peso, minimo});
+    }
+
+    /**
+     * Cota superior del conteo de un elemento que no está en el resumen.
+     */
+    public long minimo() {
+        if (contadores.size() < capacidad) {
+            return 0;
+        }
+        long minimo = Long.MAX_VALUE;
+        for (long[] contador : contadores.values()) {
+            minimo = Math.min(minimo, contador[0]);
+        }
+        return minimo;
+    }
+
+    public long conteo(long clave) {
+        long[] contador = contadores.get(clave);
+        return contador != null ? contador[0] : 0;
+    }
+
+    public long error(long clave) {
+        long[] contador = contadores.get(clave);
+        return contador != null ? contador[1] : minimo();
+    }
+
+    public void recorrer(Visitante visitante) {
+        contadores.forEach((clave, contador) -> visitante.visitar(clave, contador[0], contador[1]));
+    }
+
+    public boolean estaVacio() {
+        return contadores.isEmpty();
+    }
+
+    public void limpiar() {
+        contadores.clear();
+    }
+
+    @FunctionalInterface
+    public interface Visitante {
+        void visitar(long clave, long conteo, long error);
+    }
+}
@@ -0,0 +1,56 @@
+package com.salesmaster.salesmasterpro.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Normalización de textos para búsquedas: minúsculas y sin los acentos que admite @ValidNombre
+ * (á, é, í, ó, ú, ü, ñ), igual que la expresión translate(lower(...)) de ClienteRepository.
+ */
+public final class TextoBusqueda {
+
+    private TextoBusqueda() {
+    }
+
+    public static String normalizar(String texto) {
+        String recortado = texto.trim();
+        StringBuilder normalizado = new StringBuilder(recortado.length());
+        for (int i = 0; i < recortado.length(); i++) {
+            normalizado.append(normalizar(recortado.charAt(i)));
+        }
+        return normalizado.toString();
+    }
+
+    /**
+     * Palabras normalizadas del texto; separa en todo lo que no sea letra o dígito (espacios, guiones, apóstrofes).
+     */
+    public static List<String> palabras(String texto) {
+        List<String> palabras = new ArrayList<>();
+        StringBuilder palabra = new StringBuilder();
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                palabra.append(normalizar(c));
+            } else if (!palabra.isEmpty()) {
+                palabras.add(palabra.toString());
+                palabra.setLength(0);
+            }
+        }
+        if (!palabra.isEmpty()) {
+            palabras.add(palabra.toString());
+        }
+        return palabras;
+    }
+
+    private static char normalizar(char c) {
+        return switch (Character.toLowerCase(c)) {
+            case 'á' -> 'a';
+            case 'é' -> 'e';
+            case 'í' -> 'i';
+            case 'ó' -> 'o';
+            case 'ú', 'ü' -> 'u';
+            case 'ñ' -> 'n';
+            default -> Character.toLowerCase(c);
+        };
+    }
+}
@@ -0,0 +1,63 @@
+package com.salesmaster.salesmasterpro.util;
+
+import com.salesmaster.salesmasterpro.exception.VersionDesactualizadaException;
+import com.salesmaster.salesmasterpro.exception.VersionRequeridaException;
+
+/**
+ * Conversión entre la versión de bloqueo optimista de una entidad y su ETag ("3").
+ */
+public final class VersionEtag {
+
+    private VersionEtag() {
+    }
+
+    public static String etag(Long version) {
+        return version == null ? null : "\"" + version + "\"";
+    }
+
+    /**
+     * {@code true} si If-Match es "*": el cliente pide actualizar sobre la versión que haya, sea cual sea.
+     */
+    public static boolean cualquierVersion(String ifMatch) {
+        return ifMatch != null && ifMatch.trim().equals("*");
+    }
+
+    /**
+     * Versión sobre la que el cliente pide actualizar: la del encabezado If-Match o, si no lo envió, el
+     * campo version del cuerpo (el que recibió al obtener el recurso). Para If-Match "*" ver
+     * {@link #cualquierVersion(String)}.
+     *
+     * @throws VersionRequeridaException si no se envió ninguna de las dos
+     */
+    public static Long versionEsperada(String ifMatch, Long versionCuerpo) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            if (versionCuerpo == null) {
+                throw new VersionRequeridaException("Envíe el encabezado If-Match con el ETag recibido o el campo " +
+                        "version, para no sobrescribir cambios de otra petición. If-Match: * actualiza sobre cualquier versión");
+            }
+            return versionCuerpo;
+        }
+        String valor = ifMatch.trim();
+        if (valor.startsWith("W/")) {
+            valor = valor.substring(2);
+        }
+        if (valor.length() < 3 || valor.charAt(0) != '"' || valor.charAt(valor.length() - 1) != '"') {
+            throw new IllegalArgumentException("If-Match debe ser un único ETag, por ejemplo \"3\"");
+        }
+        try {
+            return Long.parseLong(valor.substring(1, valor.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("If-Match no corresponde a ninguna versión: " + ifMatch);
+        }
+    }
+
+    /**
+     * @param esperada versión enviada por el cliente, o {@code null} para aceptar cualquiera
+     */
+    public static void verificar(Long esperada, Long actual, String recurso) {
+        if (esperada != null && !esperada.equals(actual)) {
+            throw new VersionDesactualizadaException("El " + recurso + " fue modificado por otra petición " +
+                    "(versión actual " + actual + ", enviada " + esperada + "). Vuelva a obtenerlo antes de actualizar");
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.salesmaster.salesmasterpro.util;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.sql.SQLException;
+
+/**
+ * Distingue una violación de restricción única de las demás violaciones de integridad (claves foráneas,
+ * nulos). Hibernate no siempre informa el tipo de restricción, así que también se mira el SQLSTATE.
+ */
+public final class ViolacionUnica {
+
+    // unique_violation en PostgreSQL y en H2
+    private static final String SQLSTATE = "23505";
+
+    private ViolacionUnica() {
+    }
+
+    public static boolean es(DataIntegrityViolationException ex) {
+        if (ex instanceof DuplicateKeyException) {
+            return true;
+        }
+        for (Throwable causa = ex.getCause(); causa != null; causa = causa.getCause()) {
+            if (causa instanceof SQLException sql && SQLSTATE.equals(sql.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
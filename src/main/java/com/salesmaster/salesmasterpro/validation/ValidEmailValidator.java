@@ -1,12 +1,14 @@
 package com.salesmaster.salesmasterpro.validation;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 import org.apache.commons.validator.routines.EmailValidator;
 
 public class ValidEmailValidator implements ConstraintValidator<ValidEmail, String> {
 
-    private static final EmailValidator commonsEmailValidator = EmailValidator.getInstance(true, true);
+    private static final VerificadorEmail verificadorEmail = new VerificadorEmail();
 
     @Override
     public void initialize(ValidEmail constraintAnnotation) {
@@ -15,13 +17,82 @@ public class ValidEmailValidator implements ConstraintValidator<ValidEmail, Stri
 
     @Override
     public boolean isValid(String email, ConstraintValidatorContext context) {
-        if (email == null || email.trim().isEmpty()) {
+        if (email == null || soloEspacios(email)) {
             return true; // La validación de @NotBlank se encarga de esto
         }
-        
-        // Valida el formato del email usando Apache Commons Validator
-        // getInstance(true, true): permite verificar dominios válidos y formato RFC 5322
-        return commonsEmailValidator.isValid(email);
+
+        // Mismas reglas que Apache Commons Validator con getInstance(true, true):
+        // formato RFC 5322 y dominios válidos (incluye locales y solo TLD)
+        return verificadorEmail.isValid(email);
     }
-}
 
+    // Lo mismo que email.trim().isEmpty(), sin crear el String recortado
+    private static boolean soloEspacios(String texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * EmailValidator de Commons con una verificación previa sin expresiones regulares y con
+     * los resultados por dominio en una caché acotada: la consulta a las listas de TLD se hace
+     * una vez por dominio y no en cada email.
+     */
+    static final class VerificadorEmail extends EmailValidator {
+
+        private static final int LARGO_MAXIMO_USUARIO = 64;
+        private static final int DOMINIOS_MAXIMOS = 10_000;
+
+        private final transient Cache<String, Boolean> dominios = Caffeine.newBuilder()
+                .maximumSize(DOMINIOS_MAXIMOS)
+                .build();
+
+        VerificadorEmail() {
+            super(true, true);
+        }
+
+        /**
+         * Equivale a {@link EmailValidator#isValid(String)}: el patrón {@code ^(.+)@(\S+)$} separa en
+         * la última arroba, el usuario no puede tener saltos de línea y el dominio no puede tener espacios.
+         */
+        @Override
+        public boolean isValid(String email) {
+            if (email == null || email.endsWith(".")) {
+                return false;
+            }
+            int arroba = email.lastIndexOf('@');
+            if (arroba <= 0 || arroba > LARGO_MAXIMO_USUARIO || arroba == email.length() - 1) {
+                return false;
+            }
+            for (int i = 0; i < arroba; i++) {
+                if (esFinDeLinea(email.charAt(i))) {
+                    return false;
+                }
+            }
+            for (int i = arroba + 1; i < email.length(); i++) {
+                if (esEspacio(email.charAt(i))) {
+                    return false;
+                }
+            }
+            return isValidUser(email.substring(0, arroba)) && isValidDomain(email.substring(arroba + 1));
+        }
+
+        @Override
+        protected boolean isValidDomain(String dominio) {
+            return dominios.get(dominio, super::isValidDomain);
+        }
+
+        // Caracteres que no acepta el "." de una expresión regular
+        private static boolean esFinDeLinea(char c) {
+            return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+        }
+
+        // Caracteres que excluye \S
+        private static boolean esEspacio(char c) {
+            return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+        }
+    }
+}
@@ -4,10 +4,12 @@ import jakarta.validation.ConstraintValidator;
 import jakarta.validation.ConstraintValidatorContext;
 
 public class ValidNombreValidator implements ConstraintValidator<ValidNombre, String> {
-    
-    // Expresión regular: letras, espacios, acentos, ñ, guiones, apóstrofes
-    // Mínimo 2 caracteres, máximo 80
-    private static final String NOMBRE_PATTERN = "^[a-zA-ZáéíóúÁÉÍÓÚñÑüÜ\\s'-]{2,80}$";
+
+    // Letras, espacios, acentos, ñ, guiones, apóstrofes; mínimo 2 caracteres, máximo 80.
+    // Equivale a ^[a-zA-ZáéíóúÁÉÍÓÚñÑüÜ\s'-]{2,80}$ con al menos 2 caracteres sin contar
+    // los espacios de los extremos, pero recorre el texto una sola vez y sin crear objetos
+    private static final int LARGO_MINIMO = 2;
+    private static final int LARGO_MAXIMO = 80;
 
     @Override
     public void initialize(ValidNombre constraintAnnotation) {
@@ -15,16 +17,41 @@ public class ValidNombreValidator implements ConstraintValidator<ValidNombre, St
 
     @Override
     public boolean isValid(String nombre, ConstraintValidatorContext context) {
-        if (nombre == null || nombre.trim().isEmpty()) {
+        if (nombre == null || nombre.length() < LARGO_MINIMO || nombre.length() > LARGO_MAXIMO) {
             return false;
         }
-        
+
+        int primero = -1;
+        int ultimo = -1;
+        for (int i = 0; i < nombre.length(); i++) {
+            char c = nombre.charAt(i);
+            if (esEspacio(c)) {
+                continue;
+            }
+            if (!esPermitido(c)) {
+                return false;
+            }
+            if (primero < 0) {
+                primero = i;
+            }
+            ultimo = i;
+        }
         // Verificar que no sea solo espacios
-        if (nombre.trim().length() < 2) {
-            return false;
+        return primero >= 0 && ultimo - primero + 1 >= LARGO_MINIMO;
+    }
+
+    // Los mismos caracteres que \s en una expresión regular
+    private static boolean esEspacio(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean esPermitido(char c) {
+        if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '\'' || c == '-') {
+            return true;
         }
-        
-        return nombre.matches(NOMBRE_PATTERN);
+        return switch (c) {
+            case 'á', 'é', 'í', 'ó', 'ú', 'Á', 'É', 'Í', 'Ó', 'Ú', 'ñ', 'Ñ', 'ü', 'Ü' -> true;
+            default -> false;
+        };
     }
 }
-
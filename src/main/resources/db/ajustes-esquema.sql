@@ -0,0 +1,43 @@
+-- Ajustes que Hibernate (ddl-auto=update) no aplica por sí solo.
+-- Se ejecuta en cada arranque después de Hibernate: todas las sentencias deben ser idempotentes.
+
+-- Las entidades reservan IDs de a 50 (optimizador pooled) para poder agrupar INSERTs en batch
+ALTER SEQUENCE IF EXISTS salesmaster.cliente_id_cliente_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS salesmaster.producto_id_prod_seq INCREMENT BY 50;
+ALTER SEQUENCE IF EXISTS salesmaster.pedido_id_pedido_seq INCREMENT BY 50;
+
+-- Antes del índice único: las facturas que repiten un número (la numeración anterior contaba las del día
+-- y dos peticiones simultáneas podían recibir el mismo) pasan a números nuevos después del último de su
+-- día; la primera de cada número lo conserva. Sin repetidos no modifica nada
+UPDATE salesmaster.factura f
+SET nro = r.nuevo
+FROM (SELECT d.id_factura,
+             d.prefijo || LPAD(CAST(m.ultimo + ROW_NUMBER() OVER (PARTITION BY d.prefijo ORDER BY d.id_factura) AS TEXT), 4, '0') AS nuevo
+      FROM (SELECT id_factura, LEFT(nro, 11) AS prefijo,
+                   ROW_NUMBER() OVER (PARTITION BY nro ORDER BY id_factura) AS orden
+            FROM salesmaster.factura
+            WHERE nro ~ '^FAC-[0-9]{6}-[0-9]{4}$') d
+      JOIN (SELECT LEFT(nro, 11) AS prefijo, MAX(CAST(SUBSTRING(nro FROM 12) AS BIGINT)) AS ultimo
+            FROM salesmaster.factura
+            WHERE nro ~ '^FAC-[0-9]{6}-[0-9]{4}$'
+            GROUP BY LEFT(nro, 11)) m ON m.prefijo = d.prefijo
+      WHERE d.orden > 1) r
+WHERE f.id_factura = r.id_factura;
+
+-- El contador de cada día sigue después de los números que se acaban de asignar
+UPDATE salesmaster.factura_contador c
+SET ultimo = m.ultimo
+FROM (SELECT LEFT(nro, 11) AS prefijo, MAX(CAST(SUBSTRING(nro FROM 12) AS BIGINT)) AS ultimo
+      FROM salesmaster.factura
+      WHERE nro ~ '^FAC-[0-9]{6}-[0-9]{4}$'
+      GROUP BY LEFT(nro, 11)) m
+WHERE m.prefijo = 'FAC-' || TO_CHAR(c.fecha, 'YYMMDD') || '-' AND c.ultimo < m.ultimo;
+
+-- Cada número de factura se entrega una sola vez (ver NumeradorFacturas)
+CREATE UNIQUE INDEX IF NOT EXISTS uk_factura_nro ON salesmaster.factura (nro);
+
+-- Búsqueda de clientes (ver ClienteRepository.TEXTO_BUSQUEDA): índice de trigramas sobre nombre y email
+-- en minúsculas y sin acentos, para LIKE '%texto%', prefijos de palabras y similitud (<%)
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_cliente_busqueda_trgm ON salesmaster.cliente
+    USING gin ((translate(lower(nombre || ' ' || email), 'áéíóúüñÁÉÍÓÚÜÑ', 'aeiouunaeiouun')) gin_trgm_ops);
@@ -0,0 +1,79 @@
+package com.salesmaster.salesmasterpro.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica que salesmaster.http.consultas registre un solo valor por petición, también cuando la
+ * respuesta sigue de forma asíncrona.
+ */
+class ConsultasPorPeticionInterceptorTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ConsultasPorPeticionInterceptor interceptor = new ConsultasPorPeticionInterceptor(registry);
+    private final ContadorSentencias contador = new ContadorSentencias();
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @AfterEach
+    void limpiar() {
+        ContadorSentencias.finalizar();
+    }
+
+    @Test
+    void peticionNormalRegistraLasSentencias() {
+        MockHttpServletRequest request = peticion("/api/pedidos");
+
+        interceptor.preHandle(request, response, null);
+        ejecutarSentencias(3);
+        interceptor.afterCompletion(request, response, null, null);
+
+        DistributionSummary resumen = resumen("/api/pedidos");
+        assertThat(resumen.count()).isEqualTo(1);
+        assertThat(resumen.totalAmount()).isEqualTo(3);
+    }
+
+    @Test
+    void peticionAsincronaRegistraLoEjecutadoAntesDeSeguirEnOtroHilo() {
+        MockHttpServletRequest request = peticion("/api/facturas/export");
+
+        interceptor.preHandle(request, response, null);
+        ejecutarSentencias(2);
+        interceptor.afterConcurrentHandlingStarted(request, response, null);
+        // Lo que corre en otro hilo ya no se cuenta
+        ejecutarSentencias(5);
+
+        // Despacho que cierra la respuesta
+        request.setDispatcherType(DispatcherType.ASYNC);
+        interceptor.preHandle(request, response, null);
+        ejecutarSentencias(1);
+        interceptor.afterCompletion(request, response, null, null);
+
+        DistributionSummary resumen = resumen("/api/facturas/export");
+        assertThat(resumen.count()).isEqualTo(1);
+        assertThat(resumen.totalAmount()).isEqualTo(2);
+    }
+
+    private void ejecutarSentencias(int cantidad) {
+        for (int i = 0; i < cantidad; i++) {
+            contador.inspect("select 1");
+        }
+    }
+
+    private DistributionSummary resumen(String ruta) {
+        return registry.get("salesmaster.http.consultas").tag("uri", ruta).summary();
+    }
+
+    private static MockHttpServletRequest peticion(String ruta) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", ruta);
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, ruta);
+        return request;
+    }
+}
@@ -0,0 +1,194 @@
+package com.salesmaster.salesmasterpro.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica a qué base va cada transacción con RutaLecturaDataSource, usando tres bases H2 en memoria
+ * como primario y réplicas: cada una tiene una tabla con su propio nombre y otra vacía para escribir.
+ * El retraso de replicación de cada réplica se controla desde el test.
+ */
+class RutaLecturaDataSourceTest {
+
+    private static final Duration RETRASO_MAXIMO = Duration.ofSeconds(2);
+
+    private final Map<DataSource, Duration> retrasos = new HashMap<>();
+
+    private EmbeddedDatabase primario;
+    private EmbeddedDatabase replica1;
+    private EmbeddedDatabase replica2;
+    private RutaLecturaDataSource ruta;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate escritura;
+    private TransactionTemplate lectura;
+
+    @BeforeEach
+    void preparar() {
+        primario = crearBase("primario");
+        replica1 = crearBase("replica-1");
+        replica2 = crearBase("replica-2");
+        retrasos.put(replica1, Duration.ZERO);
+        retrasos.put(replica2, Duration.ZERO);
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", replica1);
+        replicas.put("replica-2", replica2);
+        ruta = new RutaLecturaDataSource(primario, replicas, RETRASO_MAXIMO, Duration.ofMinutes(1)) {
+            @Override
+            protected Duration medirRetraso(DataSource replica) throws SQLException {
+                Duration retraso = retrasos.get(replica);
+                if (retraso == null) {
+                    throw new SQLException("Conexión rechazada");
+                }
+                return retraso;
+            }
+        };
+
+        // Igual que en ReplicasConfig: la conexión real se pide con la transacción ya iniciada
+        DataSource dataSource = new LazyConnectionDataSourceProxy(ruta);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        escritura = new TransactionTemplate(transactionManager);
+        lectura = new TransactionTemplate(transactionManager);
+        lectura.setReadOnly(true);
+    }
+
+    @AfterEach
+    void cerrar() {
+        SesionLectura.finalizar();
+        primario.shutdown();
+        replica1.shutdown();
+        replica2.shutdown();
+    }
+
+    @Test
+    void lecturasSeTurnanEntreLasReplicas() {
+        ruta.verificarReplicas();
+
+        Set<String> origenes = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            origenes.add(leer());
+        }
+        assertThat(origenes).containsExactlyInAnyOrder("replica-1", "replica-2");
+    }
+
+    @Test
+    void escriturasYAccesosSinTransaccionVanAlPrimario() {
+        ruta.verificarReplicas();
+
+        assertThat(origen()).isEqualTo("primario");
+        assertThat(escritura.<String>execute(status -> origen())).isEqualTo("primario");
+    }
+
+    @Test
+    void antesDeVerificarLasReplicasSeLeeDelPrimario() {
+        assertThat(leer()).isEqualTo("primario");
+    }
+
+    @Test
+    void replicaConRetrasoQuedaFueraHastaPonerseAlDia() {
+        retrasos.put(replica1, RETRASO_MAXIMO.plusMillis(1));
+        ruta.verificarReplicas();
+        for (int i = 0; i < 4; i++) {
+            assertThat(leer()).isEqualTo("replica-2");
+        }
+
+        retrasos.put(replica1, RETRASO_MAXIMO);
+        ruta.verificarReplicas();
+        Set<String> origenes = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            origenes.add(leer());
+        }
+        assertThat(origenes).containsExactlyInAnyOrder("replica-1", "replica-2");
+    }
+
+    @Test
+    void sinReplicasDisponiblesSeLeeDelPrimario() {
+        retrasos.put(replica1, Duration.ofMinutes(5));
+        retrasos.remove(replica2);
+        ruta.verificarReplicas();
+
+        assertThat(leer()).isEqualTo("primario");
+        assertThat(leer()).isEqualTo("primario");
+    }
+
+    @Test
+    void despuesDeEscribirLaSesionLeeDelPrimario() {
+        ruta.verificarReplicas();
+        assertThat(leer()).startsWith("replica-");
+
+        escritura.executeWithoutResult(status ->
+                jdbcTemplate.update("INSERT INTO pedido (id) VALUES (1)"));
+        assertThat(leer()).isEqualTo("primario");
+        assertThat(lectura.<Integer>execute(status -> jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pedido", Integer.class))).isEqualTo(1);
+
+        // Otra sesión no escribió: sigue leyendo de las réplicas
+        SesionLectura.finalizar();
+        assertThat(leer()).startsWith("replica-");
+    }
+
+    @Test
+    void escrituraRevertidaNoFijaLaSesionEnElPrimario() {
+        ruta.verificarReplicas();
+
+        escritura.executeWithoutResult(status -> {
+            jdbcTemplate.update("INSERT INTO pedido (id) VALUES (1)");
+            status.setRollbackOnly();
+        });
+        assertThat(leer()).startsWith("replica-");
+    }
+
+    @Test
+    void plazoDeLecturaPropiaRecibidoDeOtraPeticion() {
+        ruta.verificarReplicas();
+
+        SesionLectura.iniciar(System.currentTimeMillis() + 60_000, hasta -> {
+        });
+        assertThat(leer()).isEqualTo("primario");
+
+        SesionLectura.iniciar(System.currentTimeMillis() - 1, hasta -> {
+        });
+        assertThat(leer()).startsWith("replica-");
+    }
+
+    private String leer() {
+        return lectura.execute(status -> origen());
+    }
+
+    private String origen() {
+        return jdbcTemplate.queryForObject("SELECT nombre FROM origen", String.class);
+    }
+
+    private static EmbeddedDatabase crearBase(String nombre) {
+        EmbeddedDatabase base = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName(nombre + "-" + UUID.randomUUID())
+                .build();
+        JdbcTemplate plantilla = new JdbcTemplate(base);
+        plantilla.execute("CREATE TABLE origen (nombre VARCHAR(20))");
+        plantilla.update("INSERT INTO origen (nombre) VALUES (?)", nombre);
+        plantilla.execute("CREATE TABLE pedido (id BIGINT)");
+        return base;
+    }
+}
@@ -0,0 +1,89 @@
+package com.salesmaster.salesmasterpro.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica que del actuator solo health sea público: métricas, prometheus y sqlstats piden el usuario
+ * configurado en salesmaster.actuator.*. Levanta solo la seguridad y el actuator, sin base de datos.
+ */
+@SpringBootTest(classes = SeguridadActuatorTest.Aplicacion.class, properties = {
+        "management.endpoints.web.exposure.include=health,metrics,prometheus,sqlstats",
+        "salesmaster.actuator.usuario=monitor",
+        "salesmaster.actuator.clave=secreta"
+})
+@AutoConfigureMockMvc
+// Los tests desactivan la exportación de métricas; sin esto /actuator/prometheus no existe
+@AutoConfigureObservability(tracing = false)
+class SeguridadActuatorTest {
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration(exclude = DataSourceAutoConfiguration.class)
+    @Import({SecurityConfig.class, SqlStatsEndpoint.class})
+    static class Aplicacion {
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private TrazadorSql trazadorSql;
+
+    @Test
+    void healthEsPublico() throws Exception {
+        mockMvc.perform(get("/actuator/health"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void metricasYPrometheusPidenUsuario() throws Exception {
+        for (String ruta : new String[]{"/actuator/metrics", "/actuator/prometheus", "/actuator/sqlstats"}) {
+            mockMvc.perform(get(ruta))
+                    .andExpect(status().isUnauthorized());
+            mockMvc.perform(get(ruta).with(httpBasic("monitor", "otra")))
+                    .andExpect(status().isUnauthorized());
+        }
+        mockMvc.perform(get("/actuator/metrics").with(httpBasic("monitor", "secreta")))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/actuator/prometheus").with(httpBasic("monitor", "secreta")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void reiniciarSqlstatsPideUsuario() throws Exception {
+        mockMvc.perform(delete("/actuator/sqlstats"))
+                .andExpect(status().isUnauthorized());
+        verifyNoInteractions(trazadorSql);
+
+        mockMvc.perform(delete("/actuator/sqlstats").with(httpBasic("monitor", "secreta")))
+                .andExpect(status().is2xxSuccessful());
+        verify(trazadorSql).reiniciar();
+    }
+
+    @Test
+    void sqlstatsConUsuarioResponde() throws Exception {
+        when(trazadorSql.estadisticas()).thenReturn(List.of());
+
+        mockMvc.perform(get("/actuator/sqlstats").with(httpBasic("monitor", "secreta")))
+                .andExpect(status().isOk());
+    }
+}
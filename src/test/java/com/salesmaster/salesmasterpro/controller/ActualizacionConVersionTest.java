@@ -0,0 +1,120 @@
+package com.salesmaster.salesmasterpro.controller;
+
+import com.salesmaster.salesmasterpro.dto.ProductoDTO;
+import com.salesmaster.salesmasterpro.exception.GlobalExceptionHandler;
+import com.salesmaster.salesmasterpro.exception.VersionDesactualizadaException;
+import com.salesmaster.salesmasterpro.service.ProductoService;
+import com.salesmaster.salesmasterpro.service.ReintentoConflictos;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica cómo PUT /api/productos/{id} elige la versión esperada (If-Match, campo version o ninguna)
+ * y las respuestas 412, 428 y 409 ante conflictos de versión.
+ */
+class ActualizacionConVersionTest {
+
+    private ProductoService productoService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void preparar() {
+        productoService = mock(ProductoService.class);
+        ProductoController controller = new ProductoController(productoService, null, null, null,
+                new ReintentoConflictos(3, Duration.ofMillis(1)));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void ifMatchEsLaVersionEsperada() throws Exception {
+        when(productoService.actualizarProducto(eq(1L), any(), eq(3L))).thenReturn(actualizado(4L));
+
+        actualizar("\"3\"", 7L)
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+    }
+
+    @Test
+    void sinIfMatchSeUsaLaVersionDelCuerpo() throws Exception {
+        when(productoService.actualizarProducto(eq(1L), any(), eq(7L))).thenReturn(actualizado(8L));
+
+        actualizar(null, 7L).andExpect(status().isOk());
+    }
+
+    @Test
+    void sinVersionRespondePreconditionRequired() throws Exception {
+        actualizar(null, null).andExpect(status().isPreconditionRequired());
+
+        verify(productoService, never()).actualizarProducto(any(), any(), any());
+    }
+
+    @Test
+    void versionDesactualizadaRespondePreconditionFailedSinReintentar() throws Exception {
+        when(productoService.actualizarProducto(eq(1L), any(), eq(3L)))
+                .thenThrow(new VersionDesactualizadaException("El producto fue modificado por otra petición"));
+
+        actualizar(null, 3L).andExpect(status().isPreconditionFailed());
+        verify(productoService, times(1)).actualizarProducto(any(), any(), any());
+    }
+
+    @Test
+    void ifMatchCualquieraReintentaLosConflictosYLuegoRespondeConflict() throws Exception {
+        when(productoService.actualizarProducto(eq(1L), any(), isNull()))
+                .thenThrow(new ObjectOptimisticLockingFailureException("Producto", 1L));
+
+        actualizar("*", 3L).andExpect(status().isConflict());
+        verify(productoService, times(3)).actualizarProducto(eq(1L), any(), isNull());
+    }
+
+    @Test
+    void ifMatchCualquieraGuardaSiElReintentoGana() throws Exception {
+        when(productoService.actualizarProducto(eq(1L), any(), isNull()))
+                .thenThrow(new ObjectOptimisticLockingFailureException("Producto", 1L))
+                .thenReturn(actualizado(5L));
+
+        actualizar("*", null)
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"5\""));
+    }
+
+    @Test
+    void ifMatchMalFormadoRespondeBadRequest() throws Exception {
+        actualizar("3", null).andExpect(status().isBadRequest());
+    }
+
+    private ResultActions actualizar(String ifMatch, Long version) throws Exception {
+        String cuerpo = "{\"nombre\":\"Café\",\"precio\":10.50" + (version != null ? ",\"version\":" + version : "") + "}";
+        var peticion = put("/api/productos/1").contentType(MediaType.APPLICATION_JSON).content(cuerpo);
+        if (ifMatch != null) {
+            peticion.header(HttpHeaders.IF_MATCH, ifMatch);
+        }
+        return mockMvc.perform(peticion);
+    }
+
+    private static ProductoDTO actualizado(Long version) {
+        return ProductoDTO.builder().idProd(1L).nombre("Café").precio(new BigDecimal("10.50")).version(version).build();
+    }
+}
@@ -0,0 +1,203 @@
+package com.salesmaster.salesmasterpro.service;
+
+import com.salesmaster.salesmasterpro.dto.ProductoDTO;
+import com.salesmaster.salesmasterpro.event.IdsCompactadosEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifica el índice en memoria de BusquedaProductosService. Los productos se cargan desde una base
+ * H2 en memoria con la tabla salesmaster.producto; fuera de una transacción, las altas, cambios y
+ * bajas se aplican al índice en el momento.
+ */
+class BusquedaProductosServiceTest {
+
+    private EmbeddedDatabase base;
+    private JdbcTemplate jdbcTemplate;
+    private TransaccionesRegistradas transactionManager;
+    private BusquedaProductosService busqueda;
+
+    @BeforeEach
+    void preparar() {
+        base = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName("busqueda-" + UUID.randomUUID())
+                .build();
+        jdbcTemplate = new JdbcTemplate(base);
+        jdbcTemplate.execute("CREATE SCHEMA salesmaster");
+        jdbcTemplate.execute("CREATE TABLE salesmaster.producto (id_prod BIGINT PRIMARY KEY, nombre VARCHAR(80), precio DECIMAL(10, 2))");
+        transactionManager = new TransaccionesRegistradas(base);
+        busqueda = new BusquedaProductosService(base, transactionManager);
+    }
+
+    @AfterEach
+    void cerrar() {
+        base.shutdown();
+    }
+
+    @Test
+    void guardarVariosEquivaleAGuardarDeAUno() {
+        insertar(1, "Café molido", "10.00");
+        insertar(2, "Té verde", "5.00");
+        busqueda.cargar();
+        BusquedaProductosService deAUno = new BusquedaProductosService(base, transactionManager);
+        deAUno.cargar();
+
+        List<ProductoDTO> cambios = List.of(
+                producto(3, "Café en grano", "12.00"),
+                producto(1, "Café tostado", "4.00"),
+                producto(4, "Azúcar", "5.00"));
+        busqueda.guardarTodosAlConfirmar(cambios);
+        cambios.forEach(deAUno::guardarAlConfirmar);
+
+        for (String texto : new String[]{null, "cafe", "molido", "tostado", "te", "azucar"}) {
+            assertThat(ids(busqueda.buscar(texto, null, null, 10)))
+                    .as(texto)
+                    .isEqualTo(ids(deAUno.buscar(texto, null, null, 10)));
+        }
+        assertThat(ids(busqueda.buscar(null, null, null, 10))).containsExactly(1L, 2L, 4L, 3L);
+        assertThat(busqueda.buscar("molido", null, null, 10)).isEmpty();
+    }
+
+    @Test
+    void guardarVariosConElMismoProductoQuedaLaUltimaVersion() {
+        busqueda.guardarTodosAlConfirmar(List.of(
+                producto(1, "Harina", "3.00"),
+                producto(1, "Harina integral", "3.50")));
+
+        assertThat(busqueda.buscar(null, null, null, 10))
+                .singleElement()
+                .satisfies(p -> {
+                    assertThat(p.getNombre()).isEqualTo("Harina integral");
+                    assertThat(p.getPrecio()).isEqualByComparingTo("3.50");
+                });
+        assertThat(ids(busqueda.buscar("integral", null, null, 10))).containsExactly(1L);
+    }
+
+    @Test
+    void buscaPorPrefijoDeCadaPalabraSinAcentosNiMayusculas() {
+        busqueda.guardarTodosAlConfirmar(List.of(
+                producto(1, "Café molido", "10.00"),
+                producto(2, "Cafetera italiana", "45.00"),
+                producto(3, "Té de manzanilla", "3.00"),
+                producto(4, "Molinillo de café", "25.00")));
+
+        assertThat(ids(busqueda.buscar("CAFE", null, null, 10))).containsExactly(1L, 4L, 2L);
+        assertThat(ids(busqueda.buscar("caf mol", null, null, 10))).containsExactly(1L, 4L);
+        assertThat(ids(busqueda.buscar("té", null, null, 10))).containsExactly(3L);
+        assertThat(busqueda.buscar("cafe te", null, null, 10)).isEmpty();
+        assertThat(busqueda.buscar("azucar", null, null, 10)).isEmpty();
+        // Primero el que coincide con más palabras completas; después, el nombre más corto
+        assertThat(ids(busqueda.buscar("cafe", null, null, 2))).containsExactly(1L, 4L);
+    }
+
+    @Test
+    void cambioDeNombreYPrecioReemplazaLoAnterior() {
+        busqueda.guardarAlConfirmar(producto(1, "Café molido", "10.00"));
+        busqueda.guardarAlConfirmar(producto(2, "Té verde", "5.00"));
+
+        busqueda.guardarAlConfirmar(producto(1, "Chocolate amargo", "30.00"));
+
+        assertThat(busqueda.buscar("cafe", null, null, 10)).isEmpty();
+        assertThat(busqueda.buscar("molido", null, null, 10)).isEmpty();
+        assertThat(ids(busqueda.buscar("choco", null, null, 10))).containsExactly(1L);
+        assertThat(busqueda.buscar(null, null, new BigDecimal("20.00"), 10))
+                .extracting(ProductoDTO::getIdProd).containsExactly(2L);
+        assertThat(ids(busqueda.buscar(null, new BigDecimal("20.00"), null, 10))).containsExactly(1L);
+    }
+
+    @Test
+    void bajaQuitaPalabrasYPrecio() {
+        busqueda.guardarTodosAlConfirmar(List.of(
+                producto(1, "Café molido", "10.00"),
+                producto(2, "Café en grano", "10.00")));
+
+        busqueda.eliminarAlConfirmar(1L);
+        // Eliminar algo que no está no cambia nada
+        busqueda.eliminarAlConfirmar(99L);
+
+        assertThat(ids(busqueda.buscar("cafe", null, null, 10))).containsExactly(2L);
+        assertThat(busqueda.buscar("molido", null, null, 10)).isEmpty();
+        assertThat(ids(busqueda.buscar(null, null, null, 10))).containsExactly(2L);
+    }
+
+    @Test
+    void rangoDePreciosIncluyeLosExtremosYRespetaElLimite() {
+        busqueda.guardarTodosAlConfirmar(List.of(
+                producto(1, "Uno", "5.00"),
+                producto(2, "Dos", "10.00"),
+                producto(3, "Tres", "10.00"),
+                producto(4, "Cuatro", "15.50"),
+                producto(5, "Cinco", "20.00")));
+
+        assertThat(ids(busqueda.buscar(null, new BigDecimal("10"), new BigDecimal("15.50"), 10))).containsExactly(2L, 3L, 4L);
+        // Los límites con más de dos decimales se redondean hacia adentro del rango
+        assertThat(ids(busqueda.buscar(null, new BigDecimal("5.001"), new BigDecimal("15.499"), 10))).containsExactly(2L, 3L);
+        assertThat(ids(busqueda.buscar(null, new BigDecimal("10"), null, 2))).containsExactly(2L, 3L);
+        assertThat(busqueda.buscar(null, new BigDecimal("20.01"), null, 10)).isEmpty();
+        assertThat(ids(busqueda.buscar("tres cuatro", null, null, 10))).isEmpty();
+        assertThat(ids(busqueda.buscar("c", new BigDecimal("16"), null, 10))).containsExactly(5L);
+
+        assertThatThrownBy(() -> busqueda.buscar(null, new BigDecimal("10"), new BigDecimal("5"), 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void compactarIdsRecargaEnUnaTransaccionDeSoloLectura() {
+        insertar(1, "Café molido", "10.00");
+        busqueda.guardarAlConfirmar(producto(7, "Café viejo", "10.00"));
+
+        busqueda.alCompactarIds(new IdsCompactadosEvent(0, 1));
+
+        assertThat(ids(busqueda.buscar("cafe", null, null, 10))).containsExactly(1L);
+        assertThat(transactionManager.iniciadas)
+                .singleElement()
+                .satisfies(definicion -> assertThat(definicion.isReadOnly()).isTrue());
+    }
+
+    private void insertar(long id, String nombre, String precio) {
+        jdbcTemplate.update("INSERT INTO salesmaster.producto (id_prod, nombre, precio) VALUES (?, ?, ?)",
+                id, nombre, new BigDecimal(precio));
+    }
+
+    private static ProductoDTO producto(long id, String nombre, String precio) {
+        return ProductoDTO.builder().idProd(id).nombre(nombre).precio(new BigDecimal(precio)).build();
+    }
+
+    private static List<Long> ids(List<ProductoDTO> productos) {
+        return productos.stream().map(ProductoDTO::getIdProd).toList();
+    }
+
+    /**
+     * Guarda la definición de cada transacción que empieza.
+     */
+    private static class TransaccionesRegistradas extends DataSourceTransactionManager {
+
+        private final List<TransactionDefinition> iniciadas = new ArrayList<>();
+
+        TransaccionesRegistradas(EmbeddedDatabase base) {
+            super(base);
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            iniciadas.add(definition);
+            super.doBegin(transaction, definition);
+        }
+    }
+}
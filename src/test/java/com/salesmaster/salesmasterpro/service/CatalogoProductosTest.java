@@ -0,0 +1,129 @@
+package com.salesmaster.salesmasterpro.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.salesmaster.salesmasterpro.config.CacheConfig;
+import com.salesmaster.salesmasterpro.dto.ProductoDTO;
+import com.salesmaster.salesmasterpro.entity.Producto;
+import com.salesmaster.salesmasterpro.event.IdsCompactadosEvent;
+import com.salesmaster.salesmasterpro.repository.ProductoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifica que el catálogo de precios no vuelva a guardar un precio leído antes de una invalidación,
+ * tampoco cuando la lectura ocurre dentro de la transacción de un pedido.
+ */
+class CatalogoProductosTest {
+
+    private ProductoRepository productoRepository;
+    private CaffeineCacheManager caffeine;
+    private CatalogoProductos catalogo;
+
+    @BeforeEach
+    void preparar() {
+        productoRepository = mock(ProductoRepository.class);
+        caffeine = new CaffeineCacheManager();
+        caffeine.registerCustomCache(CacheConfig.CATALOGO_PRODUCTOS, Caffeine.newBuilder().build());
+        // Igual que en CacheConfig: la caché registrada difiere las operaciones al confirmar
+        catalogo = new CatalogoProductos(productoRepository, new TransactionAwareCacheManagerProxy(caffeine));
+    }
+
+    @AfterEach
+    void limpiar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void segundaLecturaSaleDeCache() {
+        when(productoRepository.findAllById(anyIterable())).thenReturn(List.of(producto(1L, "10.00")));
+
+        catalogo.obtener(List.of(1L));
+        assertThat(catalogo.obtener(List.of(1L)).get(1L).getPrecio()).isEqualByComparingTo("10.00");
+
+        verify(productoRepository, times(1)).findAllById(anyIterable());
+    }
+
+    @Test
+    void precioLeidoEnUnPedidoAntesDeCambiarNoQuedaEnCache() {
+        // El precio cambia y se confirma en otra transacción mientras el pedido lee el anterior
+        when(productoRepository.findAllById(anyIterable())).thenAnswer(invocacion -> {
+            CompletableFuture.runAsync(() -> catalogo.invalidarAlConfirmar(1L)).join();
+            return List.of(producto(1L, "10.00"));
+        });
+
+        TransactionSynchronizationManager.initSynchronization();
+        assertThat(catalogo.obtener(List.of(1L)).get(1L).getPrecio()).isEqualByComparingTo("10.00");
+        confirmar();
+
+        assertThat(cache().get(1L)).isNull();
+        when(productoRepository.findAllById(anyIterable())).thenReturn(List.of(producto(1L, "12.00")));
+        assertThat(catalogo.obtener(List.of(1L)).get(1L).getPrecio()).isEqualByComparingTo("12.00");
+    }
+
+    @Test
+    void lecturaDentroDeUnaTransaccionSeGuardaEnElMomento() {
+        when(productoRepository.findAllById(anyIterable())).thenReturn(List.of(producto(1L, "10.00")));
+
+        TransactionSynchronizationManager.initSynchronization();
+        catalogo.obtener(List.of(1L));
+
+        assertThat(cache().get(1L)).isNotNull();
+    }
+
+    @Test
+    void invalidacionEsperaALaConfirmacion() {
+        when(productoRepository.findAllById(anyIterable())).thenReturn(List.of(producto(1L, "10.00")));
+        catalogo.obtener(List.of(1L));
+
+        TransactionSynchronizationManager.initSynchronization();
+        catalogo.invalidarAlConfirmar(1L);
+        assertThat(cache().get(1L)).isNotNull();
+
+        confirmar();
+        assertThat(cache().get(1L)).isNull();
+    }
+
+    @Test
+    void compactarIdsVaciaElCatalogo() {
+        when(productoRepository.findAllById(anyIterable())).thenReturn(List.of(producto(1L, "10.00"), producto(2L, "5.00")));
+        catalogo.obtener(List.of(1L, 2L));
+
+        catalogo.alCompactarIds(new IdsCompactadosEvent(0, 2));
+
+        assertThat(cache().get(1L)).isNull();
+        assertThat(cache().get(2L)).isNull();
+    }
+
+    private Cache cache() {
+        return caffeine.getCache(CacheConfig.CATALOGO_PRODUCTOS);
+    }
+
+    private static void confirmar() {
+        List<TransactionSynchronization> sincronizaciones = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        sincronizaciones.forEach(TransactionSynchronization::afterCommit);
+    }
+
+    private static Producto producto(Long id, String precio) {
+        return Producto.builder().idProd(id).nombre("Producto " + id).precio(new BigDecimal(precio)).build();
+    }
+}
@@ -0,0 +1,131 @@
+package com.salesmaster.salesmasterpro.service;
+
+import com.salesmaster.salesmasterpro.dto.ClienteDTO;
+import com.salesmaster.salesmasterpro.entity.Cliente;
+import com.salesmaster.salesmasterpro.repository.ClienteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.context.transaction.TestTransaction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Verifica que ClienteService solo consulte el email en la base cuando RegistroEmails no puede
+ * descartarlo, que una baja revertida no libere el email y que un duplicado que solo detecta la
+ * restricción única de cliente.email dé el mismo 400 que el que se detecta antes de escribir.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true",
+        "spring.sql.init.mode=never"
+})
+@Import({ClienteService.class, RegistroEmails.class})
+class ClienteEmailTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ClienteService clienteService;
+
+    @Autowired
+    private RegistroEmails registroEmails;
+
+    @MockitoSpyBean
+    private ClienteRepository clienteRepository;
+
+    @MockitoBean
+    private FacturasSerializadas facturasSerializadas;
+
+    private Cliente existente;
+
+    @BeforeEach
+    void preparar() {
+        existente = em.persistFlushFind(Cliente.builder().nombre("Juan Pérez").email("juan@example.com").build());
+        // Como al arrancar la aplicación
+        registroEmails.cargar();
+    }
+
+    @Test
+    void emailNuevoNoConsultaLaBase() {
+        ClienteDTO creado = clienteService.crearCliente(cliente("ana@example.com"));
+
+        assertThat(creado.getIdCliente()).isNotNull();
+        verify(clienteRepository, never()).findByEmail(anyString());
+    }
+
+    @Test
+    void variantesDeMayusculasSeConfirmanEnLaBase() {
+        // El registro normaliza, la columna no: hay que consultar y el email resulta disponible
+        ClienteDTO creado = clienteService.crearCliente(cliente(" JUAN@Example.com "));
+
+        assertThat(creado.getEmail()).isEqualTo(" JUAN@Example.com ");
+        verify(clienteRepository).findByEmail(" JUAN@Example.com ");
+    }
+
+    @Test
+    void emailRegistradoSeRechazaConsultandoLaBase() {
+        assertThatThrownBy(() -> clienteService.crearCliente(cliente("juan@example.com")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Ya existe un cliente con el email: juan@example.com");
+        verify(clienteRepository).findByEmail("juan@example.com");
+    }
+
+    @Test
+    void bajaRevertidaMantieneElEmailRegistrado() {
+        clienteService.eliminarCliente(existente.getIdCliente());
+        TestTransaction.flagForRollback();
+        TestTransaction.end();
+
+        assertThat(registroEmails.puedeEstarRegistrado("juan@example.com")).isTrue();
+    }
+
+    @Test
+    void bajaConfirmadaLiberaElEmail() {
+        clienteService.eliminarCliente(existente.getIdCliente());
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        assertThat(registroEmails.puedeEstarRegistrado("juan@example.com")).isFalse();
+        jdbcTemplate.update("DELETE FROM salesmaster.cliente");
+    }
+
+    @Test
+    void duplicadoDetectadoPorLaRestriccionDaElMismoMensaje() {
+        // Registrado por otra instancia: este registro no lo conoce y no se consulta la base
+        jdbcTemplate.update("INSERT INTO salesmaster.cliente (id_cliente, nombre, email, version) VALUES (?, ?, ?, 0)",
+                1000, "Ana Gómez", "ana@example.com");
+
+        assertThatThrownBy(() -> clienteService.crearCliente(cliente("ana@example.com")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Ya existe un cliente con el email: ana@example.com");
+        verify(clienteRepository, never()).findByEmail(anyString());
+    }
+
+    @Test
+    void otrasViolacionesDeIntegridadNoSeInformanComoEmailRepetido() {
+        ClienteDTO sinNombre = ClienteDTO.builder().email("ana@example.com").build();
+
+        assertThatThrownBy(() -> clienteService.crearCliente(sinNombre))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    private static ClienteDTO cliente(String email) {
+        return ClienteDTO.builder().nombre("Cliente de prueba").email(email).build();
+    }
+}
@@ -0,0 +1,102 @@
+package com.salesmaster.salesmasterpro.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.salesmaster.salesmasterpro.config.CacheConfig;
+import com.salesmaster.salesmasterpro.dto.FacturaDTO;
+import com.salesmaster.salesmasterpro.entity.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifica que el JSON que se guarda al emitir una factura sea el mismo que se arma después leyéndola de
+ * la base: misma fecha (la base guarda hasta microsegundos) y mismos items en el mismo orden, así que el
+ * ETag no cambia entre instancias ni cuando se vacía la caché.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true",
+        "spring.sql.init.mode=never"
+})
+@Import(FacturaService.class)
+class FacturaEmitidaSerializadaTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private FacturaService facturaService;
+
+    @MockitoBean
+    private NumeradorFacturas numeradorFacturas;
+
+    // Como el de Spring Boot: fechas en ISO-8601
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    private FacturasSerializadas facturasSerializadas;
+    private Pedido pedido;
+
+    @BeforeEach
+    void preparar() {
+        CaffeineCacheManager caffeine = new CaffeineCacheManager();
+        caffeine.registerCustomCache(CacheConfig.FACTURAS_JSON, Caffeine.newBuilder().build());
+        facturasSerializadas = new FacturasSerializadas(facturaService, objectMapper, caffeine);
+        when(numeradorFacturas.siguienteNumero()).thenReturn("FAC-261018-0001");
+
+        Cliente cliente = em.persist(Cliente.builder().nombre("Juan Pérez").email("juan@example.com").build());
+        List<Producto> productos = List.of(
+                em.persist(Producto.builder().nombre("Teclado").precio(new BigDecimal("10.00")).build()),
+                em.persist(Producto.builder().nombre("Mouse").precio(new BigDecimal("5.50")).build()),
+                em.persist(Producto.builder().nombre("Monitor").precio(new BigDecimal("99.90")).build()));
+        pedido = Pedido.builder()
+                .cliente(cliente)
+                .fecha(LocalDateTime.now())
+                .total(new BigDecimal("230.80"))
+                .build();
+        // Items en otro orden que el de los productos: en memoria quedan así, desde la base pueden llegar distinto
+        for (Producto producto : List.of(productos.get(2), productos.get(0), productos.get(1))) {
+            pedido.getPedidoProductos().add(PedidoProducto.builder()
+                    .id(new PedidoProductoId(null, producto.getIdProd()))
+                    .pedido(pedido)
+                    .producto(producto)
+                    .cantidad(2)
+                    .subtotal(producto.getPrecio().multiply(BigDecimal.valueOf(2)))
+                    .build());
+        }
+        em.persist(pedido);
+        em.flush();
+    }
+
+    @Test
+    void jsonGuardadoAlEmitirEsIgualAlLeidoDeLaBase() throws Exception {
+        // Igual que FacturaController.generarFactura
+        long generacion = facturasSerializadas.generacion();
+        FacturaDTO emitida = facturaService.generarFactura(pedido.getIdPedido());
+        FacturasSerializadas.FacturaSerializada guardada = facturasSerializadas.guardar(emitida, generacion);
+
+        em.flush();
+        em.clear();
+        byte[] leida = objectMapper.writeValueAsBytes(facturaService.obtenerFacturaPorId(emitida.getIdFactura()));
+
+        assertThat(new String(guardada.json(), StandardCharsets.UTF_8)).isEqualTo(new String(leida, StandardCharsets.UTF_8));
+        assertThat(emitida.getItems()).extracting("nombreProducto").containsExactly("Teclado", "Mouse", "Monitor");
+    }
+}
@@ -0,0 +1,225 @@
+package com.salesmaster.salesmasterpro.service;
+
+import com.salesmaster.salesmasterpro.dto.FacturacionMasivaDTO;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifica la facturación masiva sobre una base H2 con las tablas salesmaster.pedido y salesmaster.factura:
+ * solo se facturan los pedidos del rango sin factura, en lotes, sin repetir un pedido que otra petición
+ * facturó en paralelo, y si un lote falla después de confirmar otros se devuelve lo facturado hasta ahí.
+ *
+ * El contador de números (UPDATE ... RETURNING, propio de PostgreSQL) se simula. H2 admite ON CONFLICT
+ * DO NOTHING solo sin columnas; acá es equivalente, porque lo único que puede repetirse es id_pedido.
+ */
+class FacturacionMasivaServiceTest {
+
+    private static final LocalDate DESDE = LocalDate.of(2026, 10, 1);
+    private static final LocalDate HASTA = LocalDate.of(2026, 10, 31);
+
+    private HikariDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private NumeradorFacturas numeradorFacturas;
+    private FacturacionMasivaService servicio;
+    private final AtomicLong ultimoNumero = new AtomicLong();
+
+    @BeforeEach
+    void preparar() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:facturacion-" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        dataSource = new HikariDataSource(config);
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("CREATE SCHEMA salesmaster");
+        jdbc.execute("CREATE TABLE salesmaster.pedido (id_pedido BIGINT PRIMARY KEY, fecha TIMESTAMP NOT NULL, " +
+                "total NUMERIC(12, 2) NOT NULL)");
+        jdbc.execute("CREATE TABLE salesmaster.factura (id_factura BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "id_pedido BIGINT NOT NULL UNIQUE, nro VARCHAR(20) NOT NULL UNIQUE, fecha TIMESTAMP NOT NULL, " +
+                "total NUMERIC(12, 2) NOT NULL)");
+
+        numeradorFacturas = mock(NumeradorFacturas.class);
+        when(numeradorFacturas.disponibles(LocalDate.now())).thenReturn(NumeradorFacturas.NUMERO_MAXIMO_DIARIO);
+        when(numeradorFacturas.reservar(any(), anyInt()))
+                .thenAnswer(invocacion -> ultimoNumero.addAndGet(invocacion.<Integer>getArgument(1)));
+        servicio = new FacturacionMasivaService(new JdbcH2(dataSource),
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)), numeradorFacturas);
+    }
+
+    @AfterEach
+    void cerrar() {
+        dataSource.close();
+    }
+
+    @Test
+    void masPedidosQueNumerosDisponiblesFallaSinFacturar() {
+        pedidos(1, 3, DESDE.atTime(12, 0));
+        when(numeradorFacturas.disponibles(LocalDate.now())).thenReturn(2L);
+
+        assertThatThrownBy(() -> servicio.facturarPedidos(DESDE, HASTA))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("3 pedidos sin factura")
+                .hasMessageContaining("quedan 2 números");
+        verify(numeradorFacturas, never()).reservar(any(), anyInt());
+        assertThat(facturas()).isZero();
+    }
+
+    @Test
+    void soloFacturaLosPedidosDelRangoSinFactura() {
+        pedido(1, DESDE.atStartOfDay());
+        pedido(2, HASTA.atTime(23, 59, 59));
+        pedido(3, HASTA.plusDays(1).atStartOfDay());
+        pedido(4, DESDE.minusDays(1).atTime(23, 59, 59));
+        pedido(5, DESDE.atTime(12, 0));
+        jdbc.update("INSERT INTO salesmaster.factura (id_pedido, nro, fecha, total) VALUES (5, 'FAC-000000-0001', ?, 10)",
+                Timestamp.valueOf(LocalDateTime.now()));
+
+        FacturacionMasivaDTO resumen = servicio.facturarPedidos(DESDE, HASTA);
+
+        assertThat(resumen.isCompleta()).isTrue();
+        assertThat(resumen.getPendientes()).isEqualTo(2);
+        assertThat(resumen.getFacturadas()).isEqualTo(2);
+        assertThat(resumen.getLotes()).isEqualTo(1);
+        assertThat(jdbc.queryForList("SELECT id_pedido FROM salesmaster.factura WHERE id_pedido <> 5 ORDER BY nro", Long.class))
+                .containsExactly(1L, 2L);
+        assertThat(jdbc.queryForObject("SELECT nro FROM salesmaster.factura WHERE id_pedido = 5", String.class))
+                .isEqualTo("FAC-000000-0001");
+        assertThat(jdbc.queryForObject("SELECT total FROM salesmaster.factura WHERE id_pedido = 2", BigDecimal.class))
+                .isEqualByComparingTo("20.00");
+        assertThat(resumen.getPrimeraFactura()).isEqualTo(NumeradorFacturas.formatear(LocalDate.now(), 1));
+        assertThat(resumen.getUltimaFactura()).isEqualTo(NumeradorFacturas.formatear(LocalDate.now(), 2));
+    }
+
+    @Test
+    void todosLosLotesConfirmadosDejanLaFacturacionCompleta() {
+        pedidos(1, 1201, DESDE.atTime(12, 0));
+
+        FacturacionMasivaDTO resumen = servicio.facturarPedidos(DESDE, HASTA);
+
+        assertThat(resumen.isCompleta()).isTrue();
+        assertThat(resumen.getError()).isNull();
+        assertThat(resumen.getPendientes()).isEqualTo(1201);
+        assertThat(resumen.getFacturadas()).isEqualTo(1201);
+        assertThat(resumen.getLotes()).isEqualTo(3);
+        ArgumentCaptor<Integer> tamanos = ArgumentCaptor.forClass(Integer.class);
+        verify(numeradorFacturas, times(3)).reservar(eq(LocalDate.now()), tamanos.capture());
+        assertThat(tamanos.getAllValues()).containsExactly(500, 500, 201);
+        assertThat(jdbc.queryForObject("SELECT count(DISTINCT id_pedido) FROM salesmaster.factura", Long.class))
+                .isEqualTo(1201);
+        assertThat(resumen.getPrimeraFactura()).isEqualTo(NumeradorFacturas.formatear(LocalDate.now(), 1));
+        assertThat(resumen.getUltimaFactura()).isEqualTo(NumeradorFacturas.formatear(LocalDate.now(), 1201));
+    }
+
+    @Test
+    void pedidoFacturadoPorOtraPeticionSeOmite() {
+        pedidos(1, 3, DESDE.atTime(12, 0));
+        // Otra petición factura el pedido 2 después de que el lote lo leyó como pendiente
+        when(numeradorFacturas.reservar(any(), anyInt())).thenAnswer(invocacion -> {
+            jdbc.update("INSERT INTO salesmaster.factura (id_pedido, nro, fecha, total) VALUES (2, 'OTRA-0001', ?, 20)",
+                    Timestamp.valueOf(LocalDateTime.now()));
+            return ultimoNumero.addAndGet(invocacion.<Integer>getArgument(1));
+        });
+
+        FacturacionMasivaDTO resumen = servicio.facturarPedidos(DESDE, HASTA);
+
+        assertThat(resumen.isCompleta()).isTrue();
+        assertThat(resumen.getFacturadas()).isEqualTo(2);
+        assertThat(jdbc.queryForObject("SELECT nro FROM salesmaster.factura WHERE id_pedido = 2", String.class))
+                .isEqualTo("OTRA-0001");
+        assertThat(facturas()).isEqualTo(3);
+    }
+
+    @Test
+    void loteFallidoDespuesDeOtrosDevuelveLoConfirmado() {
+        pedidos(1, 600, DESDE.atTime(12, 0));
+        when(numeradorFacturas.reservar(any(), anyInt()))
+                .thenAnswer(invocacion -> ultimoNumero.addAndGet(invocacion.<Integer>getArgument(1)))
+                .thenThrow(new IllegalStateException("Sin números de factura"));
+
+        FacturacionMasivaDTO resumen = servicio.facturarPedidos(DESDE, HASTA);
+
+        assertThat(resumen.isCompleta()).isFalse();
+        assertThat(resumen.getError()).isEqualTo("Sin números de factura");
+        assertThat(resumen.getLotes()).isEqualTo(1);
+        assertThat(resumen.getFacturadas()).isEqualTo(500);
+        assertThat(resumen.getUltimaFactura()).isEqualTo(NumeradorFacturas.formatear(LocalDate.now(), 500));
+        assertThat(facturas()).isEqualTo(500);
+
+        // Repetir la petición continúa con los pedidos que quedaron sin factura
+        doAnswer(invocacion -> ultimoNumero.addAndGet(invocacion.<Integer>getArgument(1)))
+                .when(numeradorFacturas).reservar(any(), anyInt());
+        assertThat(servicio.facturarPedidos(DESDE, HASTA).getFacturadas()).isEqualTo(100);
+        assertThat(facturas()).isEqualTo(600);
+    }
+
+    @Test
+    void primerLoteFallidoSePropaga() {
+        pedidos(1, 2, DESDE.atTime(12, 0));
+        when(numeradorFacturas.reservar(any(), anyInt())).thenThrow(new IllegalStateException("Sin números de factura"));
+
+        assertThatThrownBy(() -> servicio.facturarPedidos(DESDE, HASTA))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(facturas()).isZero();
+    }
+
+    private void pedido(long idPedido, LocalDateTime fecha) {
+        jdbc.update("INSERT INTO salesmaster.pedido (id_pedido, fecha, total) VALUES (?, ?, ?)",
+                idPedido, Timestamp.valueOf(fecha), BigDecimal.TEN.multiply(BigDecimal.valueOf(idPedido)));
+    }
+
+    private void pedidos(long primero, long ultimo, LocalDateTime fecha) {
+        List<Object[]> filas = new ArrayList<>();
+        for (long id = primero; id <= ultimo; id++) {
+            filas.add(new Object[]{id, Timestamp.valueOf(fecha), BigDecimal.TEN});
+        }
+        jdbc.batchUpdate("INSERT INTO salesmaster.pedido (id_pedido, fecha, total) VALUES (?, ?, ?)", filas);
+    }
+
+    private long facturas() {
+        return jdbc.queryForObject("SELECT count(*) FROM salesmaster.factura", Long.class);
+    }
+
+    /**
+     * Envía el INSERT de facturas con la forma de ON CONFLICT que admite H2.
+     */
+    private static class JdbcH2 extends NamedParameterJdbcTemplate {
+
+        JdbcH2(DataSource dataSource) {
+            super(dataSource);
+        }
+
+        @Override
+        public int[] batchUpdate(String sql, SqlParameterSource[] batchArgs) {
+            return super.batchUpdate(sql.replace("ON CONFLICT (id_pedido) DO NOTHING", "ON CONFLICT DO NOTHING"), batchArgs);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.salesmaster.salesmasterpro.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.salesmaster.salesmasterpro.config.CacheConfig;
+import com.salesmaster.salesmasterpro.controller.FacturaController;
+import com.salesmaster.salesmasterpro.dto.FacturaDTO;
+import com.salesmaster.salesmasterpro.event.IdsCompactadosEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifica la caché de JSON de facturas: el ETag, la respuesta 304 con If-None-Match y que un JSON
+ * leído antes de renombrar un cliente o producto no quede guardado después del vaciado.
+ */
+class FacturasSerializadasTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+    private FacturaService facturaService;
+    private CaffeineCacheManager caffeine;
+    private FacturasSerializadas facturasSerializadas;
+
+    @BeforeEach
+    void preparar() {
+        facturaService = mock(FacturaService.class);
+        caffeine = new CaffeineCacheManager();
+        caffeine.registerCustomCache(CacheConfig.FACTURAS_JSON, Caffeine.newBuilder().build());
+        // Igual que en CacheConfig: la caché registrada difiere las operaciones al confirmar
+        facturasSerializadas = new FacturasSerializadas(facturaService, objectMapper,
+                new TransactionAwareCacheManagerProxy(caffeine));
+    }
+
+    @AfterEach
+    void limpiar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void segundaLecturaSaleDeCacheConElMismoEtag() {
+        when(facturaService.obtenerFacturaPorId(1L)).thenReturn(factura(1L, "Ana"));
+
+        FacturasSerializadas.FacturaSerializada primera = facturasSerializadas.obtener(1L);
+        FacturasSerializadas.FacturaSerializada segunda = facturasSerializadas.obtener(1L);
+
+        verify(facturaService, times(1)).obtenerFacturaPorId(1L);
+        assertThat(segunda).isSameAs(primera);
+        assertThat(primera.etag()).matches("\"[0-9a-f]{32}\"");
+    }
+
+    @Test
+    void etagDependeSoloDelContenido() {
+        long generacion = facturasSerializadas.generacion();
+        String etag = facturasSerializadas.guardar(factura(1L, "Ana"), generacion).etag();
+
+        assertThat(facturasSerializadas.guardar(factura(1L, "Ana"), generacion).etag()).isEqualTo(etag);
+        assertThat(facturasSerializadas.guardar(factura(1L, "Beatriz"), generacion).etag()).isNotEqualTo(etag);
+    }
+
+    @Test
+    void lecturaAnteriorAlVaciadoNoSeGuarda() {
+        // El cliente se renombra mientras se lee la factura con el nombre anterior
+        when(facturaService.obtenerFacturaPorId(1L)).thenAnswer(invocacion -> {
+            facturasSerializadas.invalidarAlConfirmar();
+            return factura(1L, "Ana");
+        });
+        assertThat(json(facturasSerializadas.obtener(1L))).contains("Ana");
+
+        when(facturaService.obtenerFacturaPorId(1L)).thenReturn(factura(1L, "Beatriz"));
+        assertThat(json(facturasSerializadas.obtener(1L))).contains("Beatriz");
+        verify(facturaService, times(2)).obtenerFacturaPorId(1L);
+    }
+
+    @Test
+    void emisionConGeneracionVencidaNoSeGuarda() {
+        long generacion = facturasSerializadas.generacion();
+        facturasSerializadas.invalidarAlConfirmar();
+        facturasSerializadas.guardar(factura(1L, "Ana"), generacion);
+
+        assertThat(caffeine.getCache(CacheConfig.FACTURAS_JSON).get(1L)).isNull();
+    }
+
+    @Test
+    void vaciadoEsperaALaConfirmacion() {
+        facturasSerializadas.guardar(factura(1L, "Ana"), facturasSerializadas.generacion());
+
+        TransactionSynchronizationManager.initSynchronization();
+        facturasSerializadas.invalidarAlConfirmar();
+        assertThat(caffeine.getCache(CacheConfig.FACTURAS_JSON).get(1L)).isNotNull();
+
+        List<TransactionSynchronization> sincronizaciones = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        sincronizaciones.forEach(TransactionSynchronization::afterCommit);
+        assertThat(caffeine.getCache(CacheConfig.FACTURAS_JSON).get(1L)).isNull();
+    }
+
+    @Test
+    void compactarIdsVaciaLaCache() {
+        facturasSerializadas.guardar(factura(1L, "Ana"), facturasSerializadas.generacion());
+
+        facturasSerializadas.alCompactarIds(new IdsCompactadosEvent(0, 3));
+
+        assertThat(caffeine.getCache(CacheConfig.FACTURAS_JSON).get(1L)).isNull();
+    }
+
+    @Test
+    void ifNoneMatchConElEtagActualResponde304() throws Exception {
+        when(facturaService.obtenerFacturaPorId(1L)).thenReturn(factura(1L, "Ana"));
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(
+                new FacturaController(facturaService, null, null, facturasSerializadas, null)).build();
+
+        String etag = mockMvc.perform(get("/api/facturas/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=60, private"))
+                .andExpect(content().json("{\"idFactura\":1,\"nombreCliente\":\"Ana\"}"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/facturas/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+        mockMvc.perform(get("/api/facturas/1").header(HttpHeaders.IF_NONE_MATCH, "\"otro\""))
+                .andExpect(status().isOk());
+    }
+
+    private String json(FacturasSerializadas.FacturaSerializada factura) {
+        return new String(factura.json());
+    }
+
+    private static FacturaDTO factura(Long id, String cliente) {
+        return FacturaDTO.builder()
+                .idFactura(id)
+                .idPedido(10L)
+                .nro("F-20261018-0001")
+                .fecha(LocalDateTime.of(2026, 10, 18, 9, 30))
+                .total(new BigDecimal("25.50"))
+                .nombreCliente(cliente)
+                .items(List.of())
+                .build();
+    }
+}
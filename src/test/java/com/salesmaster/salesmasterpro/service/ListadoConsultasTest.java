@@ -0,0 +1,130 @@
+package com.salesmaster.salesmasterpro.service;
+
+import com.salesmaster.salesmasterpro.entity.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica que listar pedidos y facturas ejecute la misma cantidad de sentencias SQL
+ * sin importar cuántas filas haya (sin N+1).
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.sql.init.mode=never"
+})
+@Import({PedidoService.class, FacturaService.class, CatalogoProductos.class, NumeradorFacturas.class,
+        ResumenVentasService.class})
+class ListadoConsultasTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PedidoService pedidoService;
+
+    @Autowired
+    private FacturaService facturaService;
+
+    private Statistics statistics;
+    private Cliente cliente;
+    private List<Producto> productos;
+    private int secuenciaFactura;
+
+    @TestConfiguration
+    static class SinCache {
+        @Bean
+        CacheManager cacheManager() {
+            return new NoOpCacheManager();
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        cliente = em.persist(Cliente.builder().nombre("Juan Pérez").email("juan@example.com").build());
+        productos = List.of(
+                em.persist(Producto.builder().nombre("Teclado").precio(new BigDecimal("10.00")).build()),
+                em.persist(Producto.builder().nombre("Mouse").precio(new BigDecimal("5.50")).build()),
+                em.persist(Producto.builder().nombre("Monitor").precio(new BigDecimal("99.90")).build()));
+    }
+
+    @Test
+    void listarPedidosEjecutaCantidadConstanteDeSentencias() {
+        crearPedidosFacturados(3);
+        long conPocos = contarSentencias(() -> assertThat(pedidoService.listarPedidos(0, 100).getItems()).hasSize(3));
+
+        crearPedidosFacturados(40);
+        long conMuchos = contarSentencias(() -> assertThat(pedidoService.listarPedidos(0, 100).getItems()).hasSize(43));
+
+        assertThat(conMuchos).isEqualTo(conPocos);
+    }
+
+    @Test
+    void listarFacturasEjecutaCantidadConstanteDeSentencias() {
+        crearPedidosFacturados(3);
+        long conPocos = contarSentencias(() -> assertThat(facturaService.listarFacturas(0, 100).getItems()).hasSize(3));
+
+        crearPedidosFacturados(40);
+        long conMuchos = contarSentencias(() -> assertThat(facturaService.listarFacturas(0, 100).getItems()).hasSize(43));
+
+        assertThat(conMuchos).isEqualTo(conPocos);
+    }
+
+    private long contarSentencias(Runnable accion) {
+        // Sin entidades en memoria, todo lo que use el listado sale de la base de datos
+        em.flush();
+        em.clear();
+        statistics.clear();
+        accion.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void crearPedidosFacturados(int cantidad) {
+        for (int i = 0; i < cantidad; i++) {
+            Pedido pedido = Pedido.builder()
+                    .cliente(em.find(Cliente.class, cliente.getIdCliente()))
+                    .fecha(LocalDateTime.now())
+                    .total(BigDecimal.ZERO)
+                    .build();
+            for (Producto producto : productos) {
+                pedido.getPedidoProductos().add(PedidoProducto.builder()
+                        .id(new PedidoProductoId(null, producto.getIdProd()))
+                        .pedido(pedido)
+                        .producto(em.find(Producto.class, producto.getIdProd()))
+                        .cantidad(2)
+                        .subtotal(producto.getPrecio().multiply(BigDecimal.valueOf(2)))
+                        .build());
+            }
+            em.persist(pedido);
+            em.persist(Factura.builder()
+                    .pedido(pedido)
+                    .nro(String.format("FAC-000000-%04d", ++secuenciaFactura))
+                    .fecha(LocalDateTime.now())
+                    .total(pedido.getTotal())
+                    .build());
+        }
+        em.flush();
+    }
+}
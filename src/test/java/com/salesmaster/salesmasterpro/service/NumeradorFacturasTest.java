@@ -0,0 +1,222 @@
+package com.salesmaster.salesmasterpro.service;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifica la reserva de números de NumeradorFacturas dentro de la transacción del llamador.
+ *
+ * El contador de factura_contador (UPDATE ... RETURNING, propio de PostgreSQL) se reemplaza por uno en
+ * memoria que se comporta como la fila: queda bloqueado hasta que termina la transacción que lo
+ * incrementó y vuelve atrás si se revierte. Las transacciones son reales, sobre un pool Hikari de dos
+ * conexiones a una base H2.
+ */
+class NumeradorFacturasTest {
+
+    private static final int TAMANO_BLOQUE = 20;
+    private static final int CONEXIONES = 2;
+
+    private HikariDataSource dataSource;
+    private TransactionTemplate transaccion;
+    private NumeradorEnMemoria numerador;
+
+    @BeforeEach
+    void preparar() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:numerador-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        config.setMaximumPoolSize(CONEXIONES);
+        config.setConnectionTimeout(2000);
+        dataSource = new HikariDataSource(config);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        transaccion = new TransactionTemplate(transactionManager);
+        numerador = new NumeradorEnMemoria(transactionManager);
+    }
+
+    @AfterEach
+    void cerrar() {
+        dataSource.close();
+    }
+
+    @Test
+    void entregaNumerosConsecutivosReservandoPorBloque() {
+        List<String> numeros = new ArrayList<>();
+        for (int i = 0; i < TAMANO_BLOQUE + 5; i++) {
+            numeros.add(siguiente());
+        }
+
+        assertThat(numeros.get(0)).isEqualTo(NumeradorFacturas.formatear(LocalDate.now(), 1));
+        assertThat(numeros.get(TAMANO_BLOQUE + 4)).isEqualTo(NumeradorFacturas.formatear(LocalDate.now(), TAMANO_BLOQUE + 5));
+        assertThat(numeros).doesNotHaveDuplicates();
+        assertThat(numerador.reservas).containsExactly(TAMANO_BLOQUE, TAMANO_BLOQUE);
+    }
+
+    @Test
+    void transaccionRevertidaDevuelveElBloque() {
+        transaccion.executeWithoutResult(status -> {
+            assertThat(numerador.siguienteNumero()).isEqualTo(NumeradorFacturas.formatear(LocalDate.now(), 1));
+            status.setRollbackOnly();
+        });
+
+        // Ni el contador ni el resto del bloque quedaron usados
+        assertThat(siguiente())
+                .isEqualTo(NumeradorFacturas.formatear(LocalDate.now(), 1));
+        assertThat(siguiente())
+                .isEqualTo(NumeradorFacturas.formatear(LocalDate.now(), 2));
+    }
+
+    @Test
+    void mientrasSeConfirmaUnBloqueLasDemasReservanDeAUno() throws Exception {
+        CountDownLatch reservado = new CountDownLatch(1);
+        CountDownLatch confirmar = new CountDownLatch(1);
+        ExecutorService hilos = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> primera = hilos.submit(() -> transaccion.execute(status -> {
+                String numero = numerador.siguienteNumero();
+                reservado.countDown();
+                esperar(confirmar);
+                return numero;
+            }));
+            esperar(reservado);
+            // Queda esperando el bloqueo del contador, con su propia conexión
+            Future<String> segunda = hilos.submit(() -> siguiente());
+            Thread.sleep(100);
+            assertThat(segunda).isNotDone();
+
+            confirmar.countDown();
+            assertThat(primera.get(5, TimeUnit.SECONDS)).isEqualTo(NumeradorFacturas.formatear(LocalDate.now(), 1));
+            assertThat(segunda.get(5, TimeUnit.SECONDS)).isEqualTo(NumeradorFacturas.formatear(LocalDate.now(), TAMANO_BLOQUE + 1));
+        } finally {
+            hilos.shutdownNow();
+        }
+
+        assertThat(numerador.reservas).containsExactly(TAMANO_BLOQUE, 1);
+        // El resto del bloque confirmado se entrega después
+        assertThat(siguiente())
+                .isEqualTo(NumeradorFacturas.formatear(LocalDate.now(), 2));
+    }
+
+    @Test
+    void muchasTransaccionesConPocasConexionesNoSeBloquean() throws Exception {
+        int hilosConcurrentes = CONEXIONES * 4;
+        int porHilo = 60;
+        ExecutorService hilos = Executors.newFixedThreadPool(hilosConcurrentes);
+        List<CompletableFuture<List<String>>> resultados = new ArrayList<>();
+        try {
+            for (int h = 0; h < hilosConcurrentes; h++) {
+                resultados.add(CompletableFuture.supplyAsync(() -> {
+                    List<String> numeros = new ArrayList<>();
+                    for (int i = 0; i < porHilo; i++) {
+                        // Cada factura ocupa una conexión del pool durante su transacción
+                        numeros.add(transaccion.execute(status -> {
+                            new JdbcTemplate(dataSource).queryForObject("SELECT 1", Integer.class);
+                            return numerador.siguienteNumero();
+                        }));
+                    }
+                    return numeros;
+                }, hilos));
+            }
+            Set<String> todos = new HashSet<>();
+            for (CompletableFuture<List<String>> resultado : resultados) {
+                todos.addAll(resultado.get(30, TimeUnit.SECONDS));
+            }
+            assertThat(todos).hasSize(hilosConcurrentes * porHilo);
+        } finally {
+            hilos.shutdownNow();
+        }
+        // Mientras un bloque espera su confirmación las demás reservan de a uno: solo queda sin usar el resto del último
+        assertThat(numerador.ultimo(LocalDate.now())).isLessThan((long) hilosConcurrentes * porHilo + TAMANO_BLOQUE);
+    }
+
+    @Test
+    void numeracionAgotadaRevierteLaReserva() {
+        numerador.fijar(LocalDate.now(), NumeradorFacturas.NUMERO_MAXIMO_DIARIO);
+
+        assertThatThrownBy(() -> siguiente())
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Se agotó la numeración");
+        assertThat(numerador.ultimo(LocalDate.now())).isEqualTo(NumeradorFacturas.NUMERO_MAXIMO_DIARIO);
+    }
+
+    private String siguiente() {
+        return transaccion.<String>execute(status -> numerador.siguienteNumero());
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Contador como la fila de factura_contador: un solo bloqueo para todos los días alcanza en los tests.
+     */
+    private static class NumeradorEnMemoria extends NumeradorFacturas {
+
+        private final ReentrantLock fila = new ReentrantLock();
+        private final Map<LocalDate, Long> contador = new HashMap<>();
+        private final List<Integer> reservas = new ArrayList<>();
+
+        NumeradorEnMemoria(DataSourceTransactionManager transactionManager) {
+            super(transactionManager, TAMANO_BLOQUE);
+        }
+
+        @Override
+        protected long incrementar(LocalDate fecha, int cantidad) {
+            assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isTrue();
+            fila.lock();
+            long anterior = contador.getOrDefault(fecha, 0L);
+            long ultimo = anterior + cantidad;
+            contador.put(fecha, ultimo);
+            reservas.add(cantidad);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        contador.put(fecha, anterior);
+                        reservas.remove(reservas.size() - 1);
+                    }
+                    fila.unlock();
+                }
+            });
+            return ultimo;
+        }
+
+        void fijar(LocalDate fecha, long ultimo) {
+            contador.put(fecha, ultimo);
+        }
+
+        long ultimo(LocalDate fecha) {
+            return contador.getOrDefault(fecha, 0L);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.salesmaster.salesmasterpro.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.salesmaster.salesmasterpro.config.CacheConfig;
+import com.salesmaster.salesmasterpro.dto.PaginaDTO;
+import com.salesmaster.salesmasterpro.dto.ProductoDTO;
+import com.salesmaster.salesmasterpro.event.IdsCompactadosEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica que un producto o una página leídos antes de confirmarse un cambio no queden en caché
+ * después de la invalidación, así el ETag (la versión) que se devuelve es siempre el vigente.
+ */
+class ProductosEnCacheTest {
+
+    private CaffeineCacheManager caffeine;
+    private ProductosEnCache productosEnCache;
+    private final AtomicInteger cargas = new AtomicInteger();
+
+    @BeforeEach
+    void preparar() {
+        caffeine = new CaffeineCacheManager();
+        caffeine.registerCustomCache(CacheConfig.PRODUCTOS, Caffeine.newBuilder().build());
+        caffeine.registerCustomCache(CacheConfig.PRODUCTOS_PAGINAS, Caffeine.newBuilder().build());
+        // Igual que en CacheConfig: la caché registrada difiere las operaciones al confirmar
+        productosEnCache = new ProductosEnCache(new TransactionAwareCacheManagerProxy(caffeine));
+    }
+
+    @AfterEach
+    void limpiar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void segundaLecturaSaleDeCache() {
+        productosEnCache.obtener(1L, () -> producto(1L, 0L));
+
+        assertThat(productosEnCache.obtener(1L, () -> producto(1L, 5L)).getVersion()).isZero();
+        assertThat(cargas).hasValue(1);
+    }
+
+    @Test
+    void versionLeidaAntesDeUnaActualizacionNoQuedaEnCache() {
+        // La actualización se confirma mientras el GET todavía tiene la versión anterior
+        ProductoDTO leido = productosEnCache.obtener(1L, () -> {
+            CompletableFuture.runAsync(() -> productosEnCache.invalidarAlConfirmar(1L)).join();
+            return producto(1L, 0L);
+        });
+
+        assertThat(leido.getVersion()).isZero();
+        assertThat(productos().get(1L)).isNull();
+        assertThat(productosEnCache.obtener(1L, () -> producto(1L, 1L)).getVersion()).isEqualTo(1L);
+    }
+
+    @Test
+    void paginaLeidaAntesDeUnaActualizacionNoQuedaEnCache() {
+        productosEnCache.obtenerPagina(0, 10, () -> {
+            CompletableFuture.runAsync(() -> productosEnCache.invalidarAlConfirmar(1L)).join();
+            return pagina(producto(1L, 0L));
+        });
+
+        assertThat(paginas().get("0:10")).isNull();
+    }
+
+    @Test
+    void actualizacionEsperaALaConfirmacionYVaciaLasPaginas() {
+        productosEnCache.obtener(1L, () -> producto(1L, 0L));
+        productosEnCache.obtener(2L, () -> producto(2L, 0L));
+        productosEnCache.obtenerPagina(0, 10, () -> pagina(producto(1L, 0L), producto(2L, 0L)));
+
+        TransactionSynchronizationManager.initSynchronization();
+        productosEnCache.invalidarAlConfirmar(1L);
+        assertThat(productos().get(1L)).isNotNull();
+        assertThat(paginas().get("0:10")).isNotNull();
+
+        confirmar();
+        assertThat(productos().get(1L)).isNull();
+        assertThat(productos().get(2L)).isNotNull();
+        assertThat(paginas().get("0:10")).isNull();
+    }
+
+    @Test
+    void altaSoloVaciaLasPaginas() {
+        productosEnCache.obtener(1L, () -> producto(1L, 0L));
+        productosEnCache.obtenerPagina(0, 10, () -> pagina(producto(1L, 0L)));
+
+        productosEnCache.vaciarPaginasAlConfirmar();
+
+        assertThat(productos().get(1L)).isNotNull();
+        assertThat(paginas().get("0:10")).isNull();
+    }
+
+    @Test
+    void compactarIdsVaciaAmbasCaches() {
+        productosEnCache.obtener(1L, () -> producto(1L, 0L));
+        productosEnCache.obtenerPagina(0, 10, () -> pagina(producto(1L, 0L)));
+
+        productosEnCache.alCompactarIds(new IdsCompactadosEvent(0, 2));
+
+        assertThat(productos().get(1L)).isNull();
+        assertThat(paginas().get("0:10")).isNull();
+    }
+
+    private Cache productos() {
+        return caffeine.getCache(CacheConfig.PRODUCTOS);
+    }
+
+    private Cache paginas() {
+        return caffeine.getCache(CacheConfig.PRODUCTOS_PAGINAS);
+    }
+
+    private static void confirmar() {
+        List<TransactionSynchronization> sincronizaciones = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        sincronizaciones.forEach(TransactionSynchronization::afterCommit);
+    }
+
+    private ProductoDTO producto(Long id, Long version) {
+        cargas.incrementAndGet();
+        return ProductoDTO.builder().idProd(id).nombre("Producto " + id).precio(new BigDecimal("10.00")).version(version).build();
+    }
+
+    private static PaginaDTO<ProductoDTO> pagina(ProductoDTO... productos) {
+        return PaginaDTO.<ProductoDTO>builder().items(List.of(productos)).build();
+    }
+}
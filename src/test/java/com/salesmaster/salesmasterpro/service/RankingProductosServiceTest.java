@@ -0,0 +1,115 @@
+package com.salesmaster.salesmasterpro.service;
+
+import com.salesmaster.salesmasterpro.dto.ProductoVendidoDTO;
+import com.salesmaster.salesmasterpro.event.IdsCompactadosEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Verifica la precarga del ranking desde una base H2 en memoria con las tablas salesmaster.pedido y
+ * salesmaster.pedido_producto, y que al compactar IDs se recargue en una transacción de solo lectura.
+ */
+class RankingProductosServiceTest {
+
+    private EmbeddedDatabase base;
+    private JdbcTemplate jdbcTemplate;
+    private TransaccionesRegistradas transactionManager;
+    private RankingProductosService ranking;
+
+    @BeforeEach
+    void preparar() {
+        base = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName("ranking-" + UUID.randomUUID())
+                .build();
+        jdbcTemplate = new JdbcTemplate(base);
+        jdbcTemplate.execute("CREATE SCHEMA salesmaster");
+        jdbcTemplate.execute("CREATE TABLE salesmaster.pedido (id_pedido BIGINT PRIMARY KEY, fecha TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE salesmaster.pedido_producto (id_pedido BIGINT, id_prod BIGINT, cantidad INT)");
+        transactionManager = new TransaccionesRegistradas(base);
+        ranking = new RankingProductosService(base, transactionManager, 16);
+    }
+
+    @AfterEach
+    void cerrar() {
+        base.shutdown();
+    }
+
+    @Test
+    void precargaSoloLasVentasDelUltimoDia() {
+        pedido(1, LocalDateTime.now().minusMinutes(5), 10, 3);
+        pedido(2, LocalDateTime.now().minusMinutes(5), 20, 5);
+        pedido(3, LocalDateTime.now().minusHours(3), 10, 4);
+        pedido(4, LocalDateTime.now().minusDays(2), 30, 100);
+
+        ranking.precargar();
+
+        assertThat(ranking.masVendidos("1h", 10))
+                .extracting(ProductoVendidoDTO::getIdProd, ProductoVendidoDTO::getUnidades)
+                .containsExactly(tuple(20L, 5L), tuple(10L, 3L));
+        assertThat(ranking.masVendidos("1d", 10))
+                .extracting(ProductoVendidoDTO::getIdProd, ProductoVendidoDTO::getUnidades)
+                .containsExactly(tuple(10L, 7L), tuple(20L, 5L));
+    }
+
+    @Test
+    void compactarIdsRecargaEnUnaTransaccionDeSoloLectura() {
+        pedido(1, LocalDateTime.now().minusMinutes(5), 10, 3);
+        ranking.precargar();
+        // El producto 10 pasa a ser el 1
+        jdbcTemplate.update("UPDATE salesmaster.pedido_producto SET id_prod = 1 WHERE id_prod = 10");
+        transactionManager.iniciadas.clear();
+
+        ranking.alCompactarIds(new IdsCompactadosEvent(0, 1));
+
+        assertThat(ranking.masVendidos("1d", 10))
+                .singleElement()
+                .satisfies(producto -> {
+                    assertThat(producto.getIdProd()).isEqualTo(1L);
+                    assertThat(producto.getUnidades()).isEqualTo(3L);
+                });
+        assertThat(transactionManager.iniciadas)
+                .singleElement()
+                .satisfies(definicion -> assertThat(definicion.isReadOnly()).isTrue());
+    }
+
+    private void pedido(long idPedido, LocalDateTime fecha, long idProd, int cantidad) {
+        jdbcTemplate.update("INSERT INTO salesmaster.pedido (id_pedido, fecha) VALUES (?, ?)", idPedido, Timestamp.valueOf(fecha));
+        jdbcTemplate.update("INSERT INTO salesmaster.pedido_producto (id_pedido, id_prod, cantidad) VALUES (?, ?, ?)",
+                idPedido, idProd, cantidad);
+    }
+
+    /**
+     * Guarda la definición de cada transacción que empieza.
+     */
+    private static class TransaccionesRegistradas extends DataSourceTransactionManager {
+
+        private final List<TransactionDefinition> iniciadas = new ArrayList<>();
+
+        TransaccionesRegistradas(EmbeddedDatabase base) {
+            super(base);
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            iniciadas.add(definition);
+            super.doBegin(transaction, definition);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.salesmaster.salesmasterpro.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.salesmaster.salesmasterpro.exception.ErrorResponse;
+import com.salesmaster.salesmasterpro.exception.GlobalExceptionHandler;
+import com.salesmaster.salesmasterpro.exception.PeticionEnCursoException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Verifica RegistroIdempotencia: los duplicados en curso esperan y reciben el mismo resultado, una
+ * espera vencida responde 409 con Retry-After, la reversión libera la clave y la misma clave con otra
+ * petición se rechaza.
+ *
+ * La tabla clave_idempotencia (INSERT ... ON CONFLICT, propio de PostgreSQL) se reemplaza por una en
+ * memoria que se comporta como ella: una clave sin confirmar bloquea a quien quiera insertarla y
+ * desaparece si la transacción se revierte. Las transacciones son reales, sobre una base H2.
+ */
+class RegistroIdempotenciaTest {
+
+    private EmbeddedDatabase base;
+    private TransactionTemplate transaccion;
+    private Map<String, RegistroIdempotencia.Respuesta> tabla;
+    private Map<String, ReentrantLock> bloqueos;
+    private ExecutorService hilos;
+
+    @BeforeEach
+    void preparar() {
+        base = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName("idempotencia-" + UUID.randomUUID())
+                .build();
+        transaccion = new TransactionTemplate(new DataSourceTransactionManager(base));
+        tabla = new ConcurrentHashMap<>();
+        bloqueos = new ConcurrentHashMap<>();
+        hilos = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void cerrar() {
+        hilos.shutdownNow();
+        base.shutdown();
+    }
+
+    @Test
+    void duplicadoEnCursoEsperaYRecibeElMismoResultado() throws Exception {
+        RegistroIdempotencia registro = registro(Duration.ofSeconds(5));
+        AtomicInteger ejecuciones = new AtomicInteger();
+        CountDownLatch iniciada = new CountDownLatch(1);
+        CountDownLatch terminar = new CountDownLatch(1);
+
+        Future<RegistroIdempotencia.Resultado<String>> primera = hilos.submit(() ->
+                registro.ejecutar("facturas", "clave-1", "pedido 7", String.class, () -> {
+                    iniciada.countDown();
+                    esperar(terminar);
+                    return "factura-" + ejecuciones.incrementAndGet();
+                }));
+        esperar(iniciada);
+        Future<RegistroIdempotencia.Resultado<String>> segunda = hilos.submit(() ->
+                registro.ejecutar("facturas", "clave-1", "pedido 7", String.class,
+                        () -> "factura-" + ejecuciones.incrementAndGet()));
+        Thread.sleep(100);
+        assertThat(segunda).isNotDone();
+
+        terminar.countDown();
+        assertThat(primera.get(5, TimeUnit.SECONDS)).isEqualTo(new RegistroIdempotencia.Resultado<>("factura-1", false));
+        assertThat(segunda.get(5, TimeUnit.SECONDS)).isEqualTo(new RegistroIdempotencia.Resultado<>("factura-1", true));
+        assertThat(ejecuciones).hasValue(1);
+    }
+
+    @Test
+    void esperaVencidaRespondeConflictoConRetryAfter() throws Exception {
+        RegistroIdempotencia registro = registro(Duration.ofMillis(100));
+        CountDownLatch iniciada = new CountDownLatch(1);
+        CountDownLatch terminar = new CountDownLatch(1);
+        Future<RegistroIdempotencia.Resultado<String>> primera = hilos.submit(() ->
+                registro.ejecutar("facturas", "clave-1", "pedido 7", String.class, () -> {
+                    iniciada.countDown();
+                    esperar(terminar);
+                    return "factura-1";
+                }));
+        esperar(iniciada);
+
+        Throwable error = catchThrowable(() ->
+                registro.ejecutar("facturas", "clave-1", "pedido 7", String.class, () -> "otra"));
+
+        assertThat(error).isInstanceOf(PeticionEnCursoException.class);
+        ResponseEntity<ErrorResponse> respuesta =
+                new GlobalExceptionHandler().handlePeticionEnCursoException((PeticionEnCursoException) error);
+        assertThat(respuesta.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(respuesta.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("5");
+
+        // Al terminar, el reintento recibe el resultado de la primera
+        terminar.countDown();
+        primera.get(5, TimeUnit.SECONDS);
+        assertThat(registro.ejecutar("facturas", "clave-1", "pedido 7", String.class, () -> "otra"))
+                .isEqualTo(new RegistroIdempotencia.Resultado<>("factura-1", true));
+    }
+
+    @Test
+    void reversionLiberaLaClave() {
+        RegistroIdempotencia registro = registro(Duration.ofSeconds(5));
+
+        assertThatThrownBy(() -> registro.ejecutar("pedidos", "clave-1", "pedido", String.class, () -> {
+            throw new IllegalArgumentException("Stock insuficiente");
+        })).isInstanceOf(IllegalArgumentException.class).hasMessage("Stock insuficiente");
+        assertThat(tabla).isEmpty();
+
+        assertThat(registro.ejecutar("pedidos", "clave-1", "pedido", String.class, () -> "pedido-1"))
+                .isEqualTo(new RegistroIdempotencia.Resultado<>("pedido-1", false));
+    }
+
+    @Test
+    void mismaClaveConOtraPeticionSeRechaza() {
+        RegistroIdempotencia registro = registro(Duration.ofSeconds(5));
+        registro.ejecutar("pedidos", "clave-1", "pedido A", String.class, () -> "pedido-1");
+
+        assertThatThrownBy(() -> registro.ejecutar("pedidos", "clave-1", "pedido B", String.class, () -> "pedido-2"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("ya se usó con otra petición");
+        // Desde otra instancia, con lo guardado en la tabla
+        assertThatThrownBy(() -> registro(Duration.ofSeconds(5))
+                .ejecutar("pedidos", "clave-1", "pedido B", String.class, () -> "pedido-2"))
+                .isInstanceOf(IllegalArgumentException.class);
+        // La misma clave en otra operación es independiente
+        assertThat(registro.ejecutar("facturas", "clave-1", "pedido B", String.class, () -> "factura-1").repetido()).isFalse();
+    }
+
+    @Test
+    void otraInstanciaDevuelveLoGuardadoSinEjecutar() {
+        registro(Duration.ofSeconds(5)).ejecutar("pedidos", "clave-1", "pedido", String.class, () -> "pedido-1");
+
+        assertThat(registro(Duration.ofSeconds(5)).ejecutar("pedidos", "clave-1", "pedido", String.class, () -> {
+            throw new AssertionError("No debería ejecutarse");
+        })).isEqualTo(new RegistroIdempotencia.Resultado<>("pedido-1", true));
+    }
+
+    private RegistroIdempotencia registro(Duration esperaMaxima) {
+        return new RegistroEnMemoria(transaccion, esperaMaxima, tabla, bloqueos);
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Tabla compartida entre instancias; cada clave sin confirmar queda bloqueada hasta que termina su transacción.
+     */
+    private static class RegistroEnMemoria extends RegistroIdempotencia {
+
+        private final Map<String, Respuesta> tabla;
+        private final Map<String, ReentrantLock> bloqueos;
+
+        RegistroEnMemoria(TransactionTemplate transaccion, Duration esperaMaxima,
+                          Map<String, Respuesta> tabla, Map<String, ReentrantLock> bloqueos) {
+            super(transaccion, new ObjectMapper(), Duration.ofHours(1), esperaMaxima, 100);
+            this.tabla = tabla;
+            this.bloqueos = bloqueos;
+        }
+
+        @Override
+        protected boolean reservar(String id, String huella) {
+            ReentrantLock fila = bloqueos.computeIfAbsent(id, k -> new ReentrantLock());
+            fila.lock();
+            if (tabla.containsKey(id)) {
+                fila.unlock();
+                return false;
+            }
+            tabla.put(id, new Respuesta(huella, null));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        tabla.remove(id);
+                    }
+                    fila.unlock();
+                }
+            });
+            return true;
+        }
+
+        @Override
+        protected Respuesta buscar(String id) {
+            return tabla.get(id);
+        }
+
+        @Override
+        protected void guardarRespuesta(String id, String json) {
+            tabla.computeIfPresent(id, (clave, fila) -> new Respuesta(fila.huella(), json));
+        }
+    }
+}
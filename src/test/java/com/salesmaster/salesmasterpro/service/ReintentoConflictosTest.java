@@ -0,0 +1,75 @@
+package com.salesmaster.salesmasterpro.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifica que ReintentoConflictos repita solo los conflictos de bloqueo optimista y que, agotados
+ * los intentos, propague el último.
+ */
+class ReintentoConflictosTest {
+
+    private final ReintentoConflictos reintento = new ReintentoConflictos(3, Duration.ofMillis(1));
+
+    @AfterEach
+    void limpiar() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    void conflictoSeReintentaHastaQueSeGuarda() {
+        AtomicInteger intentos = new AtomicInteger();
+
+        String resultado = reintento.ejecutar(() -> {
+            if (intentos.incrementAndGet() < 3) {
+                throw conflicto();
+            }
+            return "guardado";
+        });
+
+        assertThat(resultado).isEqualTo("guardado");
+        assertThat(intentos).hasValue(3);
+    }
+
+    @Test
+    void agotadosLosIntentosSePropagaElConflicto() {
+        AtomicInteger intentos = new AtomicInteger();
+
+        assertThatThrownBy(() -> reintento.ejecutar(() -> {
+            intentos.incrementAndGet();
+            throw conflicto();
+        })).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(intentos).hasValue(3);
+    }
+
+    @Test
+    void otrosErroresNoSeReintentan() {
+        AtomicInteger intentos = new AtomicInteger();
+
+        assertThatThrownBy(() -> reintento.ejecutar(() -> {
+            intentos.incrementAndGet();
+            throw new IllegalArgumentException("dato inválido");
+        })).isInstanceOf(IllegalArgumentException.class);
+        assertThat(intentos).hasValue(1);
+    }
+
+    @Test
+    void dentroDeUnaTransaccionSeRechaza() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        assertThatThrownBy(() -> reintento.ejecutar(() -> "guardado"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static ObjectOptimisticLockingFailureException conflicto() {
+        return new ObjectOptimisticLockingFailureException("Producto", 1L);
+    }
+}
@@ -0,0 +1,167 @@
+package com.salesmaster.salesmasterpro.service;
+
+import com.salesmaster.salesmasterpro.dto.ReconstruccionVentasDTO;
+import com.salesmaster.salesmasterpro.entity.Cliente;
+import com.salesmaster.salesmasterpro.entity.Pedido;
+import com.salesmaster.salesmasterpro.entity.PedidoProducto;
+import com.salesmaster.salesmasterpro.entity.PedidoProductoId;
+import org.assertj.core.groups.Tuple;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifica que cada alta sume el día en una de sus partes y que la reconstrucción acumule día, cliente y
+ * producto en una sola pasada por las filas de pedidos con sus items.
+ *
+ * Las sentencias (INSERT ... ON CONFLICT, propio de PostgreSQL) se simulan y se revisan los parámetros
+ * de cada lote.
+ */
+class ResumenVentasServiceTest {
+
+    private static final LocalDate DIA = LocalDate.of(2026, 10, 1);
+
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    private JdbcTemplate jdbc;
+    private ResumenVentasService servicio;
+
+    @BeforeEach
+    void preparar() {
+        jdbcTemplate = mock(NamedParameterJdbcTemplate.class);
+        jdbc = mock(JdbcTemplate.class);
+        when(jdbcTemplate.getJdbcTemplate()).thenReturn(jdbc);
+        servicio = new ResumenVentasService(jdbcTemplate);
+    }
+
+    @Test
+    void altaSumaElDiaEnUnaParteYAgrupaPorClienteYProducto() {
+        Set<Object> partes = new HashSet<>();
+        for (int i = 0; i < 200; i++) {
+            servicio.registrarPedidos(List.of(
+                    pedido(1L, 7L, "30.00", item(1L, 10L, 2, "20.00"), item(1L, 11L, 1, "10.00")),
+                    pedido(2L, 7L, "5.00", item(2L, 10L, 1, "5.00"))));
+            SqlParameterSource dia = lote("venta_diaria_parte")[0];
+            partes.add(dia.getValue("parte"));
+        }
+
+        assertThat(partes)
+                .allSatisfy(parte -> assertThat((Integer) parte).isBetween(0, ResumenVentasService.PARTES_POR_DIA - 1))
+                .hasSizeGreaterThan(1);
+        assertThat(filas(lote("venta_diaria_parte")))
+                .containsExactly(tuple(DIA, 2L, 4L, new BigDecimal("35.00")));
+        assertThat(filas(lote("venta_cliente")))
+                .containsExactly(tuple(7L, 2L, 4L, new BigDecimal("35.00")));
+        assertThat(filas(lote("venta_producto")))
+                .containsExactly(tuple(10L, 2L, 3L, new BigDecimal("25.00")), tuple(11L, 1L, 1L, new BigDecimal("10.00")));
+    }
+
+    @Test
+    void reconstruccionAcumulaEnUnaPasada() throws SQLException {
+        List<ResultSet> filas = List.of(
+                fila(1L, DIA, 7L, "30.00", 10L, 2, "20.00"),
+                fila(1L, DIA, 7L, "30.00", 11L, 1, "10.00"),
+                fila(2L, DIA, 7L, "0.00", null, null, null),
+                fila(3L, DIA.plusDays(1), 8L, "5.00", 10L, 1, "5.00"));
+        doAnswer(invocacion -> {
+            RowCallbackHandler recalculo = invocacion.getArgument(1);
+            for (ResultSet fila : filas) {
+                recalculo.processRow(fila);
+            }
+            return null;
+        }).when(jdbc).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        ReconstruccionVentasDTO resultado = servicio.reconstruir();
+
+        assertThat(resultado.getDias()).isEqualTo(2);
+        assertThat(resultado.getClientes()).isEqualTo(2);
+        assertThat(resultado.getProductos()).isEqualTo(2);
+        SqlParameterSource[] dias = lote("venta_diaria_parte");
+        assertThat(dias).allSatisfy(dia -> assertThat(dia.getValue("parte")).isEqualTo(0));
+        assertThat(filas(dias)).containsExactly(
+                tuple(DIA, 2L, 3L, new BigDecimal("30.00")),
+                tuple(DIA.plusDays(1), 1L, 1L, new BigDecimal("5.00")));
+        assertThat(filas(lote("venta_cliente"))).containsExactly(
+                tuple(7L, 2L, 3L, new BigDecimal("30.00")),
+                tuple(8L, 1L, 1L, new BigDecimal("5.00")));
+        assertThat(filas(lote("venta_producto"))).containsExactly(
+                tuple(10L, 2L, 3L, new BigDecimal("25.00")),
+                tuple(11L, 1L, 1L, new BigDecimal("10.00")));
+        verify(jdbc).execute("DELETE FROM salesmaster.venta_diaria_parte");
+    }
+
+    /**
+     * Último lote enviado a la tabla indicada.
+     */
+    private SqlParameterSource[] lote(String tabla) {
+        ArgumentCaptor<SqlParameterSource[]> lotes = ArgumentCaptor.forClass(SqlParameterSource[].class);
+        verify(jdbcTemplate, atLeastOnce())
+                .batchUpdate(startsWith("INSERT INTO salesmaster." + tabla + " "), lotes.capture());
+        return lotes.getValue();
+    }
+
+    private static List<Tuple> filas(SqlParameterSource[] lote) {
+        List<Tuple> filas = new ArrayList<>();
+        for (SqlParameterSource fila : lote) {
+            filas.add(tuple(fila.getValue("clave"), fila.getValue("pedidos"), fila.getValue("unidades"), fila.getValue("total")));
+        }
+        return filas;
+    }
+
+    private static Pedido pedido(Long idPedido, Long idCliente, String total, PedidoProducto... items) {
+        return Pedido.builder()
+                .idPedido(idPedido)
+                .cliente(Cliente.builder().idCliente(idCliente).build())
+                .fecha(DIA.atTime(10, 0))
+                .total(new BigDecimal(total))
+                .pedidoProductos(List.of(items))
+                .build();
+    }
+
+    private static PedidoProducto item(Long idPedido, Long idProd, int cantidad, String subtotal) {
+        return PedidoProducto.builder()
+                .id(new PedidoProductoId(idPedido, idProd))
+                .cantidad(cantidad)
+                .subtotal(new BigDecimal(subtotal))
+                .build();
+    }
+
+    private static ResultSet fila(Long idPedido, LocalDate dia, Long idCliente, String total,
+                                  Long idProd, Integer cantidad, String subtotal) throws SQLException {
+        ResultSet fila = mock(ResultSet.class);
+        when(fila.getLong("id_pedido")).thenReturn(idPedido);
+        when(fila.getObject("dia", LocalDate.class)).thenReturn(dia);
+        when(fila.getLong("id_cliente")).thenReturn(idCliente);
+        when(fila.getBigDecimal("total")).thenReturn(new BigDecimal(total));
+        when(fila.getLong("id_prod")).thenReturn(idProd != null ? idProd : 0L);
+        when(fila.wasNull()).thenReturn(idProd == null);
+        if (idProd != null) {
+            when(fila.getInt("cantidad")).thenReturn(cantidad);
+            when(fila.getBigDecimal("subtotal")).thenReturn(new BigDecimal(subtotal));
+        }
+        return fila;
+    }
+}
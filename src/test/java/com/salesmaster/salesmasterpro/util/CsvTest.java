@@ -0,0 +1,120 @@
+package com.salesmaster.salesmasterpro.util;
+
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifica la lectura fila por fila de Csv.Lector (comillas, finales de línea, BOM y límites) y que
+ * lo escrito con Csv.escribirFila se lea igual.
+ */
+class CsvTest {
+
+    @Test
+    void camposSimplesYFilaFinalSinSaltoDeLinea() throws IOException {
+        assertThat(leerTodo("nombre,precio\nCafé,12.50")).containsExactly(
+                List.of("nombre", "precio"),
+                List.of("Café", "12.50"));
+    }
+
+    @Test
+    void camposEntreComillasConComasComillasYSaltosDeLinea() throws IOException {
+        assertThat(leerTodo("\"Pérez, Ana\",\"dice \"\"hola\"\"\",\"linea 1\nlinea 2\"\n")).containsExactly(
+                List.of("Pérez, Ana", "dice \"hola\"", "linea 1\nlinea 2"));
+    }
+
+    @Test
+    void fechaHoraTieneSiempreElMismoFormato() {
+        assertThat(Csv.fechaHora(LocalDateTime.of(2026, 3, 5, 9, 0))).isEqualTo("2026-03-05 09:00:00");
+        assertThat(Csv.fechaHora(LocalDateTime.of(2026, 3, 5, 9, 0, 7, 123_456_000))).isEqualTo("2026-03-05 09:00:07");
+        assertThat(Csv.fechaHora(null)).isNull();
+    }
+
+    @Test
+    void camposVaciosSeConservan() throws IOException {
+        assertThat(leerTodo(",a,,\n\"\",b\n")).containsExactly(
+                List.of("", "a", "", ""),
+                List.of("", "b"));
+    }
+
+    @Test
+    void finalesDeLineaCrlf() throws IOException {
+        assertThat(leerTodo("a,b\r\nc,\"d\r\ne\"\r\n")).containsExactly(
+                List.of("a", "b"),
+                List.of("c", "d\r\ne"));
+    }
+
+    @Test
+    void lineaVaciaEsUnaFilaConUnCampoVacio() throws IOException {
+        assertThat(leerTodo("a\n\nb\n")).containsExactly(List.of("a"), List.of(""), List.of("b"));
+    }
+
+    @Test
+    void bomAlPrincipioSeDescarta() throws IOException {
+        Csv.Lector lector = new Csv.Lector(new StringReader("\uFEFFnombre,email\n\uFEFFx,y\n"));
+
+        assertThat(lector.leerFila()).containsExactly("nombre", "email");
+        // Solo se descarta al principio del archivo
+        assertThat(lector.leerFila()).containsExactly("\uFEFFx", "y");
+    }
+
+    @Test
+    void comillasSinCerrarFallan() throws IOException {
+        Csv.Lector lector = new Csv.Lector(new StringReader("a,b\n\"sin cerrar,c\n"));
+
+        assertThat(lector.leerFila()).containsExactly("a", "b");
+        assertThatThrownBy(lector::leerFila)
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Comillas sin cerrar");
+    }
+
+    @Test
+    void campoDemasiadoLargoFalla() {
+        String campo = "x".repeat(Csv.Lector.LARGO_MAXIMO_CAMPO + 1);
+
+        assertThatThrownBy(() -> leerTodo("a," + campo + "\n"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(String.valueOf(Csv.Lector.LARGO_MAXIMO_CAMPO));
+    }
+
+    @Test
+    void filaConDemasiadosCamposFalla() throws IOException {
+        String permitida = String.join(",", Collections.nCopies(Csv.Lector.MAXIMO_CAMPOS, "a"));
+        assertThat(leerTodo(permitida)).singleElement(InstanceOfAssertFactories.LIST).hasSize(Csv.Lector.MAXIMO_CAMPOS);
+
+        // Solo comas: sin este límite la fila crecería sin tope aunque cada campo esté vacío
+        String comas = ",".repeat(Csv.Lector.MAXIMO_CAMPOS);
+        assertThatThrownBy(() -> leerTodo(comas))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining(String.valueOf(Csv.Lector.MAXIMO_CAMPOS));
+    }
+
+    @Test
+    void loEscritoSeLeeIgual() throws IOException {
+        StringWriter salida = new StringWriter();
+        Csv.escribirFila(salida, "simple", "con, coma", "con \"comillas\"", "dos\nlineas", null, 42);
+
+        assertThat(leerTodo(salida.toString())).containsExactly(
+                List.of("simple", "con, coma", "con \"comillas\"", "dos\nlineas", "", "42"));
+    }
+
+    private static List<List<String>> leerTodo(String texto) throws IOException {
+        Csv.Lector lector = new Csv.Lector(new StringReader(texto));
+        List<List<String>> filas = new ArrayList<>();
+        List<String> fila;
+        while ((fila = lector.leerFila()) != null) {
+            filas.add(fila);
+        }
+        return filas;
+    }
+}
@@ -0,0 +1,62 @@
+package com.salesmaster.salesmasterpro.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifica que HuellaSql.normalizar agrupe las ejecuciones de una misma sentencia: literales,
+ * comillas escapadas, listas de parámetros y números que forman parte de un identificador.
+ */
+class HuellaSqlTest {
+
+    @Test
+    void literalesDeTextoYNumerosSeReemplazan() {
+        assertThat(HuellaSql.normalizar("SELECT * FROM cliente WHERE email = 'ana@x.com' AND id_cliente = 42"))
+                .isEqualTo("SELECT * FROM cliente WHERE email = ? AND id_cliente = ?");
+        assertThat(HuellaSql.normalizar("SELECT * FROM producto WHERE precio > 12.50"))
+                .isEqualTo("SELECT * FROM producto WHERE precio > ?");
+    }
+
+    @Test
+    void comillaEscapadaNoTerminaElLiteral() {
+        assertThat(HuellaSql.normalizar("UPDATE cliente SET nombre = 'O''Brien' WHERE id_cliente = ?"))
+                .isEqualTo("UPDATE cliente SET nombre = ? WHERE id_cliente = ?");
+        assertThat(HuellaSql.normalizar("SELECT 'a'''"))
+                .isEqualTo("SELECT ?");
+        assertThat(HuellaSql.normalizar("SELECT '' , 'x'"))
+                .isEqualTo("SELECT ? , ?");
+    }
+
+    @Test
+    void listaDeParametrosSePliegaSinImportarElLargo() {
+        String dos = HuellaSql.normalizar("SELECT * FROM producto WHERE id_prod IN (?, ?)");
+        String cinco = HuellaSql.normalizar("SELECT * FROM producto WHERE id_prod IN (1, 2, 3,4 , 5)");
+
+        assertThat(dos).isEqualTo("SELECT * FROM producto WHERE id_prod IN (?+)");
+        assertThat(cinco).isEqualTo(dos);
+        assertThat(HuellaSql.normalizar("SELECT * FROM producto WHERE nombre IN ('a', 'b''c', 'd')")).isEqualTo(dos.replace("id_prod", "nombre"));
+    }
+
+    @Test
+    void unSoloParametroOValoresFueraDeParentesisNoSePliegan() {
+        assertThat(HuellaSql.normalizar("SELECT * FROM producto WHERE id_prod IN (?)"))
+                .isEqualTo("SELECT * FROM producto WHERE id_prod IN (?)");
+        assertThat(HuellaSql.normalizar("SELECT a, 1, 2 FROM t"))
+                .isEqualTo("SELECT a, ?, ? FROM t");
+    }
+
+    @Test
+    void numerosDentroDeIdentificadoresSeConservan() {
+        assertThat(HuellaSql.normalizar("SELECT p1_0.id_prod, p1_0.nombre FROM salesmaster.producto p1_0 WHERE p1_0.id_prod = 7"))
+                .isEqualTo("SELECT p1_0.id_prod, p1_0.nombre FROM salesmaster.producto p1_0 WHERE p1_0.id_prod = ?");
+        assertThat(HuellaSql.normalizar("SELECT \"tabla2\".col3 FROM \"tabla2\""))
+                .isEqualTo("SELECT \"tabla2\".col3 FROM \"tabla2\"");
+    }
+
+    @Test
+    void espaciosYSaltosDeLineaSeReducen() {
+        assertThat(HuellaSql.normalizar("  SELECT *\n\tFROM   cliente\r\n WHERE id_cliente = 3  "))
+                .isEqualTo("SELECT * FROM cliente WHERE id_cliente = ?");
+    }
+}
@@ -0,0 +1,104 @@
+package com.salesmaster.salesmasterpro.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Verifica el resumen Space-Saving: conteos exactos mientras hay lugar, el reemplazo del mínimo y
+ * las cotas de error sobre un flujo sesgado.
+ */
+class SpaceSavingTest {
+
+    @Test
+    void conLugarLosConteosSonExactos() {
+        SpaceSaving resumen = new SpaceSaving(3);
+        resumen.agregar(1, 5);
+        resumen.agregar(2, 2);
+        resumen.agregar(1, 1);
+
+        assertThat(resumen.conteo(1)).isEqualTo(6);
+        assertThat(resumen.error(1)).isZero();
+        assertThat(resumen.conteo(2)).isEqualTo(2);
+        // Todavía hay lugar: lo que no está no se vendió
+        assertThat(resumen.minimo()).isZero();
+        assertThat(resumen.error(3)).isZero();
+    }
+
+    @Test
+    void elementoNuevoSinLugarReemplazaAlMinimoYHeredaSuConteo() {
+        SpaceSaving resumen = new SpaceSaving(2);
+        resumen.agregar(1, 5);
+        resumen.agregar(2, 3);
+
+        resumen.agregar(3, 1);
+
+        assertThat(resumen.conteo(2)).isZero();
+        assertThat(resumen.conteo(3)).isEqualTo(4);
+        assertThat(resumen.error(3)).isEqualTo(3);
+        assertThat(resumen.conteo(1)).isEqualTo(5);
+        assertThat(resumen.minimo()).isEqualTo(4);
+        // El reemplazado pudo haber tenido hasta el mínimo actual
+        assertThat(resumen.error(2)).isEqualTo(4);
+    }
+
+    @Test
+    void cotasDeErrorSobreUnFlujoSesgado() {
+        int capacidad = 20;
+        SpaceSaving resumen = new SpaceSaving(capacidad);
+        Map<Long, Long> reales = new HashMap<>();
+        Random random = new Random(42);
+        long total = 0;
+        for (int i = 0; i < 20_000; i++) {
+            // Pocas claves muy frecuentes y una cola larga de claves raras
+            long clave = random.nextInt(4) == 0 ? random.nextInt(500) : random.nextInt(8);
+            long peso = 1 + random.nextInt(3);
+            resumen.agregar(clave, peso);
+            reales.merge(clave, peso, Long::sum);
+            total += peso;
+        }
+
+        long minimo = resumen.minimo();
+        for (Map.Entry<Long, Long> entrada : reales.entrySet()) {
+            long clave = entrada.getKey();
+            long real = entrada.getValue();
+            long conteo = resumen.conteo(clave);
+            if (conteo > 0) {
+                assertThat(conteo).as("clave %d", clave).isGreaterThanOrEqualTo(real);
+                assertThat(conteo - resumen.error(clave)).as("clave %d", clave).isLessThanOrEqualTo(real);
+            } else {
+                assertThat(real).as("clave %d", clave).isLessThanOrEqualTo(minimo);
+            }
+            if (real > total / capacidad) {
+                assertThat(conteo).as("clave frecuente %d", clave).isPositive();
+            }
+        }
+        assertThat(minimo).isLessThanOrEqualTo(total / capacidad);
+    }
+
+    @Test
+    void recorrerYLimpiar() {
+        SpaceSaving resumen = new SpaceSaving(2);
+        resumen.agregar(1, 2);
+        resumen.agregar(2, 1);
+        Map<Long, Long> vistos = new HashMap<>();
+        resumen.recorrer((clave, conteo, error) -> vistos.put(clave, conteo));
+
+        assertThat(vistos).containsOnly(Map.entry(1L, 2L), Map.entry(2L, 1L));
+
+        resumen.limpiar();
+        assertThat(resumen.estaVacio()).isTrue();
+        assertThat(resumen.minimo()).isZero();
+    }
+
+    @Test
+    void capacidadMenorAUnoFalla() {
+        assertThatThrownBy(() -> new SpaceSaving(0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,98 @@
+package com.salesmaster.salesmasterpro.validation;
+
+import org.apache.commons.validator.routines.EmailValidator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compara los validadores de nombre y email con la implementación anterior
+ * (expresión regular y Apache Commons Validator) sobre casos fijos y textos aleatorios.
+ */
+class ValidacionParidadTest {
+
+    private static final String NOMBRE_PATTERN = "^[a-zA-ZáéíóúÁÉÍÓÚñÑüÜ\\s'-]{2,80}$";
+    private static final EmailValidator COMMONS = EmailValidator.getInstance(true, true);
+
+    private final ValidNombreValidator nombreValidator = new ValidNombreValidator();
+    private final ValidEmailValidator emailValidator = new ValidEmailValidator();
+
+    @Test
+    void nombresComoLaExpresionRegular() {
+        List<String> nombres = new ArrayList<>(List.of(
+                "", " ", "  ", "X", "Xy", " X ", " Xy ", "Juan Pérez", "María José O'Connor",
+                "Ñandú Güemes-Arias", "Juan123", "Ana\tMaría", "Ana\nMaría", "Ana María",
+                "Zoë", "François", "--", "''", " - ", "a".repeat(80), "a".repeat(81), " " + "a".repeat(79),
+                "\u0001ab", "ab\u0000"));
+        nombres.addAll(aleatorios(new Random(16), "aZñÑüé '-\t\n\r\u000B\f1. \u0001ç", 80, 20_000));
+
+        for (String nombre : nombres) {
+            assertThat(nombreValidator.isValid(nombre, null))
+                    .as("nombre [%s]", nombre)
+                    .isEqualTo(nombreAnterior(nombre));
+        }
+        assertThat(nombreValidator.isValid(null, null)).isFalse();
+    }
+
+    @Test
+    void emailsComoCommonsValidator() {
+        List<String> emails = new ArrayList<>(List.of(
+                "", " ", "\t", "juan.perez@example.com", "maria+ventas@empresa.com.bo", "sin-arroba.example.com",
+                "usuario@dominio", "a@b.co", "a@b.co.", "@example.com", "juan@", "juan@@example.com",
+                "a@b@example.com", "juan perez@example.com", "juan@exa mple.com", "juan@example.com\n",
+                "ju\nan@example.com", "\"juan perez\"@example.com", "juan@[127.0.0.1]", "juan@[999.0.0.1]",
+                "juan@localhost", "juan@com", "juan@.com", "juan@example.invalidtld", "JUAN@EXAMPLE.COM",
+                "a".repeat(64) + "@example.com", "a".repeat(65) + "@example.com", "juan@example.com ",
+                " juan@example.com", "juan@münchen.de", "ju..an@example.com", ".juan@example.com"));
+        emails.addAll(aleatorios(new Random(16), "ab.@- _\"\n[]1", 24, 20_000));
+        for (String usuario : List.of("juan", "a.b", "x")) {
+            for (String dominio : List.of("example.com", "com", "example", "localhost", "ex_ample.com", "-a.com")) {
+                emails.add(usuario + "@" + dominio);
+            }
+        }
+
+        for (String email : emails) {
+            // Dos veces: la segunda sale de la caché de dominios
+            for (int vez = 0; vez < 2; vez++) {
+                assertThat(emailValidator.isValid(email, null))
+                        .as("email [%s]", email)
+                        .isEqualTo(emailAnterior(email));
+            }
+        }
+        assertThat(emailValidator.isValid(null, null)).isTrue();
+    }
+
+    private static boolean nombreAnterior(String nombre) {
+        if (nombre == null || nombre.trim().isEmpty()) {
+            return false;
+        }
+        if (nombre.trim().length() < 2) {
+            return false;
+        }
+        return nombre.matches(NOMBRE_PATTERN);
+    }
+
+    private static boolean emailAnterior(String email) {
+        if (email == null || email.trim().isEmpty()) {
+            return true;
+        }
+        return COMMONS.isValid(email);
+    }
+
+    private static List<String> aleatorios(Random random, String alfabeto, int largoMaximo, int cantidad) {
+        List<String> textos = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            StringBuilder texto = new StringBuilder();
+            int largo = random.nextInt(largoMaximo + 1);
+            for (int j = 0; j < largo; j++) {
+                texto.append(alfabeto.charAt(random.nextInt(alfabeto.length())));
+            }
+            textos.add(texto.toString());
+        }
+        return textos;
+    }
+}